@@ -0,0 +1,93 @@
+package com.mycompany.plugins.noti.edu;
+
+import static org.junit.Assert.*;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Action PendingIntents reused across progress rebuilds by {@link ActionIntentPool}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ActionIntentPoolTest {
+
+    private static final int NOTIFICATION_ID = 918273;
+    private static final int UPDATES = 100;
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    @After
+    public void releaseIntents() {
+        ActionIntentPool.getInstance(context).invalidate(NOTIFICATION_ID);
+    }
+
+    @Test
+    public void progressUpdates_reuseActionIntents() {
+        List<NotificationSpec.ActionSpec> actions = Arrays.asList(
+            new NotificationSpec.ActionSpec("pause", "Pause", null, false, false, null, null, null),
+            new NotificationSpec.ActionSpec("cancel", "Cancel", null, false, false, null, null, null)
+        );
+        ActionIntentPool pool = ActionIntentPool.getInstance(context);
+        NotificationRenderer renderer = new NotificationRenderer(context);
+        long createdBefore = pool.getCreated();
+
+        // Every rebuild attaches the same PendingIntent instances, one getBroadcast per action in total
+        Set<PendingIntent> attached = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < UPDATES; i++) {
+            Notification notification = renderer.buildNotification(progressSpec(actions, i), null);
+            assertNotNull(notification);
+            assertEquals(actions.size(), notification.actions.length);
+            for (Notification.Action action : notification.actions) {
+                attached.add(action.actionIntent);
+            }
+        }
+
+        assertEquals(actions.size(), pool.getCreated() - createdBefore);
+        assertEquals(actions.size(), attached.size());
+    }
+
+    @Test
+    public void invalidate_dropsOnlyThatNotification() {
+        ActionIntentPool pool = ActionIntentPool.getInstance(context);
+        int[] codes = new int[2];
+        pool.get(NOTIFICATION_ID, "a", false, code -> broadcast(codes[0] = code));
+        pool.get(NOTIFICATION_ID + 1, "a", false, code -> broadcast(codes[1] = code));
+        assertNotEquals(codes[0], codes[1]);
+
+        pool.invalidate(NOTIFICATION_ID);
+        long created = pool.getCreated();
+        pool.get(NOTIFICATION_ID + 1, "a", false, code -> broadcast(code));
+        assertEquals(created, pool.getCreated());
+        pool.get(NOTIFICATION_ID, "a", false, code -> broadcast(code));
+        assertEquals(created + 1, pool.getCreated());
+
+        pool.invalidate(NOTIFICATION_ID + 1);
+    }
+
+    private PendingIntent broadcast(int requestCode) {
+        Intent intent = new Intent(context, NotificationActionReceiver.class);
+        return PendingIntent.getBroadcast(context, requestCode, intent, PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    private static NotificationSpec progressSpec(List<NotificationSpec.ActionSpec> actions, int progress) {
+        NotificationSpec.Builder builder = new NotificationSpec.Builder(NOTIFICATION_ID)
+            .setTitle("Downloading")
+            .setProgress(new NotificationSpec.ProgressSpec(progress, UPDATES, false, false, null, null, null, null, null));
+        for (NotificationSpec.ActionSpec action : actions) {
+            builder.addAction(action);
+        }
+        return builder.build();
+    }
+}
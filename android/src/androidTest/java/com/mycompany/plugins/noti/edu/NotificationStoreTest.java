@@ -0,0 +1,114 @@
+package com.mycompany.plugins.noti.edu;
+
+import static org.junit.Assert.*;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+/**
+ * Entries written and read back by a store reopened on the same directory.
+ */
+@RunWith(AndroidJUnit4.class)
+public class NotificationStoreTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void oversizedNotification_isRejectedAndLaterEntriesSurviveReopen() throws IOException {
+        File dir = folder.newFolder();
+        NotificationStore store = new NotificationStore(dir);
+        store.putDelivered(1, notification(1, 16));
+
+        try {
+            store.putPending(2, System.currentTimeMillis() + 60_000, notification(2, NotificationStore.MAX_JSON_SIZE + 1));
+            fail("A notification over the record limit must be rejected");
+        } catch (IllegalArgumentException expected) {
+            // The caller gets the error and nothing is written
+        }
+        store.putPending(3, System.currentTimeMillis() + 60_000, notification(3, 16));
+
+        NotificationStore reopened = new NotificationStore(dir);
+        assertEquals(2, reopened.size());
+        assertNotNull(reopened.get(1, NotificationStore.STATE_DELIVERED));
+        assertNull(reopened.get(2));
+        assertNotNull(reopened.get(3, NotificationStore.STATE_PENDING));
+    }
+
+    @Test
+    public void notificationAtTheLimit_isReadBackFromLogAndSnapshot() throws IOException {
+        File dir = folder.newFolder();
+        NotificationStore store = new NotificationStore(dir);
+        JSObject large = notification(1, 0);
+        int overhead = large.toString().length();
+        large = notification(1, NotificationStore.MAX_JSON_SIZE - overhead);
+        assertEquals(NotificationStore.MAX_JSON_SIZE, large.toString().length());
+        store.putDelivered(1, large);
+        store.putDelivered(2, notification(2, 16));
+
+        NotificationStore reopened = new NotificationStore(dir);
+        assertEquals(2, reopened.size());
+        assertEquals(large.toString(), reopened.get(1).toString());
+
+        reopened.compact();
+        NotificationStore compacted = new NotificationStore(dir);
+        assertEquals(2, compacted.size());
+        assertEquals(large.toString(), compacted.get(1).toString());
+        assertNotNull(compacted.get(2));
+    }
+
+    @Test
+    public void shownRecurringEntry_isListedUnderBothStatesUntilRemovedAsDelivered() throws IOException {
+        File dir = folder.newFolder();
+        NotificationStore store = new NotificationStore(dir);
+        long next = System.currentTimeMillis() + 60_000;
+        store.putShown(1, next, notification(1, 16));
+        store.putShown(2, next, notification(2, 16));
+        store.putDelivered(3, notification(3, 16));
+
+        NotificationStore reopened = new NotificationStore(dir);
+        assertEquals(2, reopened.size(NotificationStore.STATE_PENDING));
+        assertEquals(3, reopened.size(NotificationStore.STATE_DELIVERED));
+        assertEquals(next, reopened.getEntry(1).triggerAt);
+        assertTrue(reopened.getEntry(1).deliveredAt() > 0);
+
+        NotificationIndex.Query delivered = new NotificationIndex.Query();
+        delivered.state = NotificationStore.STATE_DELIVERED;
+        assertEquals(3, reopened.query(delivered).notifications.size());
+
+        // Dismissed: the next occurrence is still scheduled
+        assertTrue(reopened.removeDelivered(1));
+        assertNotNull(reopened.get(1, NotificationStore.STATE_PENDING));
+        assertNull(reopened.get(1, NotificationStore.STATE_DELIVERED));
+        assertEquals(2, reopened.query(delivered).notifications.size());
+
+        reopened.clear(NotificationStore.STATE_DELIVERED);
+        NotificationStore cleared = new NotificationStore(dir);
+        assertEquals(0, cleared.size(NotificationStore.STATE_DELIVERED));
+        assertEquals(2, cleared.size(NotificationStore.STATE_PENDING));
+        assertEquals(next, cleared.getEntry(2).triggerAt);
+    }
+
+    /**
+     * A notification whose {@code extra.data} holds the given number of ASCII chars
+     */
+    private static JSObject notification(int id, int dataLength) {
+        StringBuilder data = new StringBuilder(dataLength);
+        for (int i = 0; i < dataLength; i++) {
+            data.append('x');
+        }
+        JSObject extra = new JSObject();
+        extra.put("data", data.toString());
+        JSObject notification = new JSObject();
+        notification.put("id", id);
+        notification.put("title", "Title " + id);
+        notification.put("extra", extra);
+        return notification;
+    }
+}
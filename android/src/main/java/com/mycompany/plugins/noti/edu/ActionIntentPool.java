@@ -0,0 +1,148 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.getcapacitor.JSObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * PendingIntents for notification actions and delete intents, created once
+ * per (notification id, action id, target) and reused by every rebuild.
+ *
+ * Creating a PendingIntent is a Binder call to the system, and progress
+ * notifications are rebuilt several times a second, each with all of their
+ * actions. Entries are dropped and cancelled with their notification.
+ * Request codes are handed out from a persisted counter instead of being
+ * derived from string hashes, so two actions never share one and a code
+ * is never reused for a different action after a restart.
+ */
+class ActionIntentPool {
+
+    private static final String PREFS_NAME = "modern_notifications";
+    private static final String PREF_NEXT_REQUEST_CODE = "actionIntents.nextRequestCode";
+
+    /** Creates the PendingIntent on a miss; this is the Binder call being saved */
+    interface Factory {
+        PendingIntent create(int requestCode);
+    }
+
+    private static ActionIntentPool sharedInstance;
+
+    private final SharedPreferences prefs;
+
+    // Guarded by this
+    private final Map<String, PendingIntent> intents = new HashMap<>();
+    private int nextRequestCode;
+    private long created;
+    private long reused;
+    private long cancelled;
+
+    static synchronized ActionIntentPool getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new ActionIntentPool(
+                context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            );
+        }
+        return sharedInstance;
+    }
+
+    /**
+     * @param prefs Where the request code counter is kept, or null to keep it in memory only
+     */
+    ActionIntentPool(SharedPreferences prefs) {
+        this.prefs = prefs;
+        this.nextRequestCode = prefs != null ? prefs.getInt(PREF_NEXT_REQUEST_CODE, 1) : 1;
+    }
+
+    /**
+     * Compact key of one action of one notification
+     * @param activity Whether the intent opens an activity rather than the action receiver
+     */
+    static String key(int notificationId, String actionId, boolean activity) {
+        return notificationId + (activity ? "/a/" : "/b/") + actionId;
+    }
+
+    /**
+     * Cached PendingIntent for the action, created with a fresh request code on a miss
+     */
+    synchronized PendingIntent get(int notificationId, String actionId, boolean activity, Factory factory) {
+        return getOrCreate(key(notificationId, actionId, activity), factory);
+    }
+
+    /**
+     * Cached delete intent of a notification, kept and invalidated with its action intents
+     */
+    synchronized PendingIntent getDeleteIntent(int notificationId, Factory factory) {
+        return getOrCreate(notificationId + "/d", factory);
+    }
+
+    /**
+     * Drop and cancel the intents of a notification that was cancelled
+     */
+    synchronized void invalidate(int notificationId) {
+        String prefix = notificationId + "/";
+        Iterator<Map.Entry<String, PendingIntent>> it = intents.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, PendingIntent> entry = it.next();
+            if (entry.getKey().startsWith(prefix)) {
+                entry.getValue().cancel();
+                cancelled++;
+                it.remove();
+            }
+        }
+    }
+
+    synchronized void invalidateAll() {
+        for (PendingIntent intent : intents.values()) {
+            intent.cancel();
+            cancelled++;
+        }
+        intents.clear();
+    }
+
+    synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("created", created);
+        stats.put("reused", reused);
+        stats.put("cancelled", cancelled);
+        stats.put("cached", intents.size());
+        return stats;
+    }
+
+    synchronized long getCreated() {
+        return created;
+    }
+
+    synchronized long getReused() {
+        return reused;
+    }
+
+    private PendingIntent getOrCreate(String key, Factory factory) {
+        PendingIntent intent = intents.get(key);
+        if (intent != null) {
+            reused++;
+            return intent;
+        }
+        intent = factory.create(takeRequestCode());
+        created++;
+        if (intent != null) {
+            intents.put(key, intent);
+        }
+        return intent;
+    }
+
+    private int takeRequestCode() {
+        int code = nextRequestCode;
+        // Skip 0, which other PendingIntents of the app commonly use
+        nextRequestCode = code == Integer.MAX_VALUE ? 1 : code + 1;
+        if (prefs != null) {
+            prefs.edit().putInt(PREF_NEXT_REQUEST_CODE, nextRequestCode).apply();
+        }
+        return code;
+    }
+}
@@ -0,0 +1,500 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Schedules future notifications through a small window of AlarmManager alarms.
+ *
+ * All pending trigger times are kept in a {@link ScheduleIndex} rebuilt from
+ * the {@link NotificationStore} on first use. Only the earliest wakeups
+ * are registered with AlarmManager, one alarm by default or the next
+ * {@code alarmWindowSize} when configured. A wakeup covers every entry whose
+ * delivery tolerance overlaps it, and is armed as a system window rather
+ * than an exact alarm when the overlap allows. When an alarm
+ * fires the receiver drains every entry that is due and the window slides
+ * forward, so AlarmManager never holds more than the window no matter how
+ * many notifications are scheduled. The armed slots are persisted with the
+ * window size, so a cold receiver neither re-arms alarms that are still
+ * registered nor leaves slots from a larger window behind. After a reboot or a clock change
+ * {@link #rearm(String)} registers the window again and recomputes the
+ * recurring entries the change affects.
+ */
+public class AlarmScheduler {
+
+    private static final String TAG = "AlarmScheduler";
+
+    /** First request code reserved for scheduler alarms, one per window slot */
+    static final int ALARM_REQUEST_CODE = 0x4D4E0001;
+
+    /** Upper bound for the window, well below the platform per-app alarm cap */
+    static final int MAX_WINDOW_SIZE = 50;
+
+    private static final String PREFS_NAME = "modern_notifications";
+    private static final String PREF_WINDOW_SIZE = "alarmWindowSize";
+    private static final String PREF_ARMED = "alarmArmed";
+    private static final String PREF_ARMED_BOOT = "alarmArmedBoot";
+
+    /** Boot times further apart than this mean the persisted slots are from before a reboot */
+    private static final long BOOT_TIME_TOLERANCE_MS = 60 * 1000;
+
+    static final String REARM_BOOT = "boot";
+    static final String REARM_TIME_SET = "timeSet";
+    static final String REARM_TIMEZONE = "timezone";
+
+    /** Entries due within this many millis of a wakeup are delivered with it */
+    private static final long DRAIN_TOLERANCE_MS = 1000;
+
+    /** Android 14 stretches shorter setWindow windows to 10 minutes, those are armed exactly */
+    private static final long MIN_SYSTEM_WINDOW_MS = 10 * 60 * 1000;
+
+    private static AlarmScheduler sharedInstance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final NotificationStore store;
+    private final ScheduleIndex index = new ScheduleIndex();
+    private long[] armedTimes;
+    // Latest time each armed alarm may fire at, equal to its time for exact alarms
+    private long[] armedEnds;
+    // Armed slots as last persisted, so a cold process knows what AlarmManager holds
+    private String savedArmed;
+    private int batchDepth;
+
+    private long alarmsArmed;
+    private long wakeups;
+    private long deliveredByAlarm;
+    private long recurrences;
+    private long scheduled;
+    private long scheduledWithTolerance;
+    private long exactAlarms;
+    private long inexactAlarms;
+    private long wakeupsAvoidedByTolerance;
+    private JSObject lastRearm;
+
+    /**
+     * Get the process-wide scheduler, rebuilding its index from the store on first use
+     * @param context Any context, the application context is retained
+     * @return Shared scheduler
+     */
+    public static synchronized AlarmScheduler getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new AlarmScheduler(context.getApplicationContext());
+        }
+        return sharedInstance;
+    }
+
+    private AlarmScheduler(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.store = NotificationStore.getInstance(context);
+        int windowSize = prefs.getInt(PREF_WINDOW_SIZE, 1);
+        this.armedTimes = newWindow(windowSize);
+        this.armedEnds = newWindow(windowSize);
+        restoreArmed();
+        for (NotificationStore.Entry entry : store.list(NotificationStore.STATE_PENDING)) {
+            if (entry.triggerAt > 0) {
+                // Only payloads that mention a tolerance are parsed
+                long tolerance = entry.json.contains("\"tolerance\"") ? toleranceOf(entry.getNotification()) : 0;
+                index.put(entry.id, entry.triggerAt, entry.triggerAt + tolerance);
+            }
+        }
+        Log.d(TAG, "Scheduler index rebuilt with " + index.size() + " entries");
+    }
+
+    /**
+     * Add or move a notification in the schedule. The notification must already be stored as pending.
+     * @param id Notification ID
+     * @param triggerAt Epoch millis
+     */
+    public synchronized void schedule(int id, long triggerAt) {
+        schedule(id, triggerAt, 0);
+    }
+
+    /**
+     * Add or move a notification that may be delivered late, so its wakeup can be
+     * shared with other notifications and left to the system to batch
+     * @param tolerance Millis after triggerAt the notification may still be delivered at
+     */
+    public synchronized void schedule(int id, long triggerAt, long tolerance) {
+        scheduled++;
+        if (tolerance > 0) {
+            scheduledWithTolerance++;
+        }
+        index.put(id, triggerAt, triggerAt + tolerance);
+        rearmIfNeeded();
+    }
+
+    /**
+     * Re-arm a recurring notification for its next occurrence after it fired
+     */
+    public synchronized void scheduleRecurrence(int id, long triggerAt, long tolerance) {
+        recurrences++;
+        schedule(id, triggerAt, tolerance);
+    }
+
+    /**
+     * Delivery tolerance of a notification, {@code schedule.tolerance}
+     * @return Millis, 0 when absent or invalid
+     */
+    static long toleranceOf(JSONObject notification) {
+        JSONObject schedule = notification.optJSONObject("schedule");
+        return schedule != null ? Math.max(0, schedule.optLong("tolerance", 0)) : 0;
+    }
+
+    public synchronized void cancel(int id) {
+        if (index.remove(id)) {
+            rearmIfNeeded();
+        }
+    }
+
+    public synchronized void cancelAll() {
+        index.clear();
+        rearmIfNeeded();
+    }
+
+    /**
+     * Set how many upcoming trigger times are registered with AlarmManager.
+     * The value is persisted so receivers in a cold process use the same window.
+     * @param windowSize Number of alarms, clamped to 1..{@link #MAX_WINDOW_SIZE}
+     */
+    public synchronized void setWindowSize(int windowSize) {
+        windowSize = Math.max(1, Math.min(MAX_WINDOW_SIZE, windowSize));
+        if (windowSize == armedTimes.length) {
+            return;
+        }
+        prefs.edit().putInt(PREF_WINDOW_SIZE, windowSize).apply();
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        for (int slot = windowSize; slot < armedTimes.length; slot++) {
+            if (armedTimes[slot] != Long.MAX_VALUE && alarmManager != null) {
+                alarmManager.cancel(createAlarmIntent(slot));
+            }
+        }
+        long[] resized = newWindow(windowSize);
+        long[] resizedEnds = newWindow(windowSize);
+        System.arraycopy(armedTimes, 0, resized, 0, Math.min(windowSize, armedTimes.length));
+        System.arraycopy(armedEnds, 0, resizedEnds, 0, Math.min(windowSize, armedEnds.length));
+        armedTimes = resized;
+        armedEnds = resizedEnds;
+        rearmIfNeeded();
+    }
+
+    /**
+     * Defer alarm updates until the matching {@link #endBatch()}, so bulk scheduling
+     * touches AlarmManager once instead of once per notification.
+     */
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    public synchronized void endBatch() {
+        if (batchDepth > 0 && --batchDepth == 0) {
+            rearmIfNeeded();
+        }
+    }
+
+    /**
+     * Remove every entry that is due and re-arm for the next one
+     * @return Copies of the stored notifications that should be shown now
+     */
+    public synchronized List<JSObject> drainDue() {
+        long now = System.currentTimeMillis();
+        List<JSObject> due = new ArrayList<>();
+        int distinctTimes = 0;
+        long lastTime = Long.MIN_VALUE;
+        while (!index.isEmpty() && index.peekTime() <= now + DRAIN_TOLERANCE_MS) {
+            long time = index.peekTime();
+            if (time != lastTime) {
+                distinctTimes++;
+                lastTime = time;
+            }
+            int id = index.poll();
+            // A copy, showing it updates the remaining count before storing it back
+            JSObject notification = store.get(id, NotificationStore.STATE_PENDING) != null ? store.copy(id) : null;
+            if (notification != null) {
+                due.add(notification);
+            }
+        }
+        wakeups++;
+        deliveredByAlarm += due.size();
+        boolean windowed = false;
+        for (int slot = 0; slot < armedTimes.length; slot++) {
+            if (armedTimes[slot] <= now + DRAIN_TOLERANCE_MS) {
+                windowed |= armedEnds[slot] > armedTimes[slot];
+                armedTimes[slot] = Long.MAX_VALUE; // fired, or covered by this wakeup
+            }
+        }
+        if (windowed && distinctTimes > 1) {
+            // Each other trigger time would have needed its own exact wakeup
+            wakeupsAvoidedByTolerance += distinctTimes - 1;
+        }
+        rearmIfNeeded();
+        Log.d(TAG, "Drained " + due.size() + " due notifications, " + index.size() + " remaining");
+        return due;
+    }
+
+    /**
+     * Bring the schedule back in line after a reboot or a clock change, in one batch.
+     * One-shot entries keep their absolute trigger time; recurring ones get their next
+     * occurrence recomputed from the new clock, only those following the device zone
+     * when just the zone changed. Entries already due are left for the next drain.
+     * @param reason One of the REARM_ constants
+     * @return Pending entries scanned, entries recomputed and the duration of the pass
+     */
+    public synchronized JSObject rearm(String reason) {
+        long start = SystemClock.elapsedRealtime();
+        long now = System.currentTimeMillis();
+        boolean zoneOnly = REARM_TIMEZONE.equals(reason);
+        int scanned = 0;
+        int recomputed = 0;
+        store.beginBatch();
+        try {
+            for (NotificationStore.Entry entry : store.list(NotificationStore.STATE_PENDING)) {
+                scanned++;
+                // Only entries with a schedule object can recur, the rest are never parsed
+                if (entry.triggerAt <= now || !entry.json.contains("\"schedule\"")) {
+                    continue;
+                }
+                JSObject notification = entry.getNotification();
+                JSONObject schedule = notification.optJSONObject("schedule");
+                RecurrenceRule rule;
+                try {
+                    rule = schedule != null ? RecurrenceRule.parse(schedule, now) : null;
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (rule == null || !(zoneOnly ? rule.followsDeviceZone() : rule.repeats || rule.followsDeviceZone())) {
+                    continue;
+                }
+                long next = rule.next(now);
+                if (next > 0 && next != entry.triggerAt) {
+                    store.putPending(entry.id, next, notification);
+                    index.put(entry.id, next, next + toleranceOf(notification));
+                    recomputed++;
+                }
+            }
+        } finally {
+            store.endBatch();
+        }
+        if (REARM_BOOT.equals(reason)) {
+            // AlarmManager forgets every alarm on reboot
+            Arrays.fill(armedTimes, Long.MAX_VALUE);
+        }
+        rearmIfNeeded();
+
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        JSObject report = new JSObject();
+        report.put("reason", reason);
+        report.put("entries", scanned);
+        report.put("recomputed", recomputed);
+        report.put("durationMs", elapsed);
+        report.put("at", now);
+        lastRearm = report;
+        Log.d(TAG, "Re-armed after " + reason + ": " + recomputed + " of " + scanned + " entries recomputed in " + elapsed + "ms");
+        return report;
+    }
+
+    /**
+     * Scheduler counters for diagnostics
+     */
+    public synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        int armed = 0;
+        long nextTriggerAt = Long.MAX_VALUE;
+        for (long time : armedTimes) {
+            if (time != Long.MAX_VALUE) {
+                armed++;
+                nextTriggerAt = Math.min(nextTriggerAt, time);
+            }
+        }
+        stats.put("pending", index.size());
+        stats.put("windowSize", armedTimes.length);
+        stats.put("armedAlarms", armed);
+        stats.put("alarmsArmed", alarmsArmed);
+        stats.put("wakeups", wakeups);
+        stats.put("deliveredByAlarm", deliveredByAlarm);
+        stats.put("wakeupsSaved", Math.max(0, deliveredByAlarm - wakeups));
+        stats.put("recurrences", recurrences);
+        stats.put("scheduled", scheduled);
+        stats.put("scheduledWithTolerance", scheduledWithTolerance);
+        stats.put("exactAlarms", exactAlarms);
+        stats.put("inexactAlarms", inexactAlarms);
+        stats.put("wakeupsAvoidedByTolerance", wakeupsAvoidedByTolerance);
+        if (lastRearm != null) {
+            stats.put("lastRearm", lastRearm);
+        }
+        if (nextTriggerAt != Long.MAX_VALUE) {
+            stats.put("nextTriggerAt", nextTriggerAt);
+        }
+        return stats;
+    }
+
+    /**
+     * Bring the armed alarms in line with the earliest planned wakeups. Slots whose
+     * wakeup is still wanted are left alone, so sliding the window by one wakeup
+     * costs a single AlarmManager call.
+     */
+    private void rearmIfNeeded() {
+        if (batchDepth > 0) {
+            return;
+        }
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            Log.e(TAG, "AlarmManager is null, cannot schedule notifications");
+            return;
+        }
+        long[] starts = new long[armedTimes.length];
+        long[] ends = new long[armedTimes.length];
+        int wanted = index.planWakeups(starts, ends);
+        boolean[] keep = new boolean[armedTimes.length];
+        boolean[] covered = new boolean[wanted];
+        for (int slot = 0; slot < armedTimes.length; slot++) {
+            // Planned starts are strictly increasing
+            int match = armedTimes[slot] != Long.MAX_VALUE ? Arrays.binarySearch(starts, 0, wanted, armedTimes[slot]) : -1;
+            if (match >= 0 && ends[match] == armedEnds[slot]) {
+                keep[slot] = true;
+                covered[match] = true;
+            }
+        }
+        int slot = 0;
+        for (int i = 0; i < wanted; i++) {
+            if (covered[i]) {
+                continue;
+            }
+            while (keep[slot]) {
+                slot++;
+            }
+            arm(alarmManager, slot, starts[i], ends[i]);
+            keep[slot] = true;
+        }
+        for (slot = 0; slot < armedTimes.length; slot++) {
+            if (!keep[slot] && armedTimes[slot] != Long.MAX_VALUE) {
+                alarmManager.cancel(createAlarmIntent(slot));
+                armedTimes[slot] = Long.MAX_VALUE;
+            }
+        }
+        saveArmed();
+    }
+
+    /**
+     * Persist the armed slots next to the window size, written only when they changed
+     */
+    private void saveArmed() {
+        StringBuilder armed = new StringBuilder();
+        for (int slot = 0; slot < armedTimes.length; slot++) {
+            if (armedTimes[slot] != Long.MAX_VALUE) {
+                armed.append(slot).append(':').append(armedTimes[slot]).append(':').append(armedEnds[slot]).append(',');
+            }
+        }
+        String value = armed.toString();
+        if (!value.equals(savedArmed)) {
+            prefs.edit().putString(PREF_ARMED, value).putLong(PREF_ARMED_BOOT, bootTime()).apply();
+            savedArmed = value;
+        }
+    }
+
+    /**
+     * Load the slots armed by an earlier process. Slots beyond the current window
+     * are left over from a larger one and cancelled. Nothing is restored after a
+     * reboot, AlarmManager no longer holds those alarms.
+     */
+    private void restoreArmed() {
+        savedArmed = prefs.getString(PREF_ARMED, "");
+        if (Math.abs(bootTime() - prefs.getLong(PREF_ARMED_BOOT, 0)) > BOOT_TIME_TOLERANCE_MS) {
+            return;
+        }
+        AlarmManager alarmManager = null;
+        for (String slotEntry : savedArmed.split(",")) {
+            String[] fields = slotEntry.split(":");
+            if (fields.length != 3) {
+                continue;
+            }
+            try {
+                int slot = Integer.parseInt(fields[0]);
+                if (slot < armedTimes.length) {
+                    armedTimes[slot] = Long.parseLong(fields[1]);
+                    armedEnds[slot] = Long.parseLong(fields[2]);
+                    continue;
+                }
+                if (alarmManager == null) {
+                    alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+                }
+                if (alarmManager != null) {
+                    alarmManager.cancel(createAlarmIntent(slot));
+                    Log.d(TAG, "Stale alarm slot " + slot + " cancelled");
+                }
+            } catch (NumberFormatException e) {
+                Log.w(TAG, "Ignoring corrupt armed slot: " + slotEntry);
+            }
+        }
+    }
+
+    /**
+     * Exact alarms for wakeups without tolerance, a system window otherwise so the
+     * system can batch it with other apps' alarms. Windows are not allowed while
+     * idle and wait for a Doze maintenance window, as documented for tolerance.
+     */
+    private void arm(AlarmManager alarmManager, int slot, long time, long end) {
+        PendingIntent pendingIntent = createAlarmIntent(slot);
+        long minWindow = Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE ? MIN_SYSTEM_WINDOW_MS : 1;
+        boolean exactAllowed = Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms();
+        if (end - time >= minWindow) {
+            alarmManager.setWindow(AlarmManager.RTC_WAKEUP, time, end - time, pendingIntent);
+            inexactAlarms++;
+        } else if (!exactAllowed) {
+            // Without the exact alarm permission, late is better than a SecurityException
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, time, pendingIntent);
+            inexactAlarms++;
+        } else {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, time, pendingIntent);
+            } else {
+                alarmManager.setExact(AlarmManager.RTC_WAKEUP, time, pendingIntent);
+            }
+            exactAlarms++;
+        }
+        armedTimes[slot] = time;
+        armedEnds[slot] = end;
+        alarmsArmed++;
+        Log.d(TAG, "Alarm slot " + slot + " armed for " + new java.util.Date(time)
+            + (end > time ? " to " + new java.util.Date(end) : "") + " (" + index.size() + " queued)");
+    }
+
+    /**
+     * Wall clock time of the last boot, moved by clock changes as well
+     */
+    private static long bootTime() {
+        return System.currentTimeMillis() - SystemClock.elapsedRealtime();
+    }
+
+    private PendingIntent createAlarmIntent(int slot) {
+        Intent intent = new Intent(context, ScheduledNotificationReceiver.class);
+        intent.setAction(ScheduledNotificationReceiver.ACTION_SCHEDULED_NOTIFICATION);
+        return PendingIntent.getBroadcast(
+            context,
+            ALARM_REQUEST_CODE + slot,
+            intent,
+            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private static long[] newWindow(int size) {
+        long[] window = new long[Math.max(1, Math.min(MAX_WINDOW_SIZE, size))];
+        Arrays.fill(window, Long.MAX_VALUE);
+        return window;
+    }
+}
@@ -0,0 +1,241 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.core.app.NotificationManagerCompat;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/**
+ * Handles notification actions declared with {@code foreground: false}
+ * natively, inside the action receiver, without opening the app.
+ *
+ * Supported behaviors are snooze (hide and show again later), dismiss,
+ * progress (set the progress bar to a fixed value) and queue (only record).
+ * Every background action is recorded in a small persistent queue that JS
+ * can drain, and the receiver-to-completion latency of background and
+ * foreground actions is tracked for {@code getActionStats()}.
+ */
+class BackgroundActionHandler {
+
+    private static final String TAG = "BackgroundActions";
+
+    static final String TYPE_SNOOZE = "snooze";
+    static final String TYPE_DISMISS = "dismiss";
+    static final String TYPE_PROGRESS = "progress";
+    static final String TYPE_QUEUE = "queue";
+
+    private static final int DEFAULT_SNOOZE_MINUTES = 10;
+
+    /** Oldest queued actions are dropped beyond this */
+    private static final int MAX_QUEUED_ACTIONS = 100;
+
+    private static final String PREFS_NAME = "modern_notifications";
+    private static final String PREF_QUEUE = "actionQueue";
+    private static final String PREF_STATS = "actionStats.";
+
+    private static BackgroundActionHandler sharedInstance;
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    // Only for progress actions while the plugin is not loaded, created on first use
+    private NotificationRenderer renderer;
+
+    static synchronized BackgroundActionHandler getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new BackgroundActionHandler(context.getApplicationContext());
+        }
+        return sharedInstance;
+    }
+
+    private BackgroundActionHandler(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Perform a background action and record it
+     * @param receivedAt {@code SystemClock.elapsedRealtime()} when the receiver got the intent
+     */
+    synchronized void handle(int notificationId, String actionId, long receivedAt) {
+        NotificationStore store = NotificationStore.getInstance(context);
+        JSObject stored = store.get(notificationId);
+        NotificationSpec spec = null;
+        if (stored != null) {
+            try {
+                spec = NotificationSpec.parse(stored);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Stored notification " + notificationId + " is invalid", e);
+            }
+        }
+        NotificationSpec.ActionSpec action = spec != null ? spec.findAction(actionId) : null;
+        String type = action != null && action.backgroundAction != null ? action.backgroundAction : TYPE_QUEUE;
+
+        // Also reaches JS listeners, now or once the app is opened. Recorded first
+        // so the event still carries the notification a dismiss is about to remove.
+        ModernNotificationsPlugin.handleNotificationAction(context, null, actionId, notificationId, null);
+
+        try {
+            switch (type) {
+                case TYPE_SNOOZE:
+                    snooze(store, stored, notificationId, action);
+                    break;
+                case TYPE_DISMISS:
+                    dismiss(store, notificationId);
+                    break;
+                case TYPE_PROGRESS:
+                    setProgress(store, spec, action);
+                    break;
+                default:
+                    type = TYPE_QUEUE;
+                    break;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Background action " + actionId + " failed for notification " + notificationId, e);
+        }
+
+        enqueue(notificationId, actionId, type);
+
+        long elapsed = SystemClock.elapsedRealtime() - receivedAt;
+        recordLatency(true, elapsed);
+        Log.d(TAG, "Background action " + type + " (" + actionId + ") handled in " + elapsed + "ms");
+    }
+
+    private void snooze(NotificationStore store, JSObject stored, int notificationId, NotificationSpec.ActionSpec action) {
+        ModernNotificationsPlugin.stopProgress(notificationId);
+        NotificationManagerCompat.from(context).cancel(notificationId);
+        NotificationPoster.getInstance(context).forget(notificationId);
+        if (stored == null) {
+            return;
+        }
+        // The shown occurrence is gone, the entry is only pending again
+        store.removeDelivered(notificationId);
+        int minutes = action.snoozeMinutes != null && action.snoozeMinutes > 0 ? action.snoozeMinutes : DEFAULT_SNOOZE_MINUTES;
+        long triggerAt = System.currentTimeMillis() + minutes * 60_000L;
+        store.putPending(notificationId, triggerAt, stored);
+        AlarmScheduler.getInstance(context).schedule(notificationId, triggerAt);
+        ModernNotificationsPlugin.invalidateSpec(notificationId);
+    }
+
+    private void dismiss(NotificationStore store, int notificationId) {
+        ModernNotificationsPlugin.stopProgress(notificationId);
+        NotificationManagerCompat.from(context).cancel(notificationId);
+        NotificationPoster.getInstance(context).forget(notificationId);
+        store.removeDelivered(notificationId);
+        ModernNotificationsPlugin.invalidateSpec(notificationId);
+    }
+
+    /**
+     * Through the plugin's progress engine when it is loaded, so the change is rate limited
+     * and ordered with the updates already in flight; posted and stored directly otherwise
+     */
+    private void setProgress(NotificationStore store, NotificationSpec spec, NotificationSpec.ActionSpec action) {
+        if (spec == null || action.progress == null) {
+            return;
+        }
+        if (ModernNotificationsPlugin.submitProgress(spec.id, action.progress)) {
+            return;
+        }
+        NotificationSpec.ProgressSpec current = spec.progress != null ? spec.progress : NotificationSpec.ProgressSpec.EMPTY;
+        NotificationSpec updated = spec.withProgress(current.withProgress(action.progress));
+        if (renderer == null) {
+            renderer = new NotificationRenderer(context);
+        }
+        // Re-post in place, the same id replaces the shown notification
+        NotificationPoster.getInstance(context).update(updated, renderer::render);
+        JSObject notification = store.copy(updated.id);
+        if (notification != null) {
+            notification.put("progressStyle", updated.progress.toJSObject());
+            // Keeps the delivered time, and a pending recurring entry pending
+            store.updateContent(updated.id, notification, true);
+        }
+        ModernNotificationsPlugin.invalidateSpec(updated.id);
+    }
+
+    // ---- Queue ----------------------------------------------------------
+
+    private void enqueue(int notificationId, String actionId, String type) {
+        JSONArray queue = readQueue();
+        JSObject entry = new JSObject();
+        entry.put("notificationId", notificationId);
+        entry.put("actionId", actionId);
+        entry.put("type", type);
+        entry.put("timestamp", System.currentTimeMillis());
+        queue.put(entry);
+
+        JSONArray bounded = queue;
+        if (queue.length() > MAX_QUEUED_ACTIONS) {
+            bounded = new JSONArray();
+            for (int i = queue.length() - MAX_QUEUED_ACTIONS; i < queue.length(); i++) {
+                bounded.put(queue.opt(i));
+            }
+        }
+        prefs.edit().putString(PREF_QUEUE, bounded.toString()).apply();
+    }
+
+    /**
+     * Return and clear the recorded background actions, oldest first
+     */
+    synchronized JSArray drainQueue() {
+        JSONArray queue = readQueue();
+        prefs.edit().remove(PREF_QUEUE).apply();
+        JSArray actions = new JSArray();
+        for (int i = 0; i < queue.length(); i++) {
+            actions.put(queue.opt(i));
+        }
+        return actions;
+    }
+
+    private JSONArray readQueue() {
+        String raw = prefs.getString(PREF_QUEUE, null);
+        if (raw == null) {
+            return new JSONArray();
+        }
+        try {
+            return new JSONArray(raw);
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding corrupt action queue", e);
+            return new JSONArray();
+        }
+    }
+
+    // ---- Metrics --------------------------------------------------------
+
+    /**
+     * @param background Whether the action was handled natively or opened the app
+     * @param elapsedMs Receiver start to completion
+     */
+    synchronized void recordLatency(boolean background, long elapsedMs) {
+        String prefix = PREF_STATS + (background ? "background." : "foreground.");
+        prefs
+            .edit()
+            .putLong(prefix + "count", prefs.getLong(prefix + "count", 0) + 1)
+            .putLong(prefix + "totalMs", prefs.getLong(prefix + "totalMs", 0) + elapsedMs)
+            .putLong(prefix + "maxMs", Math.max(prefs.getLong(prefix + "maxMs", 0), elapsedMs))
+            .apply();
+    }
+
+    synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("background", latencyStats(PREF_STATS + "background."));
+        stats.put("foreground", latencyStats(PREF_STATS + "foreground."));
+        stats.put("queued", readQueue().length());
+        return stats;
+    }
+
+    private JSObject latencyStats(String prefix) {
+        long count = prefs.getLong(prefix + "count", 0);
+        JSObject stats = new JSObject();
+        stats.put("count", count);
+        stats.put("averageMs", count > 0 ? (double) prefs.getLong(prefix + "totalMs", 0) / count : 0);
+        stats.put("maxMs", prefs.getLong(prefix + "maxMs", 0));
+        return stats;
+    }
+}
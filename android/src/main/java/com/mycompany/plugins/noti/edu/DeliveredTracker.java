@@ -0,0 +1,163 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.SystemClock;
+import android.service.notification.StatusBarNotification;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the delivered entries of {@link NotificationStore} in sync with what
+ * the system actually shows.
+ *
+ * Every posted notification carries a delete intent to
+ * {@link NotificationDismissReceiver}, so swipes and "clear all" remove the
+ * entry as they happen. Removals that send no delete intent (channel
+ * blocked, force stop, app update) are caught by diffing the store against
+ * {@link NotificationManager#getActiveNotifications()}; only entries that
+ * disappeared are touched.
+ */
+class DeliveredTracker {
+
+    private static final String TAG = "DeliveredTracker";
+
+    /** getActiveNotifications is a system call; results this fresh are reused */
+    private static final long MIN_RECONCILE_INTERVAL_MS = 5_000;
+    /** Posts are enqueued asynchronously and may not be active yet right after notify */
+    private static final long POST_GRACE_MS = 2_000;
+
+    private static DeliveredTracker sharedInstance;
+
+    private final Context context;
+    private final NotificationStore store;
+    private final NotificationManager notificationManager;
+
+    // Guarded by this
+    private long lastReconcileAt = Long.MIN_VALUE / 2;
+    private long reconciles;
+    private long staleRemoved;
+    private long dismissed;
+
+    static synchronized DeliveredTracker getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new DeliveredTracker(context.getApplicationContext());
+        }
+        return sharedInstance;
+    }
+
+    private DeliveredTracker(Context context) {
+        this.context = context;
+        this.store = NotificationStore.getInstance(context);
+        this.notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+    }
+
+    /**
+     * Delete intent for a posted notification, pooled with its action intents
+     */
+    PendingIntent deleteIntent(int notificationId) {
+        return ActionIntentPool.getInstance(context).getDeleteIntent(notificationId, requestCode -> {
+            Intent intent = new Intent(context, NotificationDismissReceiver.class);
+            intent.setAction(NotificationDismissReceiver.ACTION_NOTIFICATION_DISMISSED);
+            intent.putExtra("notificationId", notificationId);
+            return PendingIntent.getBroadcast(
+                context,
+                requestCode,
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+            );
+        });
+    }
+
+    /**
+     * A delivered notification was dismissed by the user
+     * @return Whether it was still tracked as delivered
+     */
+    boolean onDismissed(int id) {
+        boolean tracked = store.removeDelivered(id);
+        NotificationPoster.getInstance(context).forget(id);
+        synchronized (this) {
+            dismissed++;
+        }
+        return tracked;
+    }
+
+    /**
+     * Drop delivered entries the system no longer shows
+     * @param force Ignore the minimum interval between system queries
+     * @return Ids that were removed
+     */
+    List<Integer> reconcile(boolean force) {
+        List<Integer> removed = new ArrayList<>();
+        synchronized (this) {
+            long now = SystemClock.elapsedRealtime();
+            if (!force && now - lastReconcileAt < MIN_RECONCILE_INTERVAL_MS) {
+                return removed;
+            }
+            lastReconcileAt = now;
+            reconciles++;
+        }
+        if (store.size(NotificationStore.STATE_DELIVERED) == 0) {
+            return removed;
+        }
+
+        Set<Integer> active = new HashSet<>();
+        try {
+            for (StatusBarNotification sbn : notificationManager.getActiveNotifications()) {
+                if (sbn.getTag() == null) {
+                    active.add(sbn.getId());
+                }
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Cannot read active notifications", e);
+            return removed;
+        }
+
+        long postedBefore = System.currentTimeMillis() - POST_GRACE_MS;
+        store.beginBatch();
+        try {
+            for (NotificationStore.Entry entry : store.list(NotificationStore.STATE_DELIVERED)) {
+                if (!active.contains(entry.id) && entry.deliveredAt() < postedBefore) {
+                    store.removeDelivered(entry.id);
+                    removed.add(entry.id);
+                }
+            }
+        } finally {
+            store.endBatch();
+        }
+
+        if (!removed.isEmpty()) {
+            NotificationPoster poster = NotificationPoster.getInstance(context);
+            NotificationGrouper grouper = NotificationGrouper.getInstance(context);
+            grouper.beginBatch();
+            try {
+                for (int id : removed) {
+                    poster.forget(id);
+                }
+            } finally {
+                grouper.endBatch();
+            }
+            synchronized (this) {
+                staleRemoved += removed.size();
+            }
+            Log.d(TAG, "🧹 Removed " + removed.size() + " delivered notifications no longer shown");
+        }
+        return removed;
+    }
+
+    synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("reconciles", reconciles);
+        stats.put("staleRemoved", staleRemoved);
+        stats.put("dismissed", dismissed);
+        return stats;
+    }
+}
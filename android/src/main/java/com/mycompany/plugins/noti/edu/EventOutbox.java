@@ -0,0 +1,225 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Durable outbox of notification events for JS.
+ *
+ * Receivers record events here whether or not the WebView is running. The
+ * plugin drains them in batches once a listener for the event is attached,
+ * and only removes an event after it was handed to a listener, so delivery
+ * is at-least-once. Every event carries an {@code eventId}; recording the
+ * same id twice is ignored, and ids that were already delivered are
+ * remembered for a while so late duplicates are dropped too.
+ */
+class EventOutbox {
+
+    private static final String TAG = "EventOutbox";
+
+    static final String TYPE_RECEIVED = "received";
+    static final String TYPE_ACTION = "actionPerformed";
+    static final String TYPE_DISMISSED = "dismissed";
+
+    static final String EVENT_RECEIVED = "localNotificationReceived";
+    static final String EVENT_ACTION_PERFORMED = "localNotificationActionPerformed";
+
+    /** Action id reported for dismissed notifications */
+    static final String ACTION_DISMISS = "dismiss";
+
+    /** Oldest events are dropped beyond this */
+    private static final int MAX_EVENTS = 200;
+    private static final int MAX_DELIVERED_IDS = 200;
+    private static final int BATCH_SIZE = 25;
+
+    private static final String PREFS_NAME = "modern_notifications";
+    private static final String PREF_EVENTS = "eventOutbox";
+    private static final String PREF_DELIVERED = "eventOutbox.delivered";
+    private static final String PREF_DROPPED = "eventOutbox.dropped";
+
+    /** Receives one event; returns false when it could not be delivered */
+    interface Dispatcher {
+        boolean dispatch(String eventName, JSObject data);
+    }
+
+    private static EventOutbox sharedInstance;
+
+    private final SharedPreferences prefs;
+    private final Set<String> deliveredIds;
+
+    static synchronized EventOutbox getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new EventOutbox(context.getApplicationContext());
+        }
+        return sharedInstance;
+    }
+
+    private EventOutbox(Context context) {
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.deliveredIds = new LinkedHashSet<>();
+        JSONArray delivered = readArray(PREF_DELIVERED);
+        for (int i = 0; i < delivered.length(); i++) {
+            deliveredIds.add(delivered.optString(i));
+        }
+    }
+
+    static String newEventId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Persist an event. Returns false when an event with the same id is already
+     * queued or was delivered.
+     * @param eventId Stable id for the event, or null to generate one
+     * @param actionId Action for {@link #TYPE_ACTION}, ignored otherwise
+     */
+    synchronized boolean record(String eventId, String type, String actionId, JSObject notification) {
+        String id = eventId != null ? eventId : newEventId();
+        if (deliveredIds.contains(id)) {
+            return false;
+        }
+        JSONArray events = readArray(PREF_EVENTS);
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject queued = events.optJSONObject(i);
+            if (queued != null && id.equals(queued.optString("eventId"))) {
+                return false;
+            }
+        }
+
+        JSObject event = new JSObject();
+        event.put("eventId", id);
+        event.put("type", type);
+        if (TYPE_ACTION.equals(type)) {
+            event.put("actionId", actionId);
+        } else if (TYPE_DISMISSED.equals(type)) {
+            event.put("actionId", ACTION_DISMISS);
+        }
+        event.put("notification", notification);
+        event.put("timestamp", System.currentTimeMillis());
+        events.put(event);
+
+        SharedPreferences.Editor editor = prefs.edit();
+        if (events.length() > MAX_EVENTS) {
+            int dropped = events.length() - MAX_EVENTS;
+            JSONArray bounded = new JSONArray();
+            for (int i = dropped; i < events.length(); i++) {
+                bounded.put(events.opt(i));
+            }
+            events = bounded;
+            editor.putLong(PREF_DROPPED, prefs.getLong(PREF_DROPPED, 0) + dropped);
+            Log.w(TAG, "Outbox full, dropped " + dropped + " oldest event(s)");
+        }
+        // commit, not apply: receivers may be torn down right after recording
+        editor.putString(PREF_EVENTS, events.toString()).commit();
+        return true;
+    }
+
+    /**
+     * Hand queued events to the dispatcher in batches, oldest first. Events whose
+     * listener is missing stay queued in order for a later drain.
+     * @param listening Event names that currently have a listener
+     * @return Number of events delivered
+     */
+    synchronized int drain(Set<String> listening, Dispatcher dispatcher) {
+        int delivered = 0;
+        while (true) {
+            JSONArray events = readArray(PREF_EVENTS);
+            List<String> sent = new ArrayList<>();
+            int scanned = 0;
+            for (int i = 0; i < events.length() && sent.size() < BATCH_SIZE; i++, scanned++) {
+                JSONObject event = events.optJSONObject(i);
+                if (event == null) {
+                    continue;
+                }
+                String eventName = eventName(event.optString("type"));
+                if (!listening.contains(eventName)) {
+                    continue;
+                }
+                String id = event.optString("eventId");
+                if (deliveredIds.contains(id)) {
+                    // Already handed over before the outbox could be rewritten
+                    sent.add(id);
+                    continue;
+                }
+                JSObject data;
+                try {
+                    data = JSObject.fromJSONObject(event);
+                } catch (JSONException e) {
+                    Log.w(TAG, "Dropping unreadable event " + id, e);
+                    sent.add(id);
+                    continue;
+                }
+                if (!dispatcher.dispatch(eventName, data)) {
+                    break;
+                }
+                sent.add(id);
+                delivered++;
+            }
+            if (sent.isEmpty()) {
+                return delivered;
+            }
+            acknowledge(events, sent);
+            if (scanned >= events.length()) {
+                return delivered;
+            }
+        }
+    }
+
+    private void acknowledge(JSONArray events, List<String> sent) {
+        Set<String> ids = new LinkedHashSet<>(sent);
+        JSONArray remaining = new JSONArray();
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.optJSONObject(i);
+            if (event == null || ids.contains(event.optString("eventId"))) {
+                continue;
+            }
+            remaining.put(event);
+        }
+        deliveredIds.addAll(ids);
+        while (deliveredIds.size() > MAX_DELIVERED_IDS) {
+            deliveredIds.remove(deliveredIds.iterator().next());
+        }
+        prefs
+            .edit()
+            .putString(PREF_EVENTS, remaining.toString())
+            .putString(PREF_DELIVERED, new JSONArray(deliveredIds).toString())
+            .commit();
+    }
+
+    synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("pending", readArray(PREF_EVENTS).length());
+        stats.put("dropped", prefs.getLong(PREF_DROPPED, 0));
+        return stats;
+    }
+
+    static String eventName(String type) {
+        return TYPE_RECEIVED.equals(type) ? EVENT_RECEIVED : EVENT_ACTION_PERFORMED;
+    }
+
+    private JSONArray readArray(String key) {
+        String raw = prefs.getString(key, null);
+        if (raw == null) {
+            return new JSONArray();
+        }
+        try {
+            return new JSONArray(raw);
+        } catch (JSONException e) {
+            Log.w(TAG, "Discarding corrupt " + key, e);
+            return new JSONArray();
+        }
+    }
+}
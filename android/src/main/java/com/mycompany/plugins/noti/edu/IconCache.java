@@ -0,0 +1,189 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.graphics.drawable.Icon;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.core.content.ContextCompat;
+
+import com.getcapacitor.JSObject;
+
+/**
+ * Size-bounded LRU caches for the icons drawn into notifications.
+ *
+ * Large icons are drawn from their drawable once per (resource, target size),
+ * downsampled to the system's large-icon dimensions, and the same Bitmap is
+ * reused by every later build, so progress updates no longer inflate and draw
+ * it again. ProgressStyle and action icons stay resource-backed, which keeps
+ * them small when the notification is sent to the system, and only their
+ * {@link Icon} objects are cached. Memory is released on
+ * {@link ComponentCallbacks2#onTrimMemory}.
+ */
+class IconCache implements ComponentCallbacks2 {
+
+    private static final String TAG = "IconCache";
+
+    private static final int MAX_BITMAP_BYTES = 4 * 1024 * 1024;
+    private static final int MAX_ICONS = 64;
+
+    private static IconCache sharedInstance;
+
+    private final Context context;
+    private final int largeIconWidth;
+    private final int largeIconHeight;
+    private final LruCache<String, Bitmap> bitmaps;
+    private final LruCache<Integer, Icon> icons = new LruCache<>(MAX_ICONS);
+
+    static synchronized IconCache getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new IconCache(context.getApplicationContext());
+            sharedInstance.context.registerComponentCallbacks(sharedInstance);
+        }
+        return sharedInstance;
+    }
+
+    private IconCache(Context context) {
+        this.context = context;
+        this.largeIconWidth = context.getResources().getDimensionPixelSize(android.R.dimen.notification_large_icon_width);
+        this.largeIconHeight = context.getResources().getDimensionPixelSize(android.R.dimen.notification_large_icon_height);
+        int maxBytes = (int) Math.min(MAX_BITMAP_BYTES, Runtime.getRuntime().maxMemory() / 32);
+        this.bitmaps = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * Large icon for a drawable resource, at most the notification large-icon size
+     * @return Shared bitmap, must not be recycled or modified; null if it cannot be drawn
+     */
+    Bitmap largeIcon(int resId) {
+        return bitmap(resId, largeIconWidth, largeIconHeight);
+    }
+
+    /**
+     * Drawable resource drawn into a bitmap that fits in {@code maxWidth x maxHeight},
+     * keeping its aspect ratio and never scaled up
+     */
+    Bitmap bitmap(int resId, int maxWidth, int maxHeight) {
+        if (resId == 0) {
+            return null;
+        }
+        String key = resId + "@" + maxWidth + "x" + maxHeight;
+        Bitmap cached = bitmaps.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Bitmap bitmap = draw(resId, maxWidth, maxHeight);
+        if (bitmap != null) {
+            bitmaps.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Large icon decoded from a URI by {@link RemoteIconLoader}, if it is in memory
+     */
+    Bitmap remoteLargeIcon(String uri) {
+        return bitmaps.get(uri + "@" + largeIconWidth + "x" + largeIconHeight);
+    }
+
+    void putRemoteLargeIcon(String uri, Bitmap bitmap) {
+        bitmaps.put(uri + "@" + largeIconWidth + "x" + largeIconHeight, bitmap);
+    }
+
+    int getLargeIconWidth() {
+        return largeIconWidth;
+    }
+
+    int getLargeIconHeight() {
+        return largeIconHeight;
+    }
+
+    /**
+     * Resource-backed icon, shared between builds
+     */
+    Icon resourceIcon(int resId) {
+        Icon icon = icons.get(resId);
+        if (icon == null) {
+            icon = Icon.createWithResource(context, resId);
+            icons.put(resId, icon);
+        }
+        return icon;
+    }
+
+    void clear() {
+        bitmaps.evictAll();
+        icons.evictAll();
+    }
+
+    JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("bitmapHits", bitmaps.hitCount());
+        stats.put("bitmapMisses", bitmaps.missCount());
+        stats.put("bitmapEvictions", bitmaps.evictionCount());
+        stats.put("bitmaps", bitmaps.snapshot().size());
+        stats.put("bitmapBytes", bitmaps.size());
+        stats.put("maxBitmapBytes", bitmaps.maxSize());
+        stats.put("iconHits", icons.hitCount());
+        stats.put("iconMisses", icons.missCount());
+        stats.put("icons", icons.size());
+        return stats;
+    }
+
+    private Bitmap draw(int resId, int maxWidth, int maxHeight) {
+        try {
+            Drawable drawable = ContextCompat.getDrawable(context, resId);
+            if (drawable == null) {
+                return null;
+            }
+            int width = drawable.getIntrinsicWidth();
+            int height = drawable.getIntrinsicHeight();
+            if (width <= 0 || height <= 0) {
+                // Colors and shapes have no size of their own
+                width = maxWidth;
+                height = maxHeight;
+            }
+            float scale = Math.min(1f, Math.min((float) maxWidth / width, (float) maxHeight / height));
+            width = Math.max(1, Math.round(width * scale));
+            height = Math.max(1, Math.round(height * scale));
+
+            Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            Canvas canvas = new Canvas(bitmap);
+            drawable.setBounds(0, 0, width, height);
+            drawable.draw(canvas);
+            return bitmap;
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Cannot draw icon " + resId, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE || level == TRIM_MEMORY_RUNNING_CRITICAL) {
+            clear();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            bitmaps.trimToSize(bitmaps.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // Density or night mode may change how drawables render
+        bitmaps.evictAll();
+    }
+}
@@ -0,0 +1,187 @@
+package com.mycompany.plugins.noti.edu;
+
+/**
+ * Single-pass parser for the dates {@code schedule()} receives.
+ *
+ * Accepts ISO-8601 / RFC 3339 date-times with second precision, an optional
+ * fraction (read to the millisecond) and a {@code Z} or numeric offset, as
+ * well as epoch millis given as a number string. Text is read once, without
+ * allocating and without exceptions, rejections included; {@code java.time}
+ * is not used because it needs API 26.
+ */
+final class IsoDateParser {
+
+    /** Returned for rejected text; the epoch value itself is not accepted */
+    static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MS_PER_DAY = 86_400_000L;
+
+    private IsoDateParser() {
+    }
+
+    /**
+     * @param text ISO-8601 date-time such as 2026-03-07T10:15:30.250Z or
+     *             2026-03-07T11:15:30+01:00, or epoch millis such as 1772878530250
+     * @return Epoch millis, or {@link #INVALID} if the text is neither
+     */
+    static long parse(String text) {
+        if (text == null) {
+            return INVALID;
+        }
+        int length = text.length();
+        if (length >= 20 && text.charAt(4) == '-') {
+            return parseDateTime(text, length);
+        }
+        return parseEpoch(text, length);
+    }
+
+    private static long parseDateTime(String text, int length) {
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        char separator = text.charAt(10);
+        if ((year | month | day | hour | minute | second) < 0
+            || text.charAt(7) != '-'
+            || (separator != 'T' && separator != 't' && separator != ' ')
+            || text.charAt(13) != ':'
+            || text.charAt(16) != ':') {
+            return INVALID;
+        }
+        if (month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour > 23 || minute > 59 || second > 59) {
+            return INVALID;
+        }
+
+        int pos = 19;
+        int millis = 0;
+        if (text.charAt(pos) == '.' || text.charAt(pos) == ',') {
+            int start = ++pos;
+            while (pos < length && isDigit(text.charAt(pos))) {
+                if (pos - start < 3) {
+                    millis = millis * 10 + (text.charAt(pos) - '0');
+                }
+                pos++;
+            }
+            int fractionDigits = pos - start;
+            if (fractionDigits == 0 || fractionDigits > 9) {
+                return INVALID;
+            }
+            for (int i = fractionDigits; i < 3; i++) {
+                millis *= 10;
+            }
+        }
+
+        if (pos >= length) {
+            return INVALID; // Local time without an offset is ambiguous
+        }
+        int offsetMinutes;
+        char sign = text.charAt(pos);
+        if ((sign == 'Z' || sign == 'z') && pos + 1 == length) {
+            offsetMinutes = 0;
+        } else if (sign == '+' || sign == '-') {
+            int remaining = length - pos - 1;
+            int offsetHours = digits(text, pos + 1, 2);
+            int offsetMins;
+            if (remaining == 2) {
+                offsetMins = 0;
+            } else if (remaining == 4) {
+                offsetMins = digits(text, pos + 3, 2);
+            } else if (remaining == 5 && text.charAt(pos + 3) == ':') {
+                offsetMins = digits(text, pos + 4, 2);
+            } else {
+                return INVALID;
+            }
+            if (offsetHours < 0 || offsetMins < 0 || offsetHours > 18 || offsetMins > 59) {
+                return INVALID;
+            }
+            offsetMinutes = offsetHours * 60 + offsetMins;
+            if (sign == '-') {
+                offsetMinutes = -offsetMinutes;
+            }
+        } else {
+            return INVALID;
+        }
+
+        long epochDay = epochDay(year, month, day);
+        return epochDay * MS_PER_DAY
+            + ((hour * 60L + minute - offsetMinutes) * 60 + second) * 1000
+            + millis;
+    }
+
+    /**
+     * Decimal long with an optional sign, as {@link Long#parseLong(String)} accepts it
+     */
+    private static long parseEpoch(String text, int length) {
+        if (length == 0) {
+            return INVALID;
+        }
+        int pos = 0;
+        boolean negative = false;
+        char first = text.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            pos = 1;
+            if (length == 1) {
+                return INVALID;
+            }
+        }
+        // Accumulate negatively so Long.MIN_VALUE + 1 .. Long.MAX_VALUE all fit
+        long result = 0;
+        long limit = negative ? Long.MIN_VALUE + 1 : -Long.MAX_VALUE;
+        for (; pos < length; pos++) {
+            char c = text.charAt(pos);
+            if (!isDigit(c)) {
+                return INVALID;
+            }
+            int digit = c - '0';
+            if (result < (limit + digit) / 10) {
+                return INVALID;
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date (Hinnant's days_from_civil)
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * @return Value of count ASCII digits at start, or -1 if any is not a digit
+     */
+    private static int digits(String text, int start, int count) {
+        if (start + count > text.length()) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
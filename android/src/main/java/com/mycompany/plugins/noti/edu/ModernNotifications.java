@@ -41,18 +41,7 @@ public class ModernNotifications {
      * @return Resource ID for default icon
      */
     public int getDefaultIcon(Context context) {
-        int resId = context.getResources().getIdentifier(
-            "ic_notification", "drawable", context.getPackageName()
-        );
-        if (resId == 0) {
-            resId = context.getResources().getIdentifier(
-                "ic_launcher", "mipmap", context.getPackageName()
-            );
-        }
-        if (resId == 0) {
-            resId = android.R.drawable.ic_dialog_info;
-        }
-        return resId;
+        return ResourceResolver.getInstance(context).defaultIcon();
     }
 
     /**
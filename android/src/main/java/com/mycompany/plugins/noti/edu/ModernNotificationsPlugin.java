@@ -1,24 +1,17 @@
 package com.mycompany.plugins.noti.edu;
 
 import android.Manifest;
-import android.app.AlarmManager;
-import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Color;
-import android.graphics.drawable.Icon;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
-import androidx.annotation.RequiresApi;
 import androidx.core.app.ActivityCompat;
-import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
-import androidx.core.content.ContextCompat;
 
 import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
@@ -29,17 +22,20 @@ import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
 import com.getcapacitor.annotation.PermissionCallback;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.json.JSONObject;
 
-import java.text.SimpleDateFormat;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -59,9 +55,23 @@ public class ModernNotificationsPlugin extends Plugin {
     private static final String TAG = "ModernNotifications";
     private ModernNotifications implementation = new ModernNotifications();
     private NotificationManagerCompat notificationManager;
-    private Map<Integer, JSObject> scheduledNotifications = new HashMap<>();
-    private Map<Integer, JSObject> deliveredNotifications = new HashMap<>();
-    private static final String DEFAULT_CHANNEL_ID = "default";
+    private NotificationStore store;
+    private AlarmScheduler scheduler;
+    private SchedulePipeline pipeline;
+    private NotificationRenderer renderer;
+    private NotificationPoster poster;
+    private ProgressUpdateEngine progressUpdates;
+    private ProgressTicker progressTicker;
+    private ProgressDownload downloads;
+    private final Map<Integer, NotificationSpec> specs = new ConcurrentHashMap<>();
+    // Last time a progress tick was written to the store, per notification
+    private final Map<Integer, Long> progressPersistedAt = new ConcurrentHashMap<>();
+    static final String DEFAULT_CHANNEL_ID = "default";
+    private static final String EXTRA_EVENT_ID = "notificationEventId";
+    private static final int DEFAULT_QUERY_LIMIT = 50;
+    private static final int MAX_QUERY_LIMIT = 500;
+    /** Progress ticks are kept in memory in between, the store log would otherwise grow at the tick rate */
+    private static final long PROGRESS_PERSIST_INTERVAL_MS = 10_000;
     
     // Static reference for BroadcastReceiver
     private static ModernNotificationsPlugin instance;
@@ -71,7 +81,32 @@ public class ModernNotificationsPlugin extends Plugin {
         super.load();
         instance = this; // Set static reference
         notificationManager = NotificationManagerCompat.from(getContext());
+        store = NotificationStore.getInstance(getContext());
+        scheduler = AlarmScheduler.getInstance(getContext());
+        scheduler.setWindowSize(getConfig().getInt("alarmWindowSize", 1));
+        NotificationGrouper.getInstance(getContext()).configure(
+            getConfig().getInt("groupSummaryThreshold", NotificationGrouper.DEFAULT_THRESHOLD),
+            getConfig().getBoolean("groupByChannel", false),
+            getConfig().getString("groupSummaryTitle")
+        );
+        ResourceResolver.getInstance(getContext()).prewarm();
+        renderer = new NotificationRenderer(getContext());
+        pipeline = new SchedulePipeline(this, getContext(), store, scheduler, renderer);
+        poster = NotificationPoster.getInstance(getContext());
+        progressUpdates = new ProgressUpdateEngine(this, poster, renderer);
+        progressUpdates.setMaxUpdatesPerSecond(
+            getConfig().getInt("maxProgressUpdatesPerSecond", ProgressUpdateEngine.DEFAULT_MAX_UPDATES_PER_SECOND)
+        );
+        progressTicker = new ProgressTicker(progressUpdates);
+        downloads = new ProgressDownload(getBridge(), progressUpdates);
         createDefaultChannel();
+
+        // A cold start from an action intent does not go through handleOnNewIntent
+        if (getActivity() != null) {
+            handleActionIntent(getActivity().getIntent());
+        }
+        // Events recorded while the plugin was not loaded, for listeners restored with the bridge
+        flushEvents();
     }
 
     private void createDefaultChannel() {
@@ -138,819 +173,201 @@ public class ModernNotificationsPlugin extends Plugin {
             return;
         }
 
-        List<JSObject> scheduled = new ArrayList<>();
-        
-        try {
-            for (int i = 0; i < notifications.length(); i++) {
-                try {
-                    org.json.JSONObject jsonObj = notifications.optJSONObject(i);
-                    if (jsonObj != null) {
-                        JSObject notification = JSObject.fromJSONObject(jsonObj);
-                        scheduleNotification(notification);
-                        scheduled.add(notification);
-                    }
-                } catch (Exception e) {
-                    // Skip invalid notification objects
-                    continue;
-                }
-            }
-
-            JSObject result = new JSObject();
-            JSArray resultArray = new JSArray();
-            for (JSObject notif : scheduled) {
-                resultArray.put(notif);
-            }
-            result.put("notifications", resultArray);
-            call.resolve(result);
-        } catch (Exception e) {
-            call.reject("Error scheduling notifications: " + e.getMessage());
-        }
+        // Parse, build and submit off the plugin thread; resolves with per-item status and stage timings
+        pipeline.submit(notifications, call::resolve);
     }
 
-    private void scheduleNotification(JSObject notification) {
-        int id = notification.has("id") ? notification.getInteger("id") : 0;
-        String title = notification.has("title") ? notification.getString("title") : "";
-        String body = notification.has("body") ? notification.getString("body") : "";
-        String channelId = notification.has("channelId") ? notification.getString("channelId") : DEFAULT_CHANNEL_ID;
-        
-        // Store notification data for later use in events
-        scheduledNotifications.put(id, notification);
-
-        // Check if notification should be scheduled for later
-        if (notification.has("schedule")) {
-            JSObject schedule = notification.getJSObject("schedule");
-            if (schedule != null && schedule.has("at")) {
-                try {
-                    String atString = schedule.getString("at");
-                    if (atString != null) {
-                        // Parse ISO date string (Capacitor converts JS Date objects to ISO strings)
-                        long scheduledTime = parseCapacitorDateString(atString);
-                        long currentTime = System.currentTimeMillis();
-                        
-                        if (scheduledTime > currentTime) {
-                            // Schedule for future
-                            scheduleNotificationAlarm(notification, scheduledTime);
-                            Log.d(TAG, "Notification " + id + " scheduled for " + scheduledTime + " (in " + (scheduledTime - currentTime) + "ms)");
-                            return;
-                        } else {
-                            Log.d(TAG, "Scheduled time " + scheduledTime + " is in the past, showing immediately");
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Error parsing schedule time, showing immediately: " + e.getMessage(), e);
-                }
+    /**
+     * Typed view of a shown or stored notification, parsed at most once per id
+     * @return Spec, or null if the notification is unknown
+     */
+    NotificationSpec getSpec(int id) {
+        NotificationSpec spec = specs.get(id);
+        if (spec == null) {
+            JSObject notification = store.get(id);
+            if (notification == null) {
+                return null;
+            }
+            try {
+                spec = NotificationSpec.parse(notification);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Stored notification " + id + " is invalid", e);
+                return null;
             }
+            specs.put(id, spec);
         }
-
-        // Show immediately if no valid future schedule
-        showNotificationNow(notification, id, channelId);
+        return spec;
     }
 
-    private void showNotificationNow(JSObject notification, int id, String channelId) {
+    void rememberSpec(NotificationSpec spec) {
+        specs.put(spec.id, spec);
+    }
 
-        // Create notification with Android 16 Progress Style if available
-        NotificationCompat.Builder builder = createNotificationBuilder(notification, channelId, id);
-        
-        // Try to use Android 16+ ProgressStyle API
-        boolean usedProgressStyle = false;
-        if (Build.VERSION.SDK_INT >= 36 && notification.has("progressStyle")) { // Android API level 36
-            JSObject progressStyle = notification.getJSObject("progressStyle");
-            if (progressStyle != null) {
-                try {
-                    addProgressStyle(builder, progressStyle, notification);
-                    // Move to delivered and return early since ProgressStyle handles its own notification
-                    deliveredNotifications.put(id, notification);
-                    scheduledNotifications.remove(id);
-                    return;
-                } catch (Exception e) {
-                    Log.w(TAG, "Failed to use ProgressStyle API, falling back to standard progress", e);
-                    // Continue with standard notification
-                }
-            }
+    /**
+     * Stop progress updates for a notification about to be removed, including one
+     * already in flight and a download that would post its final state, so it is
+     * not posted again
+     */
+    static void stopProgress(int id) {
+        ModernNotificationsPlugin plugin = instance;
+        if (plugin != null) {
+            plugin.stopProgressUpdates(id);
         }
-
-        // Show notification immediately
-        notificationManager.notify(id, builder.build());
-        
-        // Move to delivered
-        deliveredNotifications.put(id, notification);
-        scheduledNotifications.remove(id);
     }
 
-    private void scheduleNotificationAlarm(JSObject notification, long scheduledTime) {
-        int id = notification.has("id") ? notification.getInteger("id") : 0;
-        
-        Log.d(TAG, "Setting up AlarmManager for notification " + id + " at " + scheduledTime);
-        
-        AlarmManager alarmManager = (AlarmManager) getContext().getSystemService(Context.ALARM_SERVICE);
-        
-        Intent intent = new Intent(getContext(), ScheduledNotificationReceiver.class);
-        intent.setAction(ScheduledNotificationReceiver.ACTION_SCHEDULED_NOTIFICATION);
-        intent.putExtra("notificationData", notification.toString());
-        
-        Log.d(TAG, "Intent created with action: " + ScheduledNotificationReceiver.ACTION_SCHEDULED_NOTIFICATION);
-        
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(
-            getContext(),
-            id, // Use notification ID as request code
-            intent,
-            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-        
-        if (alarmManager != null) {
-            // Use setExactAndAllowWhileIdle for better reliability
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
-                alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, scheduledTime, pendingIntent);
-                Log.d(TAG, "AlarmManager.setExactAndAllowWhileIdle() called for notification " + id);
-            } else {
-                alarmManager.setExact(AlarmManager.RTC_WAKEUP, scheduledTime, pendingIntent);
-                Log.d(TAG, "AlarmManager.setExact() called for notification " + id);
-            }
-            Log.d(TAG, "Notification " + id + " successfully scheduled for " + new java.util.Date(scheduledTime));
-        } else {
-            Log.e(TAG, "AlarmManager is null, cannot schedule notification");
-        }
+    private void stopProgressUpdates(int id) {
+        progressTicker.stop(id);
+        downloads.cancel(id);
+        progressUpdates.discard(id);
+        progressPersistedAt.remove(id);
     }
 
-    private long parseCapacitorDateString(String dateString) throws Exception {
-        // Capacitor converts JavaScript Date objects to ISO format: "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"
-        // This follows the same pattern as the official Local Notifications plugin
-        
-        Log.d(TAG, "Parsing date string: " + dateString);
-        
-        try {
-            // First try with milliseconds
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
-            sdf.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-            return sdf.parse(dateString).getTime();
-        } catch (Exception e) {
-            // Try without milliseconds
-            try {
-                SimpleDateFormat sdf2 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
-                sdf2.setTimeZone(java.util.TimeZone.getTimeZone("UTC"));
-                return sdf2.parse(dateString).getTime();
-            } catch (Exception e2) {
-                // Last attempt: try as timestamp number
-                try {
-                    return Long.parseLong(dateString);
-                } catch (NumberFormatException e3) {
-                    throw new Exception("Cannot parse date: " + dateString + ". Expected ISO format (yyyy-MM-ddTHH:mm:ss.SSSZ) or timestamp", e3);
-                }
-            }
-        }
+    private void stopAllProgressUpdates() {
+        progressTicker.stopAll();
+        downloads.cancelAll();
+        progressUpdates.discardAll();
+        progressPersistedAt.clear();
     }
 
-    // Static method to show scheduled notification from receiver
-    public static void showScheduledNotification(Context context, JSObject notification) {
-        Log.d(TAG, "showScheduledNotification called, instance: " + (instance != null ? "available" : "null"));
-        
-        if (instance != null) {
-            int id = notification.has("id") ? notification.getInteger("id") : 0;
-            String channelId = notification.has("channelId") ? notification.getString("channelId") : DEFAULT_CHANNEL_ID;
-            
-            Log.d(TAG, "Showing scheduled notification via instance: " + id);
-            instance.showNotificationNow(notification, id, channelId);
-        } else {
-            // Fallback: show notification directly without plugin instance
-            Log.d(TAG, "Plugin instance not available, showing notification directly");
-            showNotificationDirectly(context, notification);
+    /**
+     * Hand a progress value to the loaded plugin's update engine
+     * @return False if the plugin is not loaded
+     */
+    static boolean submitProgress(int id, int progress) {
+        ModernNotificationsPlugin plugin = instance;
+        if (plugin == null || plugin.progressUpdates == null) {
+            return false;
         }
+        plugin.progressUpdates.setProgress(id, progress);
+        return true;
     }
-    
-    // Fallback method to show notification without plugin instance
-    private static void showNotificationDirectly(Context context, JSObject notification) {
-        try {
-            int id = notification.has("id") ? notification.getInteger("id") : 0;
-            String title = notification.has("title") ? notification.getString("title") : "";
-            String body = notification.has("body") ? notification.getString("body") : "";
-            String channelId = notification.has("channelId") ? notification.getString("channelId") : DEFAULT_CHANNEL_ID;
-            
-            NotificationManagerCompat notificationManager = NotificationManagerCompat.from(context);
-            
-            NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
-                .setContentTitle(title)
-                .setContentText(body)
-                .setSmallIcon(android.R.drawable.ic_dialog_info) // Fallback icon
-                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
-                .setAutoCancel(true);
-            
-            notificationManager.notify(id, builder.build());
-            Log.d(TAG, "Scheduled notification shown directly: " + id);
-        } catch (Exception e) {
-            Log.e(TAG, "Error showing scheduled notification directly", e);
+
+    /**
+     * Drop the cached spec after a notification was changed outside the plugin
+     */
+    static void invalidateSpec(int id) {
+        ModernNotificationsPlugin plugin = instance;
+        if (plugin != null) {
+            plugin.specs.remove(id);
         }
     }
 
-    private NotificationCompat.Builder createNotificationBuilder(JSObject notification, String channelId, int notificationId) {
-        Log.d(TAG, "🔨 Creating notification builder for ID: " + notificationId);
-        
-        // ✅ ESPECIAL: Si tiene ProgressStyle con segments, usar builder nativo
-        if (notification.has("progressStyle") && Build.VERSION.SDK_INT >= 36) {
-            JSObject progressStyle = notification.getJSObject("progressStyle");
-            if (progressStyle != null && progressStyle.has("segments")) {
-                Log.d(TAG, "🎯 DETECTED PROGRESSSTYLE WITH SEGMENTS - Using native builder");
-                return createNativeProgressNotification(notification, channelId, notificationId);
-            }
+    /**
+     * Keep an updated progress state, keeping every other stored field as it was.
+     * Ticks are written to disk at most every {@link #PROGRESS_PERSIST_INTERVAL_MS}
+     * per notification, and always once the progress is complete.
+     */
+    void storeProgress(NotificationSpec spec) {
+        JSObject notification = store.copy(spec.id);
+        if (notification == null) {
+            notification = spec.toJSObject();
+        } else if (spec.progress != null) {
+            notification.put("progressStyle", spec.progress.toJSObject());
         }
-        
-        String title = notification.has("title") ? notification.getString("title") : "";
-        String body = notification.has("body") ? notification.getString("body") : "";
-        String subText = notification.getString("subText");
-        boolean autoCancel = notification.has("autoCancel") ? notification.getBool("autoCancel") : true;
-        boolean ongoing = notification.has("ongoing") ? notification.getBool("ongoing") : false;
-        String priorityStr = notification.has("priority") ? notification.getString("priority") : "normal";
-        int priority = getNotificationPriority(priorityStr);
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(getContext(), channelId)
-            .setContentTitle(title)
-            .setContentText(body)
-            .setSmallIcon(getSmallIconResource())
-            .setPriority(priority)
-            .setAutoCancel(autoCancel)
-            .setOngoing(ongoing);
-
-        if (subText != null) {
-            builder.setSubText(subText);
+        long now = SystemClock.elapsedRealtime();
+        Long persistedAt = progressPersistedAt.get(spec.id);
+        boolean complete = spec.progress != null && spec.progress.progress >= spec.progress.maxProgress;
+        boolean persist = complete || persistedAt == null || now - persistedAt >= PROGRESS_PERSIST_INTERVAL_MS;
+        if (persist) {
+            progressPersistedAt.put(spec.id, now);
         }
+        store.updateContent(spec.id, notification, persist);
+        rememberSpec(spec);
+    }
 
-        // Add large icon if provided
-        String largeIcon = notification.getString("largeIcon");
-        if (largeIcon != null) {
-            int iconRes = getContext().getResources().getIdentifier(
-                largeIcon, "drawable", getContext().getPackageName()
-            );
-            if (iconRes != 0) {
-                try {
-                    android.graphics.drawable.Drawable drawable = ContextCompat.getDrawable(getContext(), iconRes);
-                    if (drawable != null) {
-                        android.graphics.Bitmap bitmap = android.graphics.Bitmap.createBitmap(
-                            drawable.getIntrinsicWidth(),
-                            drawable.getIntrinsicHeight(),
-                            android.graphics.Bitmap.Config.ARGB_8888
-                        );
-                        android.graphics.Canvas canvas = new android.graphics.Canvas(bitmap);
-                        drawable.setBounds(0, 0, canvas.getWidth(), canvas.getHeight());
-                        drawable.draw(canvas);
-                        builder.setLargeIcon(bitmap);
-                    }
-                } catch (Exception e) {
-                    // Ignore icon errors
-                }
+    /**
+     * Persist every field of an updated spec over the stored notification, keeping unknown keys
+     */
+    void storeSpec(NotificationSpec spec) {
+        JSObject notification = store.copy(spec.id);
+        if (notification == null) {
+            notification = spec.toJSObject();
+        } else {
+            JSObject fields = spec.toJSObject();
+            for (Iterator<String> keys = fields.keys(); keys.hasNext();) {
+                String key = keys.next();
+                notification.put(key, fields.opt(key));
             }
-        }
-
-        // Add actions if provided
-        if (notification.has("actions")) {
-            try {
-                JSONArray actionsJSON = notification.getJSONArray("actions");
-                if (actionsJSON != null && actionsJSON.length() > 0) {
-                    JSArray actions = JSArray.from(actionsJSON);
-                    if (actions != null && actions.length() > 0) {
-                        addActionsToBuilder(builder, actions, notificationId);
-                    } else {
-                        Log.w(TAG, "JSArray.from() returned null or empty array");
-                    }
-                } else {
-                    Log.w(TAG, "Actions JSONArray is null or empty");
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error processing notification actions", e);
+            if (spec.progress == null) {
+                notification.remove("progressStyle");
             }
-        }
-
-        // Add standard progress bar if progressStyle is provided but not using ProgressStyle API
-        if (notification.has("progressStyle")) {
-            JSObject progressStyle = notification.getJSObject("progressStyle");
-            if (progressStyle != null) {
-                int progress = progressStyle.has("progress") ? progressStyle.getInteger("progress") : 0;
-                int maxProgress = progressStyle.has("maxProgress") ? progressStyle.getInteger("maxProgress") : 100;
-                boolean indeterminate = progressStyle.has("indeterminate") ? progressStyle.getBool("indeterminate") : false;
-                builder.setProgress(maxProgress, progress, indeterminate);
+            if (!spec.hasActions()) {
+                notification.remove("actions");
             }
         }
-
-        return builder;
+        store.updateContent(spec.id, notification, true);
+        progressPersistedAt.remove(spec.id);
+        rememberSpec(spec);
     }
 
-    // ✅ NUEVO MÉTODO: Crear notificación nativa con ProgressStyle
-    @RequiresApi(api = 36)
-    private NotificationCompat.Builder createNativeProgressNotification(JSObject notification, String channelId, int notificationId) {
-        Log.d(TAG, "🚀 Creating NATIVE ProgressStyle notification");
-        
-        String title = notification.has("title") ? notification.getString("title") : "";
-        String body = notification.has("body") ? notification.getString("body") : "";
-        String subText = notification.getString("subText");
-        boolean autoCancel = notification.has("autoCancel") ? notification.getBool("autoCancel") : true;
-        boolean ongoing = notification.has("ongoing") ? notification.getBool("ongoing") : true; // Force ongoing for progress
-        
-        JSObject progressStyle = notification.getJSObject("progressStyle");
-        
-        // ✅ CREAR ProgressStyle completamente nuevo
-        int progress = progressStyle.has("progress") ? progressStyle.getInteger("progress") : 0;
-        boolean styledByProgress = progressStyle.has("styledByProgress") ? progressStyle.getBool("styledByProgress") : true;
-        
-        Notification.ProgressStyle ps = new Notification.ProgressStyle()
-            .setStyledByProgress(styledByProgress)
-            .setProgress(progress);
-        
-        Log.d(TAG, "📊 ProgressStyle created with progress: " + progress);
-        
-        // ✅ AGREGAR SEGMENTOS
-        if (progressStyle.has("segments")) {
-            try {
-                JSONArray segmentsJSON = progressStyle.getJSONArray("segments");
-                Log.d(TAG, "🎨 ADDING SEGMENTS: " + segmentsJSON.toString());
-                
-                if (segmentsJSON != null && segmentsJSON.length() > 0) {
-                    for (int i = 0; i < segmentsJSON.length(); i++) {
-                        JSONObject segmentJSON = segmentsJSON.optJSONObject(i);
-                        if (segmentJSON != null) {
-                            JSObject segment = JSObject.fromJSONObject(segmentJSON);
-                            int length = segment.has("length") ? segment.getInteger("length") : 100;
-                            String colorStr = segment.has("color") ? segment.getString("color") : "#FFFFFF";
-                            
-                            Log.d(TAG, "🔵 Segment " + i + ": length=" + length + ", color=" + colorStr);
-                            
-                            Notification.ProgressStyle.Segment seg = new Notification.ProgressStyle.Segment(length);
-                            
-                            if (segment.has("color") && colorStr != null) {
-                                try {
-                                    int color = Color.parseColor(colorStr);
-                                    seg.setColor(color);
-                                    Log.d(TAG, "✅ Segment color applied: " + colorStr);
-                                } catch (IllegalArgumentException e) {
-                                    Log.w(TAG, "❌ Invalid color: " + colorStr);
-                                }
-                            }
-                            
-                            ps.addProgressSegment(seg);
-                            Log.d(TAG, "✅ Segment " + i + " added successfully");
-                        }
-                    }
-                    Log.d(TAG, "🎉 ALL SEGMENTS ADDED TO PROGRESSSTYLE");
-                } else {
-                    Log.w(TAG, "⚠️ No segments in JSON");
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "💥 Error processing segments", e);
-            }
-        }
-        
-        // ✅ CREAR NOTIFICACIÓN NATIVA CON ProgressStyle
-        Notification.Builder nativeBuilder = new Notification.Builder(getContext(), channelId)
-            .setContentTitle(title)
-            .setContentText(body)
-            .setSmallIcon(getSmallIconResource())
-            .setStyle(ps)
-            .setAutoCancel(autoCancel)
-            .setOngoing(ongoing);
-        
-        if (subText != null) {
-            nativeBuilder.setSubText(subText);
-        }
-        
-        Log.d(TAG, "🎯 Native notification builder created with ProgressStyle");
-        
-        // ✅ CONVERTIR A NotificationCompat.Builder para compatibilidad
-        // Crear la notificación nativa y luego envolver
-        Notification builtNotification = nativeBuilder.build();
-        
-        // Crear un NotificationCompat.Builder que contenga la notificación nativa
-        NotificationCompat.Builder compatBuilder = new NotificationCompat.Builder(getContext(), channelId)
-            .setContentTitle(title)
-            .setContentText(body)
-            .setSmallIcon(getSmallIconResource())
-            .setAutoCancel(autoCancel)
-            .setOngoing(ongoing);
-        
-        if (subText != null) {
-            compatBuilder.setSubText(subText);
+    static long parseCapacitorDateString(String dateString) throws Exception {
+        // Capacitor converts JavaScript Date objects to ISO format: "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'"
+        // Offsets and epoch millis are accepted too, see IsoDateParser
+        long time = IsoDateParser.parse(dateString);
+        if (time == IsoDateParser.INVALID) {
+            throw new Exception("Cannot parse date: " + dateString + ". Expected ISO format (yyyy-MM-ddTHH:mm:ss.SSSZ) or timestamp");
         }
-        
-        // ✅ TRICK: Usar la notificación nativa construida directamente
-        // Esto no es ideal pero es necesario para ProgressStyle
-        compatBuilder.getExtras().putAll(builtNotification.extras);
-        
-        Log.d(TAG, "🔄 Converted to NotificationCompat.Builder");
-        
-        return compatBuilder;
+        return time;
     }
 
-    private void addProgressStyle(NotificationCompat.Builder builder, JSObject progressStyle, JSObject notification) {
-        if (Build.VERSION.SDK_INT >= 36) { // Android API level 36
-            try {
-                // Use the official Android 16 Notification.ProgressStyle API
-                int progress = progressStyle.has("progress") ? progressStyle.getInteger("progress") : 0;
-                boolean styledByProgress = progressStyle.has("styledByProgress") ? progressStyle.getBool("styledByProgress") : true;
-                
-                // Create ProgressStyle instance
-                Notification.ProgressStyle ps = new Notification.ProgressStyle()
-                    .setStyledByProgress(styledByProgress)
-                    .setProgress(progress);
-                
-                // Add tracker icon if provided
-                if (progressStyle.has("trackerIcon")) {
-                    String iconName = progressStyle.getString("trackerIcon");
-                    Log.d(TAG, "🎯 Attempting to set trackerIcon: " + iconName);
-                    
-                    if (iconName != null) {
-                        Icon trackerIcon = null;
-                        
-                        // ✅ Estrategia 1: Buscar en recursos de la app
-                        int iconRes = getContext().getResources().getIdentifier(
-                            iconName, "drawable", getContext().getPackageName()
-                        );
-                        
-                        if (iconRes != 0) {
-                            trackerIcon = Icon.createWithResource(getContext(), iconRes);
-                            Log.d(TAG, "✅ TrackerIcon found in app resources: " + iconName + " -> " + iconRes);
-                        } else {
-                            Log.d(TAG, "⚠️ TrackerIcon not found in app resources: " + iconName);
-                            
-                            // ✅ Estrategia 2: Buscar en recursos del sistema Android
-                            try {
-                                int systemIconRes = getContext().getResources().getIdentifier(
-                                    iconName, "drawable", "android"
-                                );
-                                if (systemIconRes != 0) {
-                                    trackerIcon = Icon.createWithResource(getContext(), systemIconRes);
-                                    Log.d(TAG, "✅ TrackerIcon found in Android system resources: " + iconName + " -> " + systemIconRes);
-                                } else {
-                                    Log.w(TAG, "⚠️ TrackerIcon not found in system resources: " + iconName);
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error accessing system resources for trackerIcon", e);
-                            }
-                            
-                            // ✅ Estrategia 3: Fallback a ícono por defecto si no se encuentra
-                            if (trackerIcon == null) {
-                                Log.d(TAG, "🔄 Using default fallback icon for tracker");
-                                trackerIcon = Icon.createWithResource(getContext(), android.R.drawable.ic_dialog_info);
-                            }
-                        }
-                        
-                        // Aplicar el ícono al ProgressStyle
-                        if (trackerIcon != null) {
-                            ps.setProgressTrackerIcon(trackerIcon);
-                            Log.d(TAG, "🎯 TrackerIcon applied successfully to ProgressStyle");
-                        } else {
-                            Log.e(TAG, "❌ Failed to create trackerIcon - no icon applied");
-                        }
-                    } else {
-                        Log.w(TAG, "⚠️ TrackerIcon name is null");
-                    }
-                }
-                
-                // Add start icon if provided
-                if (progressStyle.has("startIcon")) {
-                    String iconName = progressStyle.getString("startIcon");
-                    Log.d(TAG, "🎯 Attempting to set startIcon: " + iconName);
-                    
-                    if (iconName != null) {
-                        Icon startIcon = null;
-                        
-                        // ✅ Estrategia 1: Buscar en recursos de la app
-                        int iconRes = getContext().getResources().getIdentifier(
-                            iconName, "drawable", getContext().getPackageName()
-                        );
-                        
-                        if (iconRes != 0) {
-                            startIcon = Icon.createWithResource(getContext(), iconRes);
-                            Log.d(TAG, "✅ StartIcon found in app resources: " + iconName + " -> " + iconRes);
-                        } else {
-                            // ✅ Estrategia 2: Buscar en recursos del sistema Android
-                            try {
-                                int systemIconRes = getContext().getResources().getIdentifier(
-                                    iconName, "drawable", "android"
-                                );
-                                if (systemIconRes != 0) {
-                                    startIcon = Icon.createWithResource(getContext(), systemIconRes);
-                                    Log.d(TAG, "✅ StartIcon found in Android system: " + iconName + " -> " + systemIconRes);
-                                } else {
-                                    Log.w(TAG, "⚠️ StartIcon not found: " + iconName);
-                                    startIcon = Icon.createWithResource(getContext(), android.R.drawable.ic_media_play);
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error with startIcon", e);
-                                startIcon = Icon.createWithResource(getContext(), android.R.drawable.ic_media_play);
-                            }
-                        }
-                        
-                        if (startIcon != null) {
-                            ps.setProgressStartIcon(startIcon);
-                            Log.d(TAG, "🎯 StartIcon applied successfully");
-                        }
-                    }
-                }
-                
-                // Add end icon if provided
-                if (progressStyle.has("endIcon")) {
-                    String iconName = progressStyle.getString("endIcon");
-                    Log.d(TAG, "🎯 Attempting to set endIcon: " + iconName);
-                    
-                    if (iconName != null) {
-                        Icon endIcon = null;
-                        
-                        // ✅ Estrategia 1: Buscar en recursos de la app
-                        int iconRes = getContext().getResources().getIdentifier(
-                            iconName, "drawable", getContext().getPackageName()
-                        );
-                        
-                        if (iconRes != 0) {
-                            endIcon = Icon.createWithResource(getContext(), iconRes);
-                            Log.d(TAG, "✅ EndIcon found in app resources: " + iconName + " -> " + iconRes);
-                        } else {
-                            // ✅ Estrategia 2: Buscar en recursos del sistema Android
-                            try {
-                                int systemIconRes = getContext().getResources().getIdentifier(
-                                    iconName, "drawable", "android"
-                                );
-                                if (systemIconRes != 0) {
-                                    endIcon = Icon.createWithResource(getContext(), systemIconRes);
-                                    Log.d(TAG, "✅ EndIcon found in Android system: " + iconName + " -> " + systemIconRes);
-                                } else {
-                                    Log.w(TAG, "⚠️ EndIcon not found: " + iconName);
-                                    endIcon = Icon.createWithResource(getContext(), android.R.drawable.ic_menu_mylocation);
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error with endIcon", e);
-                                endIcon = Icon.createWithResource(getContext(), android.R.drawable.ic_menu_mylocation);
-                            }
-                        }
-                        
-                        if (endIcon != null) {
-                            ps.setProgressEndIcon(endIcon);
-                            Log.d(TAG, "🎯 EndIcon applied successfully");
-                        }
-                    }
-                }
-                
-                // Add segments if provided
-                if (progressStyle.has("segments")) {
-                    try {
-                        JSONArray segmentsJSON = progressStyle.getJSONArray("segments");
-                        Log.d(TAG, "Processing segments JSON: " + segmentsJSON.toString());
-                        
-                        if (segmentsJSON != null && segmentsJSON.length() > 0) {
-                            Log.d(TAG, "Found " + segmentsJSON.length() + " segments to add");
-                            
-                            for (int i = 0; i < segmentsJSON.length(); i++) {
-                                JSONObject segmentJSON = segmentsJSON.optJSONObject(i);
-                                if (segmentJSON != null) {
-                                    JSObject segment = JSObject.fromJSONObject(segmentJSON);
-                                    int length = segment.has("length") ? segment.getInteger("length") : 100;
-                                    String colorStr = segment.has("color") ? segment.getString("color") : "#FFFFFF";
-                                    
-                                    Log.d(TAG, "Adding segment " + i + ": length=" + length + ", color=" + colorStr);
-                                    
-                                    Notification.ProgressStyle.Segment seg = new Notification.ProgressStyle.Segment(length);
-                                    
-                                    // Set color if provided
-                                    if (segment.has("color")) {
-                                        if (colorStr != null) {
-                                            try {
-                                                int color = Color.parseColor(colorStr);
-                                                seg.setColor(color);
-                                                Log.d(TAG, "Segment color set successfully: " + colorStr);
-                                            } catch (IllegalArgumentException e) {
-                                                Log.w(TAG, "Invalid color format: " + colorStr);
-                                            }
-                                        }
-                                    }
-                                    
-                                    ps.addProgressSegment(seg);
-                                    Log.d(TAG, "Segment " + i + " added to ProgressStyle");
-                                }
-                            }
-                        } else {
-                            Log.w(TAG, "No segments found in JSON or empty array");
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing progress segments", e);
-                    }
-                }
-                
-                // Add points if provided
-                if (progressStyle.has("points")) {
-                    try {
-                        JSONArray pointsJSON = progressStyle.getJSONArray("points");
-                        if (pointsJSON != null && pointsJSON.length() > 0) {
-                            for (int i = 0; i < pointsJSON.length(); i++) {
-                                JSONObject pointJSON = pointsJSON.optJSONObject(i);
-                                if (pointJSON != null) {
-                                    JSObject point = JSObject.fromJSONObject(pointJSON);
-                                    int position = point.has("position") ? point.getInteger("position") : 0;
-                                    
-                                    Notification.ProgressStyle.Point pt = new Notification.ProgressStyle.Point(position);
-                                    
-                                    // Set color if provided
-                                    if (point.has("color")) {
-                                        String colorStr = point.getString("color");
-                                        if (colorStr != null) {
-                                            try {
-                                                int color = Color.parseColor(colorStr);
-                                                pt.setColor(color);
-                                            } catch (IllegalArgumentException e) {
-                                                Log.w(TAG, "Invalid color format: " + colorStr);
-                                            }
-                                        }
-                                    }
-                                    
-                                    ps.addProgressPoint(pt);
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing progress points", e);
-                    }
-                }
-                
-                // Handle indeterminate progress
-                if (progressStyle.has("indeterminate")) {
-                    boolean indeterminate = progressStyle.getBool("indeterminate");
-                    ps.setProgressIndeterminate(indeterminate);
-                }
-                
-                // ✅ FORZAR RECREACIÓN COMPLETA DEL ProgressStyle
-                Log.d(TAG, "🔥 FORCING COMPLETE PROGRESSSTYLE RECREATION");
-                
-                // Verificar que los segmentos realmente se añadieron
-                Log.d(TAG, "📊 ProgressStyle segments count verification needed");
-                
-                // Apply the ProgressStyle to the notification
-                // Note: We need to build the notification with the native Android API for ProgressStyle
-                String channelId = notification.has("channelId") ? notification.getString("channelId") : DEFAULT_CHANNEL_ID;
-                Log.d(TAG, "Applying ProgressStyle to native notification builder with channel: " + channelId);
-                
-                Notification.Builder nativeBuilder = new Notification.Builder(getContext(), channelId)
-                    .setContentTitle(builder.build().extras.getString(Notification.EXTRA_TITLE))
-                    .setContentText(builder.build().extras.getString(Notification.EXTRA_TEXT))
-                    .setSmallIcon(android.R.drawable.ic_dialog_info)
-                    .setStyle(ps)
-                    .setOngoing(true); // Make it ongoing for progress notifications
-                
-                Log.d(TAG, "✅ ProgressStyle applied to native notification builder");
-                Log.d(TAG, "🔍 Title: " + builder.build().extras.getString(Notification.EXTRA_TITLE));
-                Log.d(TAG, "🔍 Text: " + builder.build().extras.getString(Notification.EXTRA_TEXT));
-                
-                // Add subText if provided
-                if (notification.has("subText")) {
-                    String subText = notification.getString("subText");
-                    if (subText != null) {
-                        nativeBuilder.setSubText(subText);
-                    }
-                }
-                
-                // Add other notification properties
-                boolean autoCancel = notification.has("autoCancel") ? notification.getBool("autoCancel") : true;
-                nativeBuilder.setAutoCancel(autoCancel);
-                
-                // Add actions if provided
-                if (notification.has("actions")) {
-                    try {
-                        JSONArray actionsJSON = notification.getJSONArray("actions");
-                        if (actionsJSON != null) {
-                            for (int i = 0; i < actionsJSON.length(); i++) {
-                                JSONObject actionJSON = actionsJSON.optJSONObject(i);
-                                if (actionJSON != null) {
-                                    JSObject action = JSObject.fromJSONObject(actionJSON);
-                                    String actionId = action.getString("id");
-                                    String actionTitle = action.getString("title");
-                                    String actionIcon = action.getString("icon");
-                                    
-                                    if (actionId != null && actionTitle != null) {
-                                        // Create activity intent to open the app directly
-                                        Intent actionIntent = new Intent();
-                                        actionIntent.setClassName(getContext().getPackageName(), getContext().getPackageName() + ".MainActivity");
-                                        actionIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK 
-                                            | Intent.FLAG_ACTIVITY_CLEAR_TOP 
-                                            | Intent.FLAG_ACTIVITY_SINGLE_TOP);
-                                        
-                                        // Add action data as extras
-                                        actionIntent.putExtra("actionId", actionId);
-                                        actionIntent.putExtra("notificationId", notification.getInteger("id"));
-                                        actionIntent.putExtra("notificationData", notification.toString());
-                                        actionIntent.putExtra("fromNotificationAction", true);
-                                        
-                                        // Crear un request code único para cada acción
-                                        int requestCode = (notification.getInteger("id") * 1000) + actionId.hashCode();
-                                        
-                                        PendingIntent actionPendingIntent = PendingIntent.getActivity(
-                                            getContext(), 
-                                            requestCode, 
-                                            actionIntent, 
-                                            PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                                        );
-                                        
-                                        // Find icon resource
-                                        int iconRes = android.R.drawable.ic_menu_info_details; // default icon
-                                        if (actionIcon != null) {
-                                            int customIconRes = getContext().getResources().getIdentifier(
-                                                actionIcon, "drawable", getContext().getPackageName()
-                                            );
-                                            if (customIconRes != 0) {
-                                                iconRes = customIconRes;
-                                            }
-                                        }
-                                        
-                                        // Create and add the action
-                                        Notification.Action nativeAction = new Notification.Action.Builder(
-                                            Icon.createWithResource(getContext(), iconRes),
-                                            actionTitle,
-                                            actionPendingIntent
-                                        ).build();
-                                        
-                                        nativeBuilder.addAction(nativeAction);
-                                    }
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing notification actions for ProgressStyle", e);
-                    }
-                }
-                
-                Notification notificationBuilt = nativeBuilder.build();
-                
-                // Get notification manager and show the notification
-                NotificationManager notificationManager = (NotificationManager) getContext().getSystemService(Context.NOTIFICATION_SERVICE);
-                if (notificationManager != null) {
-                    int notificationId = notification.getInteger("id");
-                    notificationManager.notify(notificationId, notificationBuilt);
-                }
-                
-                Log.i(TAG, "Successfully created Progress-centric notification with segments and points");
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Error creating ProgressStyle notification", e);
-                throw e; // Re-throw to be handled by caller
-            }
-        } else {
-            throw new UnsupportedOperationException("ProgressStyle API requires Android API level 36+");
+    /**
+     * Show a due scheduled notification. Called from the alarm receiver off the main
+     * thread; renders with a Context only, so it works the same whether or not the
+     * plugin (and the WebView bridge) is loaded.
+     */
+    public static void showScheduledNotification(Context context, JSObject notification) {
+        ModernNotificationsPlugin plugin = instance;
+        Log.d(TAG, "showScheduledNotification called, instance: " + (plugin != null ? "available" : "null"));
+
+        NotificationSpec spec;
+        try {
+            spec = NotificationSpec.parse(notification);
+        } catch (IllegalArgumentException e) {
+            Log.e(TAG, "Scheduled notification is invalid", e);
+            return;
         }
-    }
 
-    private void addActionsToBuilder(NotificationCompat.Builder builder, JSArray actions, int notificationId) {
         try {
-            if (actions == null) {
-                Log.w(TAG, "Actions array is null, skipping actions");
-                return;
+            NotificationRenderer renderer = plugin != null ? plugin.renderer : new NotificationRenderer(context);
+            NotificationPoster.getInstance(context).show(spec, renderer.render(spec));
+            NotificationStore store = NotificationStore.getInstance(context);
+            long next = nextOccurrence(store, spec.id, notification);
+            if (next > 0) {
+                // Recurring: the same entry stays pending for its next occurrence, listed as delivered while shown
+                store.putShown(spec.id, next, notification);
+                AlarmScheduler.getInstance(context).scheduleRecurrence(spec.id, next, AlarmScheduler.toleranceOf(notification));
+            } else {
+                store.putDelivered(spec.id, notification);
             }
-            
-            for (int i = 0; i < actions.length(); i++) {
-                JSONObject jsonObj = actions.optJSONObject(i);
-                if (jsonObj != null) {
-                    JSObject action = JSObject.fromJSONObject(jsonObj);
-                    String actionId = action.getString("id");
-                    String actionTitle = action.getString("title");
-                    
-                    // Create broadcast intent for action
-                    Intent intent = new Intent(getContext(), NotificationActionReceiver.class);
-                    intent.setAction(NotificationActionReceiver.ACTION_NOTIFICATION_ACTION);
-                    intent.putExtra("actionId", actionId);
-                    intent.putExtra("notificationId", notificationId);
-                    
-                    PendingIntent pendingIntent = PendingIntent.getBroadcast(
-                        getContext(), 
-                        (actionId + notificationId).hashCode(), // Unique request code
-                        intent, 
-                        PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                    );
-                    
-                    builder.addAction(0, actionTitle, pendingIntent);
-                }
+            if (plugin != null) {
+                plugin.rememberSpec(spec);
             }
+            recordEvent(context, null, EventOutbox.TYPE_RECEIVED, null, spec.id, null);
+            Log.d(TAG, "Scheduled notification shown: " + spec.id);
         } catch (Exception e) {
-            Log.e(TAG, "Error adding actions to builder", e);
+            Log.e(TAG, "Error showing scheduled notification " + spec.id, e);
         }
     }
 
-    private int getNotificationPriority(String priority) {
-        switch (priority.toLowerCase()) {
-            case "high":
-                return NotificationCompat.PRIORITY_HIGH;
-            case "low":
-                return NotificationCompat.PRIORITY_LOW;
-            case "min":
-                return NotificationCompat.PRIORITY_MIN;
-            default:
-                return NotificationCompat.PRIORITY_DEFAULT;
+    /**
+     * Next occurrence of a recurring notification that is firing now. Updates the
+     * remaining {@code count} in the notification's schedule.
+     * @return Epoch millis, or 0 if it does not fire again
+     */
+    private static long nextOccurrence(NotificationStore store, int id, JSObject notification) {
+        JSONObject schedule = notification.optJSONObject("schedule");
+        if (schedule == null) {
+            return 0;
         }
-    }
-
-    private int getSmallIconResource() {
-        int resId = getContext().getResources().getIdentifier(
-            "ic_notification", "drawable", getContext().getPackageName()
-        );
-        if (resId == 0) {
-            resId = getContext().getResources().getIdentifier(
-                "ic_launcher", "mipmap", getContext().getPackageName()
-            );
-        }
-        if (resId == 0) {
-            resId = android.R.drawable.ic_dialog_info;
+        // Early wakeups are drained ahead of time, step from the occurrence that fired
+        NotificationStore.Entry entry = store.getEntry(id);
+        long firedAt = entry != null && entry.state == NotificationStore.STATE_PENDING ? entry.triggerAt : 0;
+        try {
+            return RecurrenceRule.advance(schedule, System.currentTimeMillis(), firedAt);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Schedule of " + id + " is invalid, not repeating", e);
+            return 0;
         }
-        return resId;
     }
 
     @PluginMethod
@@ -958,8 +375,8 @@ public class ModernNotificationsPlugin extends Plugin {
         JSObject result = new JSObject();
         JSArray notifications = new JSArray();
         
-        for (JSObject notification : scheduledNotifications.values()) {
-            notifications.put(notification);
+        for (NotificationStore.Entry entry : store.list(NotificationStore.STATE_PENDING)) {
+            notifications.put(entry.getNotification());
         }
         
         result.put("notifications", notifications);
@@ -968,17 +385,98 @@ public class ModernNotificationsPlugin extends Plugin {
 
     @PluginMethod
     public void getDelivered(PluginCall call) {
+        // Drop what the system no longer shows; entries are otherwise served as stored
+        for (int id : DeliveredTracker.getInstance(getContext()).reconcile(false)) {
+            specs.remove(id);
+        }
+
         JSObject result = new JSObject();
         JSArray notifications = new JSArray();
         
-        for (JSObject notification : deliveredNotifications.values()) {
-            notifications.put(notification);
+        for (NotificationStore.Entry entry : store.list(NotificationStore.STATE_DELIVERED)) {
+            notifications.put(entry.getNotification());
         }
         
         result.put("notifications", notifications);
         call.resolve(result);
     }
 
+    /**
+     * Filtered, sorted and paged view of pending and delivered notifications, served from native indices
+     */
+    @PluginMethod
+    public void queryNotifications(PluginCall call) {
+        NotificationIndex.Query query = new NotificationIndex.Query();
+        try {
+            String state = call.getString("state", "all");
+            if ("pending".equals(state)) {
+                query.state = NotificationStore.STATE_PENDING;
+            } else if ("delivered".equals(state)) {
+                query.state = NotificationStore.STATE_DELIVERED;
+            } else if (!"all".equals(state)) {
+                call.reject("Unknown state: " + state);
+                return;
+            }
+            query.channelId = call.getString("channelId");
+            query.group = call.getString("group");
+            query.extraKey = call.getString("extraKey");
+            Object extraValue = call.getData().opt("extraValue");
+            if (extraValue != null && extraValue != JSONObject.NULL) {
+                if (query.extraKey == null) {
+                    call.reject("extraValue needs extraKey");
+                    return;
+                }
+                query.extraValue = String.valueOf(extraValue);
+            }
+            if (call.getData().has("from")) {
+                query.from = parseTime(call.getData().opt("from"));
+            }
+            if (call.getData().has("to")) {
+                query.to = parseTime(call.getData().opt("to"));
+            }
+            String sortBy = call.getString("sortBy", NotificationIndex.SORT_TIME);
+            if (!NotificationIndex.SORT_TIME.equals(sortBy) && !NotificationIndex.SORT_ID.equals(sortBy)) {
+                call.reject("Unknown sortBy: " + sortBy);
+                return;
+            }
+            query.sortBy = sortBy;
+            query.descending = "desc".equals(call.getString("order", "asc"));
+            query.limit = Math.max(1, Math.min(MAX_QUERY_LIMIT, call.getInt("limit", DEFAULT_QUERY_LIMIT)));
+            query.cursor = call.getString("cursor");
+            JSArray fields = call.getArray("fields");
+            if (fields != null) {
+                query.fields = fields.toList();
+            }
+        } catch (Exception e) {
+            call.reject("Invalid query: " + e.getMessage());
+            return;
+        }
+
+        if (query.state == null || query.state == NotificationStore.STATE_DELIVERED) {
+            for (int id : DeliveredTracker.getInstance(getContext()).reconcile(false)) {
+                specs.remove(id);
+            }
+        }
+
+        NotificationIndex.Page page;
+        try {
+            page = store.query(query);
+        } catch (IllegalArgumentException e) {
+            call.reject(e.getMessage());
+            return;
+        }
+        JSObject result = new JSObject();
+        JSArray notifications = new JSArray();
+        for (JSObject notification : page.notifications) {
+            notifications.put(notification);
+        }
+        result.put("notifications", notifications);
+        if (page.nextCursor != null) {
+            result.put("nextCursor", page.nextCursor);
+        }
+        call.resolve(result);
+    }
+
     @PluginMethod
     public void cancel(PluginCall call) {
         JSArray notifications = call.getArray("notifications");
@@ -987,26 +485,42 @@ public class ModernNotificationsPlugin extends Plugin {
             return;
         }
 
+        // One summary update per group for the whole call
+        NotificationGrouper grouper = NotificationGrouper.getInstance(getContext());
+        grouper.beginBatch();
         try {
             for (int i = 0; i < notifications.length(); i++) {
                 JSONObject jsonObj = notifications.optJSONObject(i);
                 if (jsonObj != null) {
                     JSObject notification = JSObject.fromJSONObject(jsonObj);
                     int id = notification.has("id") ? notification.getInteger("id") : 0;
+                    // Stop progress first so an update in flight cannot re-post it
+                    stopProgressUpdates(id);
                     notificationManager.cancel(id);
-                    scheduledNotifications.remove(id);
+                    poster.forget(id);
+                    scheduler.cancel(id);
+                    if (store.get(id, NotificationStore.STATE_PENDING) != null) {
+                        store.remove(id);
+                        specs.remove(id);
+                    }
                 }
             }
             call.resolve();
         } catch (Exception e) {
             call.reject("Error canceling notifications: " + e.getMessage());
+        } finally {
+            grouper.endBatch();
         }
     }
 
     @PluginMethod
     public void cancelAll(PluginCall call) {
+        stopAllProgressUpdates();
         notificationManager.cancelAll();
-        scheduledNotifications.clear();
+        poster.forgetAll();
+        scheduler.cancelAll();
+        store.clear(NotificationStore.STATE_PENDING);
+        specs.clear();
         call.resolve();
     }
 
@@ -1018,27 +532,69 @@ public class ModernNotificationsPlugin extends Plugin {
             return;
         }
 
+        NotificationGrouper grouper = NotificationGrouper.getInstance(getContext());
+        grouper.beginBatch();
         try {
             for (int i = 0; i < notifications.length(); i++) {
                 JSONObject jsonObj = notifications.optJSONObject(i);
                 if (jsonObj != null) {
                     JSObject notification = JSObject.fromJSONObject(jsonObj);
                     int id = notification.has("id") ? notification.getInteger("id") : 0;
-                    deliveredNotifications.remove(id);
+                    // The shown notification goes either way, so must anything that would re-post it
+                    stopProgressUpdates(id);
+                    notificationManager.cancel(id);
+                    poster.forget(id);
+                    if (store.removeDelivered(id)) {
+                        specs.remove(id);
+                    }
                 }
             }
             call.resolve();
         } catch (Exception e) {
             call.reject("Error removing delivered notifications: " + e.getMessage());
+        } finally {
+            grouper.endBatch();
         }
     }
 
     @PluginMethod
     public void removeAllDelivered(PluginCall call) {
-        deliveredNotifications.clear();
+        stopAllProgressUpdates();
+        NotificationGrouper grouper = NotificationGrouper.getInstance(getContext());
+        grouper.beginBatch();
+        try {
+            for (NotificationStore.Entry entry : store.list(NotificationStore.STATE_DELIVERED)) {
+                notificationManager.cancel(entry.id);
+                poster.forget(entry.id);
+            }
+        } finally {
+            grouper.endBatch();
+        }
+        store.clear(NotificationStore.STATE_DELIVERED);
+        specs.clear();
         call.resolve();
     }
 
+    @PluginMethod
+    public void getSchedulerStats(PluginCall call) {
+        call.resolve(scheduler.getStats());
+    }
+
+    @PluginMethod
+    public void getActionStats(PluginCall call) {
+        JSObject stats = BackgroundActionHandler.getInstance(getContext()).getStats();
+        stats.put("outbox", EventOutbox.getInstance(getContext()).getStats());
+        stats.put("intents", ActionIntentPool.getInstance(getContext()).getStats());
+        call.resolve(stats);
+    }
+
+    @PluginMethod
+    public void drainBackgroundActions(PluginCall call) {
+        JSObject result = new JSObject();
+        result.put("actions", BackgroundActionHandler.getInstance(getContext()).drainQueue());
+        call.resolve(result);
+    }
+
     @PluginMethod
     public void createChannel(PluginCall call) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -1113,68 +669,20 @@ public class ModernNotificationsPlugin extends Plugin {
         int progress = call.getInt("progress", 0);
         JSObject progressStyleUpdate = call.getObject("progressStyle");
 
-        Log.d(TAG, "🔄 CANCEL & RECREATE - Updating progress for notification: " + id + " to: " + progress);
-
-        // Buscar la notificación en delivered o scheduled
-        JSObject notification = deliveredNotifications.get(id);
-        if (notification == null) {
-            notification = scheduledNotifications.get(id);
-        }
-        
-        if (notification != null) {
-            Log.d(TAG, "🎯 Found notification, updating progress...");
-            
-            // ✅ PASO 1: CANCELAR la notificación existente
-            NotificationManagerCompat notificationManager = NotificationManagerCompat.from(getContext());
-            notificationManager.cancel(id);
-            Log.d(TAG, "❌ Cancelled existing notification: " + id);
-            
-            // ✅ PASO 2: Actualizar los datos en memoria
-            if (progressStyleUpdate != null) {
-                notification.put("progressStyle", progressStyleUpdate);
-                Log.d(TAG, "📊 Updated progressStyle: " + progressStyleUpdate.toString());
-            } else {
-                JSObject currentStyle = notification.getJSObject("progressStyle");
-                if (currentStyle == null) {
-                    currentStyle = new JSObject();
-                    notification.put("progressStyle", currentStyle);
-                }
-                currentStyle.put("progress", progress);
-                Log.d(TAG, "📊 Updated progress value to: " + progress);
-            }
-            
-            // ✅ PASO 3: RECREAR completamente la notificación desde cero
-            try {
-                String channelId = notification.getString("channelId", "default");
-                int notificationId = notification.getInteger("id");
-                
-                Log.d(TAG, "🔨 Creating completely new notification builder...");
-                NotificationCompat.Builder builder = createNotificationBuilder(notification, channelId, notificationId);
-                
-                if (builder != null) {
-                    notificationManager.notify(notificationId, builder.build());
-                    Log.d(TAG, "✅ New notification created and displayed: " + notificationId);
-                    
-                    // Actualizar en el storage
-                    deliveredNotifications.put(notificationId, notification);
-                    
-                    Log.d(TAG, "🎉 Progress updated successfully - CANCEL & RECREATE method");
-                } else {
-                    Log.e(TAG, "❌ Failed to create notification builder for update");
-                    call.reject("Failed to create notification builder");
-                    return;
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "💥 Error in CANCEL & RECREATE method for progress", e);
-                call.reject("Error updating progress: " + e.getMessage());
-                return;
-            }
-        } else {
+        if (getSpec(id) == null) {
             Log.w(TAG, "⚠️ Notification not found. ID: " + id);
             call.reject("Notification not found");
             return;
         }
-        
+
+        // Se fusiona con otras actualizaciones pendientes y se publica en sitio
+        if (progressStyleUpdate != null) {
+            progressUpdates.setProgressStyle(id, NotificationSpec.ProgressSpec.parse(progressStyleUpdate));
+            Log.d(TAG, "📊 Queued progressStyle update for " + id);
+        } else {
+            progressUpdates.setProgress(id, progress);
+            Log.d(TAG, "📊 Queued progress update for " + id + " to: " + progress);
+        }
         call.resolve();
     }
 
@@ -1183,92 +691,15 @@ public class ModernNotificationsPlugin extends Plugin {
         int id = call.getInt("id", 0);
         JSArray points = call.getArray("points");
 
-        Log.d(TAG, "🔄 CANCEL & RECREATE - Adding progress points for notification: " + id);
-
-        // Buscar la notificación en delivered o scheduled
-        JSObject notification = deliveredNotifications.get(id);
-        if (notification == null) {
-            notification = scheduledNotifications.get(id);
-        }
-        
-        if (notification != null && points != null) {
-            Log.d(TAG, "🎯 Found notification, adding points...");
-            
-            // ✅ PASO 1: CANCELAR la notificación existente
-            NotificationManagerCompat notificationManager = NotificationManagerCompat.from(getContext());
-            notificationManager.cancel(id);
-            Log.d(TAG, "❌ Cancelled existing notification: " + id);
-            
-            // ✅ PASO 2: Actualizar los datos en memoria
-            JSObject progressStyle = notification.getJSObject("progressStyle");
-            if (progressStyle == null) {
-                progressStyle = new JSObject();
-                notification.put("progressStyle", progressStyle);
-            }
-            
-            JSArray currentPoints = null;
-            if (progressStyle.has("points")) {
-                try {
-                    JSONArray pointsJSON = progressStyle.getJSONArray("points");
-                    if (pointsJSON != null && pointsJSON.length() > 0) {
-                        currentPoints = JSArray.from(pointsJSON);
-                        if (currentPoints == null) {
-                            Log.w(TAG, "JSArray.from() returned null for points");
-                            currentPoints = new JSArray();
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error processing progress points", e);
-                }
-            }
-            if (currentPoints == null) {
-                currentPoints = new JSArray();
-            }
-            
-            // Add new points
-            try {
-                for (int i = 0; i < points.length(); i++) {
-                    currentPoints.put(points.get(i));
-                }
-            } catch (JSONException e) {
-                Log.e(TAG, "Error adding progress points", e);
-            }
-            
-            progressStyle.put("points", currentPoints);
-            Log.d(TAG, "📊 Updated points data: " + currentPoints.toString());
-            
-            // ✅ PASO 3: RECREAR completamente la notificación desde cero
-            try {
-                String channelId = notification.getString("channelId", "default");
-                int notificationId = notification.getInteger("id");
-                
-                Log.d(TAG, "🔨 Creating completely new notification builder...");
-                NotificationCompat.Builder builder = createNotificationBuilder(notification, channelId, notificationId);
-                
-                if (builder != null) {
-                    notificationManager.notify(notificationId, builder.build());
-                    Log.d(TAG, "✅ New notification created and displayed: " + notificationId);
-                    
-                    // Actualizar en el storage
-                    deliveredNotifications.put(notificationId, notification);
-                    
-                    Log.d(TAG, "🎉 Progress points added successfully - CANCEL & RECREATE method");
-                } else {
-                    Log.e(TAG, "❌ Failed to create notification builder for update");
-                    call.reject("Failed to create notification builder");
-                    return;
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "💥 Error in CANCEL & RECREATE method for points", e);
-                call.reject("Error updating progress points: " + e.getMessage());
-                return;
-            }
-        } else {
+        if (getSpec(id) == null || points == null) {
             Log.w(TAG, "⚠️ Notification not found or points is null. ID: " + id);
             call.reject("Notification not found or invalid points");
             return;
         }
-        
+
+        List<NotificationSpec.Point> parsed = NotificationSpec.Point.parseAll(points);
+        progressUpdates.addPoints(id, parsed);
+        Log.d(TAG, "📊 Queued " + parsed.size() + " progress points for " + id);
         call.resolve();
     }
 
@@ -1276,135 +707,205 @@ public class ModernNotificationsPlugin extends Plugin {
     public void updateProgressSegments(PluginCall call) {
         int id = call.getInt("id", 0);
         JSArray segments = call.getArray("segments");
-        JSArray points = call.getArray("points");  // ✅ AGREGAR soporte para points
+        JSArray points = call.getArray("points");
 
-        Log.d(TAG, "🔄 CANCEL & RECREATE - Updating progress segments and points for notification: " + id);
+        if (getSpec(id) == null || segments == null) {
+            Log.w(TAG, "⚠️ Notification not found or segments is null. ID: " + id);
+            call.reject("Notification not found or invalid segments");
+            return;
+        }
 
-        // Buscar la notificación en delivered o scheduled
-        JSObject notification = deliveredNotifications.get(id);
-        if (notification == null) {
-            notification = scheduledNotifications.get(id);
+        // Los segments se reemplazan; los points existentes solo se conservan si no se proporcionaron nuevos
+        progressUpdates.setSegments(
+            id,
+            NotificationSpec.Segment.parseAll(segments),
+            points != null ? NotificationSpec.Point.parseAll(points) : null
+        );
+        Log.d(TAG, "📊 Queued segments update for " + id + " - Points: " + (points != null ? points.length() : "preserved existing"));
+        call.resolve();
+    }
+
+    /**
+     * Insert, remove or update single segments and points by index or key, so the
+     * payload from JS is proportional to the change
+     */
+    @PluginMethod
+    public void patchProgress(PluginCall call) {
+        int id = call.getInt("id", 0);
+        JSArray patches = call.getArray("patches");
+
+        if (getSpec(id) == null || patches == null) {
+            Log.w(TAG, "⚠️ Notification not found or patches is null. ID: " + id);
+            call.reject("Notification not found or invalid patches");
+            return;
         }
-        
-        if (notification != null && segments != null) {
-            Log.d(TAG, "🎯 Found notification, updating segments and points...");
-            
-            // ✅ PASO 1: CANCELAR la notificación existente completamente
-            NotificationManagerCompat notificationManager = NotificationManagerCompat.from(getContext());
-            notificationManager.cancel(id);
-            Log.d(TAG, "❌ Cancelled existing notification: " + id);
-            
-            // ✅ PASO 2: REEMPLAZAR COMPLETAMENTE los datos en memoria
-            Log.d(TAG, "🔥 CREATING COMPLETELY NEW progressStyle object to avoid any data contamination");
-            
-            // ✅ CREAR progressStyle completamente nuevo para evitar contaminación de datos
-            JSObject progressStyle = new JSObject();
-            progressStyle.put("segments", segments);
-            
-            // ✅ AGREGAR points si están presentes
-            if (points != null) {
-                progressStyle.put("points", points);
-                Log.d(TAG, "🎯 ADDING POINTS to new progressStyle: " + points.toString());
-            } else {
-                Log.d(TAG, "ℹ️ No points provided in update, will preserve existing points if any");
-            }
-            
-            // ✅ PRESERVAR otros datos del progressStyle original si existen
-            JSObject oldProgressStyle = notification.getJSObject("progressStyle");
-            if (oldProgressStyle != null) {
-                // Copiar propiedades que NO sean segments ni points (a menos que no se proporcionen nuevos points)
-                if (oldProgressStyle.has("progress")) {
-                    progressStyle.put("progress", oldProgressStyle.getInteger("progress"));
-                }
-                if (oldProgressStyle.has("styledByProgress")) {
-                    progressStyle.put("styledByProgress", oldProgressStyle.getBool("styledByProgress"));
-                }
-                if (oldProgressStyle.has("indeterminate")) {
-                    progressStyle.put("indeterminate", oldProgressStyle.getBool("indeterminate"));
-                }
-                if (oldProgressStyle.has("trackerIcon")) {
-                    progressStyle.put("trackerIcon", oldProgressStyle.getString("trackerIcon"));
-                }
-                if (oldProgressStyle.has("startIcon")) {
-                    progressStyle.put("startIcon", oldProgressStyle.getString("startIcon"));
-                }
-                if (oldProgressStyle.has("endIcon")) {
-                    progressStyle.put("endIcon", oldProgressStyle.getString("endIcon"));
-                }
-                
-                // ✅ PRESERVAR points existentes solo si no se proporcionaron nuevos
-                if (points == null && oldProgressStyle.has("points")) {
-                    try {
-                        progressStyle.put("points", oldProgressStyle.getJSONArray("points"));
-                        Log.d(TAG, "📋 Preserved existing points since no new points provided");
-                    } catch (Exception e) {
-                        Log.w(TAG, "Could not preserve existing points", e);
-                    }
+
+        List<ProgressPatch> parsed;
+        try {
+            parsed = ProgressPatch.parseAll(patches);
+        } catch (IllegalArgumentException e) {
+            call.reject("Invalid patch: " + e.getMessage());
+            return;
+        }
+        progressUpdates.applyPatches(id, parsed);
+        Log.d(TAG, "🩹 Queued " + parsed.size() + " progress patches for " + id);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getPostStats(PluginCall call) {
+        JSObject stats = poster.getStats();
+        stats.put("delivered", DeliveredTracker.getInstance(getContext()).getStats());
+        stats.put("grouping", NotificationGrouper.getInstance(getContext()).getStats());
+        call.resolve(stats);
+    }
+
+    @PluginMethod
+    public void getIconStats(PluginCall call) {
+        JSObject stats = IconCache.getInstance(getContext()).getStats();
+        stats.put("resources", ResourceResolver.getInstance(getContext()).getStats());
+        stats.put("remote", RemoteIconLoader.getInstance(getContext()).getStats());
+        call.resolve(stats);
+    }
+
+    @PluginMethod
+    public void getProgressStats(PluginCall call) {
+        JSObject stats = progressUpdates.getStats();
+        stats.put("activeTickers", progressTicker.getActiveCount());
+        stats.put("tickerWakeups", progressTicker.getTicks());
+        stats.put("tickerUpdates", progressTicker.getValuesPosted());
+        call.resolve(stats);
+    }
+
+    /**
+     * Advance progress natively: at a rate, towards an end time, or through keyframes
+     */
+    @PluginMethod
+    public void startProgressTicker(PluginCall call) {
+        int id = call.getInt("id", 0);
+        NotificationSpec spec = getSpec(id);
+        if (spec == null) {
+            call.reject("Notification not found");
+            return;
+        }
+        NotificationSpec.ProgressSpec progress = spec.progress != null ? spec.progress : NotificationSpec.ProgressSpec.EMPTY;
+        int from = call.getInt("from", progress.progress);
+        int to = call.getInt("to", progress.maxProgress);
+        Double ratePerSecond = call.getDouble("ratePerSecond");
+        Object endAt = call.getData().opt("endAt");
+        JSArray keyframes = call.getArray("keyframes");
+
+        try {
+            if (keyframes != null) {
+                List<ProgressTicker.Keyframe> parsed = new ArrayList<>();
+                for (int i = 0; i < keyframes.length(); i++) {
+                    JSONObject keyframe = keyframes.getJSONObject(i);
+                    parsed.add(new ProgressTicker.Keyframe(
+                        parseTime(keyframe.opt("at")),
+                        keyframe.has("progress") ? keyframe.getInt("progress") : null,
+                        NotificationSpec.Segment.parseAll(keyframe.optJSONArray("segments")),
+                        NotificationSpec.Point.parseAll(keyframe.optJSONArray("points"))
+                    ));
                 }
-                
-                Log.d(TAG, "📋 Preserved other progressStyle properties, REPLACED segments and updated points");
+                progressTicker.startKeyframes(id, from, parsed);
+            } else if (endAt != null) {
+                progressTicker.startLinear(id, from, to, parseTime(endAt));
+            } else if (ratePerSecond != null && ratePerSecond > 0) {
+                progressTicker.startRate(id, from, to, ratePerSecond);
+            } else {
+                call.reject("Must provide keyframes, endAt or a positive ratePerSecond");
+                return;
             }
-            
-            // ✅ REEMPLAZAR completamente el progressStyle en la notificación
-            notification.put("progressStyle", progressStyle);
-            String segmentsLog = segments.toString();
-            String pointsLog = points != null ? points.toString() : "null (preserved existing)";
-            Log.d(TAG, "📊 COMPLETELY REPLACED progressStyle - Segments: " + segmentsLog + " - Points: " + pointsLog);
-            Log.d(TAG, "🚮 Old segments are gone, points updated/preserved, only new data will be processed");
-            
-            // ✅ PASO 3: RECREAR completamente la notificación desde cero
-            // Esto garantiza que no haya acumulación de segmentos antiguos
-            try {
-                String channelId = notification.getString("channelId", "default");
-                int notificationId = notification.getInteger("id");
-                
-                Log.d(TAG, "🔨 Creating completely new notification with NATIVE ProgressStyle...");
-                
-                // ✅ USAR NOTIFICACIÓN NATIVA DIRECTA para ProgressStyle con segments
-                if (Build.VERSION.SDK_INT >= 36) {
-                    Log.d(TAG, "🎯 Using DIRECT NATIVE notification for ProgressStyle segments");
-                    Notification nativeNotification = createNativeProgressNotificationDirect(notification, channelId, notificationId);
-                    if (nativeNotification != null) {
-                        notificationManager.notify(notificationId, nativeNotification);
-                        Log.d(TAG, "✅ NATIVE ProgressStyle notification displayed successfully: " + notificationId);
-                        
-                        // Actualizar en el storage
-                        deliveredNotifications.put(notificationId, notification);
-                        Log.d(TAG, "🎉 Progress segments updated successfully - NATIVE DIRECT method");
-                    } else {
-                        Log.e(TAG, "❌ Failed to create NATIVE ProgressStyle notification");
-                        call.reject("Failed to create native ProgressStyle notification");
-                        return;
-                    }
-                } else {
-                    // Fallback para versiones anteriores
-                    Log.d(TAG, "📱 Using fallback NotificationCompat.Builder (Android < 36)");
-                    NotificationCompat.Builder builder = createNotificationBuilder(notification, channelId, notificationId);
-                    if (builder != null) {
-                        notificationManager.notify(notificationId, builder.build());
-                        Log.d(TAG, "✅ Fallback notification displayed: " + notificationId);
-                        deliveredNotifications.put(notificationId, notification);
-                        Log.d(TAG, "🎉 Progress segments updated successfully - FALLBACK method");
-                    } else {
-                        Log.e(TAG, "❌ Failed to create fallback notification builder");
-                        call.reject("Failed to create notification builder");
-                        return;
-                    }
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "💥 Error in CANCEL & RECREATE method", e);
-                call.reject("Error updating progress segments: " + e.getMessage());
+        } catch (Exception e) {
+            call.reject("Invalid progress ticker: " + e.getMessage());
+            return;
+        }
+        Log.d(TAG, "⏱️ Progress ticker started for notification: " + id);
+        call.resolve();
+    }
+
+    /**
+     * Download a file with CapacitorHttp's connection handling, driving the notification's
+     * progress natively. Resolves when the download ends.
+     */
+    @PluginMethod
+    public void downloadWithProgress(PluginCall call) {
+        int id = call.getInt("id", 0);
+        String url = call.getString("url");
+        String path = call.getString("path");
+        NotificationSpec spec = getSpec(id);
+        if (spec == null) {
+            call.reject("Notification not found");
+            return;
+        }
+        if (url == null || path == null) {
+            call.reject("Must provide url and path");
+            return;
+        }
+
+        ProgressDownload.Request request = new ProgressDownload.Request();
+        try {
+            File filesDir = getContext().getFilesDir().getCanonicalFile();
+            File destination = new File(filesDir, path).getCanonicalFile();
+            if (!destination.getPath().startsWith(filesDir.getPath() + File.separator)) {
+                call.reject("Path must stay inside the app files directory");
                 return;
             }
-        } else {
-            Log.w(TAG, "⚠️ Notification not found or segments is null. ID: " + id);
-            call.reject("Notification not found or invalid segments");
+            request.spec = spec;
+            request.url = new URL(url);
+            request.destination = destination;
+        } catch (IOException e) {
+            call.reject("Invalid download: " + e.getMessage());
             return;
         }
-        
+        request.headers = call.getObject("headers", new JSObject());
+        request.connectTimeout = call.getInt("connectTimeout");
+        request.readTimeout = call.getInt("readTimeout");
+        request.completeBody = call.getString("completeBody");
+        request.failedBody = call.getString("failedBody");
+
+        Log.d(TAG, "⬇️ Download started for notification: " + id);
+        downloads.start(
+            request,
+            new ProgressDownload.Callback() {
+                @Override
+                public void onComplete(JSObject result) {
+                    call.resolve(result);
+                }
+
+                @Override
+                public void onError(String message, Exception e) {
+                    call.reject(message, e);
+                }
+            }
+        );
+    }
+
+    @PluginMethod
+    public void cancelDownload(PluginCall call) {
+        downloads.cancel(call.getInt("id", 0));
         call.resolve();
     }
 
+    @PluginMethod
+    public void stopProgressTicker(PluginCall call) {
+        progressTicker.stop(call.getInt("id", 0));
+        call.resolve();
+    }
+
+    /**
+     * Epoch millis from a JS number or a date string
+     */
+    private long parseTime(Object value) throws Exception {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value == null || value == JSONObject.NULL) {
+            throw new Exception("Missing time");
+        }
+        return parseCapacitorDateString(value.toString());
+    }
+
     private int getChannelImportance(String importance) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             switch (importance.toLowerCase()) {
@@ -1437,232 +938,116 @@ public class ModernNotificationsPlugin extends Plugin {
         return "default";
     }
     
-    // Static method to handle notification actions from BroadcastReceiver
-    public static void handleNotificationAction(String actionId, int notificationId, String notificationData) {
-        if (instance != null) {
-            instance.sendActionEvent(actionId, notificationId, notificationData);
-        }
+    /**
+     * Record a notification action in the event outbox and deliver it if JS is listening.
+     * Safe to call from receivers while the plugin is not loaded.
+     * @param eventId Stable id used to drop duplicates, or null for a new event
+     * @param payload Encoded spec carried by the action intent, used when the store no longer has the notification
+     */
+    static void handleNotificationAction(Context context, String eventId, String actionId, int notificationId, byte[] payload) {
+        recordEvent(context, eventId, EventOutbox.TYPE_ACTION, actionId, notificationId, payload);
     }
-    
-    private void sendActionEvent(String actionId, int notificationId, String notificationData) {
-        JSObject ret = new JSObject();
-        ret.put("actionId", actionId);
-        
-        // Get notification data
-        JSObject notification = deliveredNotifications.get(notificationId);
-        if (notification == null) {
-            notification = scheduledNotifications.get(notificationId);
+
+    /**
+     * A notification was swiped away: report it, then stop tracking it as delivered
+     */
+    static void handleNotificationDismissed(Context context, int notificationId) {
+        stopProgress(notificationId);
+        // Recorded before the tracker drops it, while the store can still resolve the notification
+        recordEvent(context, null, EventOutbox.TYPE_DISMISSED, null, notificationId, null);
+        DeliveredTracker.getInstance(context).onDismissed(notificationId);
+        invalidateSpec(notificationId);
+    }
+
+    static void recordEvent(Context context, String eventId, String type, String actionId, int notificationId, byte[] payload) {
+        JSObject notification = NotificationStore.getInstance(context).get(notificationId);
+        if (notification == null && payload != null) {
+            try {
+                notification = NotificationCodec.decode(payload).toJSObject();
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "Invalid notification payload in action intent", e);
+            }
         }
         if (notification == null) {
             notification = new JSObject();
             notification.put("id", notificationId);
         }
-        
-        ret.put("notification", notification);
-        
-        Log.d(TAG, "Sending localNotificationActionPerformed event: " + ret.toString());
-        notifyListeners("localNotificationActionPerformed", ret);
+
+        if (!EventOutbox.getInstance(context).record(eventId, type, actionId, notification)) {
+            Log.d(TAG, "Duplicate " + type + " event ignored: " + eventId);
+            return;
+        }
+        ModernNotificationsPlugin plugin = instance;
+        if (plugin != null) {
+            plugin.flushEvents();
+        }
     }
-    
-    @Override
-    protected void handleOnNewIntent(Intent intent) {
-        super.handleOnNewIntent(intent);
-        
-        // Check if this intent came from a notification action
-        if (intent != null && intent.getBooleanExtra("fromNotificationAction", false)) {
-            String actionId = intent.getStringExtra("actionId");
-            int notificationId = intent.getIntExtra("notificationId", -1);
-            String notificationData = intent.getStringExtra("notificationData");
-            
-            Log.d(TAG, "App opened from notification action: " + actionId + " for notification: " + notificationId);
-            
-            if (actionId != null && notificationId != -1) {
-                // Dispatch the action event
-                sendActionEvent(actionId, notificationId, notificationData);
+
+    /**
+     * Deliver queued outbox events to the listeners attached right now
+     */
+    private void flushEvents() {
+        Set<String> listening = new HashSet<>();
+        for (String eventName : new String[] { EventOutbox.EVENT_RECEIVED, EventOutbox.EVENT_ACTION_PERFORMED }) {
+            if (hasListeners(eventName)) {
+                listening.add(eventName);
             }
         }
+        if (listening.isEmpty()) {
+            return;
+        }
+        int delivered = EventOutbox.getInstance(getContext()).drain(listening, (eventName, data) -> {
+            // Retained by the bridge if the listener goes away between the check and now
+            notifyListeners(eventName, data, true);
+            return true;
+        });
+        if (delivered > 0) {
+            Log.d(TAG, "Delivered " + delivered + " queued notification event(s)");
+        }
     }
 
-    // ✅ MÉTODO NATIVO DIRECTO para ProgressStyle
-    @RequiresApi(api = 36)
-    private Notification createNativeProgressNotificationDirect(JSObject notification, String channelId, int notificationId) {
-        Log.d(TAG, "🚀 Creating DIRECT native ProgressStyle notification");
-        
-        try {
-            String title = notification.has("title") ? notification.getString("title") : "";
-            String body = notification.has("body") ? notification.getString("body") : "";
-            String subText = notification.getString("subText");
-            boolean autoCancel = notification.has("autoCancel") ? notification.getBool("autoCancel") : true;
-            boolean ongoing = notification.has("ongoing") ? notification.getBool("ongoing") : true; // Force ongoing for progress
-            
-            JSObject progressStyle = notification.getJSObject("progressStyle");
-            
-            // ✅ CREAR ProgressStyle COMPLETAMENTE NUEVO
-            int progress = progressStyle.has("progress") ? progressStyle.getInteger("progress") : 0;
-            boolean styledByProgress = progressStyle.has("styledByProgress") ? progressStyle.getBool("styledByProgress") : true;
-            
-            Log.d(TAG, "🆕 CREATING BRAND NEW ProgressStyle instance - hashCode will be unique");
-            Notification.ProgressStyle ps = new Notification.ProgressStyle()
-                .setStyledByProgress(styledByProgress)
-                .setProgress(progress);
-            
-            Log.d(TAG, "📊 NEW ProgressStyle created - HashCode: " + ps.hashCode() + " - Progress: " + progress);
-            Log.d(TAG, "🔄 This ProgressStyle should have ZERO segments initially");
-            
-            // ✅ AGREGAR SEGMENTOS UNO POR UNO
-            if (progressStyle.has("segments")) {
-                try {
-                    JSONArray segmentsJSON = progressStyle.getJSONArray("segments");
-                    Log.d(TAG, "🎨 PROCESSING SEGMENTS: " + segmentsJSON.toString());
-                    Log.d(TAG, "🔢 EXPECTING TO ADD " + segmentsJSON.length() + " SEGMENTS TO FRESH ProgressStyle");
-                    
-                    if (segmentsJSON != null && segmentsJSON.length() > 0) {
-                        Log.d(TAG, "🚀 STARTING SEGMENT LOOP - Creating FRESH segments for new ProgressStyle");
-                        for (int i = 0; i < segmentsJSON.length(); i++) {
-                            JSONObject segmentJSON = segmentsJSON.optJSONObject(i);
-                            if (segmentJSON != null) {
-                                JSObject segment = JSObject.fromJSONObject(segmentJSON);
-                                int length = segment.has("length") ? segment.getInteger("length") : 100;
-                                String colorStr = segment.has("color") ? segment.getString("color") : "#FFFFFF";
-                                
-                                Log.d(TAG, "🔵 Creating segment " + i + ": length=" + length + ", color=" + colorStr);
-                                
-                                Notification.ProgressStyle.Segment seg = new Notification.ProgressStyle.Segment(length);
-                                
-                                if (segment.has("color") && colorStr != null) {
-                                    try {
-                                        int color = Color.parseColor(colorStr);
-                                        seg.setColor(color);
-                                        Log.d(TAG, "✅ Color applied to segment " + i + ": " + colorStr + " -> " + color);
-                                    } catch (IllegalArgumentException e) {
-                                        Log.w(TAG, "❌ Invalid color for segment " + i + ": " + colorStr);
-                                    }
-                                }
-                                
-                                ps.addProgressSegment(seg);
-                                Log.d(TAG, "✅ Segment " + i + " added to ProgressStyle successfully");
-                            }
-                        }
-                        Log.d(TAG, "🎉 ALL " + segmentsJSON.length() + " SEGMENTS PROCESSED AND ADDED");
-                    } else {
-                        Log.w(TAG, "⚠️ No segments found in progressStyle");
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "💥 Error processing segments", e);
-                }
-            }
-            
-            // ✅ AGREGAR POINTS si están presentes
-            if (progressStyle.has("points")) {
-                try {
-                    JSONArray pointsJSON = progressStyle.getJSONArray("points");
-                    Log.d(TAG, "🎯 PROCESSING POINTS: " + pointsJSON.toString());
-                    
-                    if (pointsJSON != null && pointsJSON.length() > 0) {
-                        Log.d(TAG, "🔢 EXPECTING TO ADD " + pointsJSON.length() + " POINTS TO ProgressStyle");
-                        for (int i = 0; i < pointsJSON.length(); i++) {
-                            JSONObject pointJSON = pointsJSON.optJSONObject(i);
-                            if (pointJSON != null) {
-                                JSObject point = JSObject.fromJSONObject(pointJSON);
-                                int position = point.has("position") ? point.getInteger("position") : 0;
-                                String colorStr = point.has("color") ? point.getString("color") : "#FFFFFF";
-                                
-                                Log.d(TAG, "🔸 Creating point " + i + ": position=" + position + ", color=" + colorStr);
-                                
-                                Notification.ProgressStyle.Point pt = new Notification.ProgressStyle.Point(position);
-                                
-                                if (point.has("color") && colorStr != null) {
-                                    try {
-                                        int color = Color.parseColor(colorStr);
-                                        pt.setColor(color);
-                                        Log.d(TAG, "✅ Color applied to point " + i + ": " + colorStr + " -> " + color);
-                                    } catch (IllegalArgumentException e) {
-                                        Log.w(TAG, "❌ Invalid color for point " + i + ": " + colorStr);
-                                    }
-                                }
-                                
-                                ps.addProgressPoint(pt);
-                                Log.d(TAG, "✅ Point " + i + " added to ProgressStyle successfully");
-                            }
-                        }
-                        Log.d(TAG, "🎉 ALL " + pointsJSON.length() + " POINTS PROCESSED AND ADDED");
-                    } else {
-                        Log.w(TAG, "⚠️ No points found in progressStyle");
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "💥 Error processing points", e);
-                }
-            } else {
-                Log.d(TAG, "ℹ️ No points provided in progressStyle");
-            }
-            
-            // ✅ CREAR NOTIFICATION BUILDER NATIVO
-            Notification.Builder nativeBuilder = new Notification.Builder(getContext(), channelId)
-                .setContentTitle(title)
-                .setContentText(body)
-                .setSmallIcon(getSmallIconResource())
-                .setStyle(ps)
-                .setAutoCancel(autoCancel)
-                .setOngoing(ongoing);
-            
-            if (subText != null) {
-                nativeBuilder.setSubText(subText);
-                Log.d(TAG, "📝 SubText added: " + subText);
-            }
-            
-            // Agregar acciones si existen
-            if (notification.has("actions")) {
-                try {
-                    JSONArray actionsJSON = notification.getJSONArray("actions");
-                    if (actionsJSON != null && actionsJSON.length() > 0) {
-                        Log.d(TAG, "🎬 Adding " + actionsJSON.length() + " actions to native notification");
-                        for (int i = 0; i < actionsJSON.length(); i++) {
-                            JSONObject actionJSON = actionsJSON.optJSONObject(i);
-                            if (actionJSON != null) {
-                                JSObject action = JSObject.fromJSONObject(actionJSON);
-                                String actionId = action.getString("id");
-                                String actionTitle = action.getString("title");
-                                
-                                if (actionId != null && actionTitle != null) {
-                                    Intent actionIntent = new Intent(getContext(), getActivity().getClass());
-                                    actionIntent.putExtra("fromNotificationAction", true);
-                                    actionIntent.putExtra("actionId", actionId);
-                                    actionIntent.putExtra("notificationId", notificationId);
-                                    actionIntent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
-                                    
-                                    PendingIntent actionPendingIntent = PendingIntent.getActivity(
-                                        getContext(),
-                                        (notificationId * 1000) + i, // Unique request code
-                                        actionIntent,
-                                        PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-                                    );
-                                    
-                                    Notification.Action.Builder actionBuilder = new Notification.Action.Builder(
-                                        android.R.drawable.ic_dialog_info, // Default icon
-                                        actionTitle,
-                                        actionPendingIntent
-                                    );
-                                    
-                                    nativeBuilder.addAction(actionBuilder.build());
-                                    Log.d(TAG, "✅ Action added: " + actionTitle + " (" + actionId + ")");
-                                }
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error adding actions to native notification", e);
-                }
+    @Override
+    @PluginMethod(returnType = PluginMethod.RETURN_NONE)
+    public void addListener(PluginCall call) {
+        super.addListener(call);
+        flushEvents();
+    }
+
+    /**
+     * Record an action carried by an activity intent (ProgressStyle notifications open
+     * the app directly). The event id is stored on the intent so handling the same
+     * intent again, e.g. after a configuration change, is a no-op.
+     */
+    private void handleActionIntent(Intent intent) {
+        if (intent == null || !intent.getBooleanExtra("fromNotificationAction", false)) {
+            return;
+        }
+        String actionId = intent.getStringExtra("actionId");
+        int notificationId = intent.getIntExtra("notificationId", -1);
+        byte[] payload = intent.getByteArrayExtra(NotificationCodec.EXTRA_PAYLOAD);
+
+        Log.d(TAG, "App opened from notification action: " + actionId + " for notification: " + notificationId);
+
+        if (actionId != null && notificationId != -1) {
+            String eventId = intent.getStringExtra(EXTRA_EVENT_ID);
+            if (eventId == null) {
+                eventId = EventOutbox.newEventId();
+                intent.putExtra(EXTRA_EVENT_ID, eventId);
             }
-            
-            Log.d(TAG, "🏗️ Building final native notification with ProgressStyle");
-            Notification finalNotification = nativeBuilder.build();
-            Log.d(TAG, "✅ Native ProgressStyle notification built successfully");
-            
-            return finalNotification;
-            
-        } catch (Exception e) {
-            Log.e(TAG, "💥 Error creating native ProgressStyle notification", e);
-            return null;
+            handleNotificationAction(getContext(), eventId, actionId, notificationId, payload);
         }
     }
+
+    @Override
+    protected void handleOnPause() {
+        super.handleOnPause();
+        // Progress ticks kept only in memory reach disk before the process may be killed
+        store.persistAll();
+    }
+
+    @Override
+    protected void handleOnNewIntent(Intent intent) {
+        super.handleOnNewIntent(intent);
+        handleActionIntent(intent);
+    }
 }
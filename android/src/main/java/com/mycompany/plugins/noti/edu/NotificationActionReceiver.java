@@ -4,28 +4,59 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.getcapacitor.JSObject;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class NotificationActionReceiver extends BroadcastReceiver {
     
     public static final String ACTION_NOTIFICATION_ACTION = "com.mycompany.plugins.noti.edu.NOTIFICATION_ACTION";
+
+    /** False for actions handled natively, absent on intents built by older versions */
+    static final String EXTRA_FOREGROUND = "foreground";
+
+    /** Runs action bookkeeping and background actions off the main thread */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+        SchedulePipeline.namedThreads("ModernNotifications-action")
+    );
     
     @Override
     public void onReceive(Context context, Intent intent) {
         if (ACTION_NOTIFICATION_ACTION.equals(intent.getAction())) {
+            long receivedAt = SystemClock.elapsedRealtime();
             String actionId = intent.getStringExtra("actionId");
             int notificationId = intent.getIntExtra("notificationId", -1);
-            String notificationData = intent.getStringExtra("notificationData");
-            
-            Log.d("NotificationAction", "Action received: " + actionId + " for notification: " + notificationId);
+            byte[] payload = intent.getByteArrayExtra(NotificationCodec.EXTRA_PAYLOAD);
+            boolean foreground = intent.getBooleanExtra(EXTRA_FOREGROUND, true);
             
-            // Abrir la app primero
-            openApp(context);
-            
-            // Notificar al plugin
-            ModernNotificationsPlugin.handleNotificationAction(actionId, notificationId, notificationData);
+            Log.d("NotificationAction", "Action received: " + actionId + " for notification: " + notificationId + (foreground ? "" : " (background)"));
+
+            Context appContext = context.getApplicationContext();
+            if (foreground) {
+                // Abrir la app primero; intents from older versions still come through here
+                openApp(context);
+            }
+
+            // Store lookups, the outbox commit and the latency record stay off the main thread
+            PendingResult pendingResult = goAsync();
+            executor.execute(() -> {
+                try {
+                    if (foreground) {
+                        // Notificar al plugin
+                        ModernNotificationsPlugin.handleNotificationAction(appContext, null, actionId, notificationId, payload);
+                        BackgroundActionHandler.getInstance(appContext).recordLatency(false, SystemClock.elapsedRealtime() - receivedAt);
+                    } else {
+                        // Handle natively, the app is not opened
+                        BackgroundActionHandler.getInstance(appContext).handle(notificationId, actionId, receivedAt);
+                    }
+                } finally {
+                    pendingResult.finish();
+                }
+            });
         }
     }
     
@@ -0,0 +1,527 @@
+package com.mycompany.plugins.noti.edu;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact, versioned binary encoding of a {@link NotificationSpec} for Intent extras.
+ *
+ * Layout: magic byte, version byte, zigzag varint id, varint field mask, then
+ * each present field in mask order. Strings are a varint byte length followed
+ * by UTF-8, integers are zigzag varints and colors are 4 fixed bytes. Unknown
+ * versions are rejected so a payload from a newer plugin is never misread.
+ *
+ * The {@code extra} payload can be left out, the receiver then reads it from
+ * the {@link NotificationStore} by id instead of carrying it through Binder.
+ */
+final class NotificationCodec {
+
+    /** Intent extra holding an encoded spec */
+    static final String EXTRA_PAYLOAD = "notificationPayload";
+
+    static final int MAGIC = 0x4E;
+    static final int VERSION = 1;
+
+    private static final int F_TITLE = 1;
+    private static final int F_BODY = 1 << 1;
+    private static final int F_SUB_TEXT = 1 << 2;
+    private static final int F_LARGE_ICON = 1 << 3;
+    private static final int F_SMALL_ICON = 1 << 4;
+    private static final int F_CHANNEL_ID = 1 << 5;
+    private static final int F_SOUND = 1 << 6;
+    private static final int F_BADGE = 1 << 7;
+    private static final int F_PRIORITY = 1 << 8;
+    private static final int F_IMPORTANCE = 1 << 9;
+    private static final int F_AUTO_CANCEL = 1 << 10;
+    private static final int F_ONGOING = 1 << 11;
+    private static final int F_SHOW_WHEN = 1 << 12;
+    private static final int F_WHEN = 1 << 13;
+    private static final int F_EXTRA = 1 << 14;
+    private static final int F_SCHEDULE = 1 << 15;
+    private static final int F_ACTIONS = 1 << 16;
+    private static final int F_PROGRESS = 1 << 17;
+    private static final int F_GROUP = 1 << 18;
+
+    private static final int A_ID = 1;
+    private static final int A_TITLE = 1 << 1;
+    private static final int A_ICON = 1 << 2;
+    private static final int A_AUTH = 1 << 3;
+    private static final int A_BACKGROUND = 1 << 4;
+    private static final int A_BEHAVIOR = 1 << 5;
+    private static final int A_SNOOZE = 1 << 6;
+    private static final int A_PROGRESS = 1 << 7;
+
+    private static final int P_INDETERMINATE = 1;
+    private static final int P_STYLED = 1 << 1;
+    private static final int P_TRACKER_ICON = 1 << 2;
+    private static final int P_START_ICON = 1 << 3;
+    private static final int P_END_ICON = 1 << 4;
+    private static final int P_SEGMENTS = 1 << 5;
+    private static final int P_POINTS = 1 << 6;
+
+    private NotificationCodec() {}
+
+    /**
+     * @param spec Notification to encode
+     * @param includeExtra Whether to carry the {@code extra} JSON, usually left to the store
+     * @return Encoded bytes
+     */
+    static byte[] encode(NotificationSpec spec, boolean includeExtra) {
+        Writer out = new Writer();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeSignedVarint(spec.id);
+
+        String extraJson = includeExtra ? spec.extraJson : null;
+        int mask = 0;
+        mask |= spec.title != null ? F_TITLE : 0;
+        mask |= spec.body != null ? F_BODY : 0;
+        mask |= spec.subText != null ? F_SUB_TEXT : 0;
+        mask |= spec.largeIcon != null ? F_LARGE_ICON : 0;
+        mask |= spec.smallIcon != null ? F_SMALL_ICON : 0;
+        mask |= spec.channelId != null ? F_CHANNEL_ID : 0;
+        mask |= spec.sound != null ? F_SOUND : 0;
+        mask |= spec.badge != null ? F_BADGE : 0;
+        mask |= spec.priority != null ? F_PRIORITY : 0;
+        mask |= spec.importance != null ? F_IMPORTANCE : 0;
+        mask |= spec.autoCancel != null ? F_AUTO_CANCEL : 0;
+        mask |= spec.ongoing != null ? F_ONGOING : 0;
+        mask |= spec.showWhen != null ? F_SHOW_WHEN : 0;
+        mask |= spec.when != null ? F_WHEN : 0;
+        mask |= extraJson != null ? F_EXTRA : 0;
+        mask |= spec.scheduleJson != null ? F_SCHEDULE : 0;
+        mask |= spec.hasActions() ? F_ACTIONS : 0;
+        mask |= spec.progress != null ? F_PROGRESS : 0;
+        mask |= spec.group != null ? F_GROUP : 0;
+        out.writeVarint(mask);
+
+        if (spec.title != null) {
+            out.writeString(spec.title);
+        }
+        if (spec.body != null) {
+            out.writeString(spec.body);
+        }
+        if (spec.subText != null) {
+            out.writeString(spec.subText);
+        }
+        if (spec.largeIcon != null) {
+            out.writeString(spec.largeIcon);
+        }
+        if (spec.smallIcon != null) {
+            out.writeString(spec.smallIcon);
+        }
+        if (spec.channelId != null) {
+            out.writeString(spec.channelId);
+        }
+        if (spec.sound != null) {
+            out.writeString(spec.sound);
+        }
+        if (spec.badge != null) {
+            out.writeSignedVarint(spec.badge);
+        }
+        if (spec.priority != null) {
+            out.writeString(spec.priority);
+        }
+        if (spec.importance != null) {
+            out.writeString(spec.importance);
+        }
+        if (spec.autoCancel != null) {
+            out.writeByte(spec.autoCancel ? 1 : 0);
+        }
+        if (spec.ongoing != null) {
+            out.writeByte(spec.ongoing ? 1 : 0);
+        }
+        if (spec.showWhen != null) {
+            out.writeByte(spec.showWhen ? 1 : 0);
+        }
+        if (spec.when != null) {
+            out.writeString(spec.when);
+        }
+        if (extraJson != null) {
+            out.writeString(extraJson);
+        }
+        if (spec.scheduleJson != null) {
+            out.writeString(spec.scheduleJson);
+        }
+        if (spec.hasActions()) {
+            out.writeVarint(spec.actions.size());
+            for (NotificationSpec.ActionSpec action : spec.actions) {
+                int actionMask = (action.id != null ? A_ID : 0)
+                    | (action.title != null ? A_TITLE : 0)
+                    | (action.icon != null ? A_ICON : 0)
+                    | (action.requiresAuthentication ? A_AUTH : 0)
+                    | (action.foreground ? 0 : A_BACKGROUND)
+                    | (action.backgroundAction != null ? A_BEHAVIOR : 0)
+                    | (action.snoozeMinutes != null ? A_SNOOZE : 0)
+                    | (action.progress != null ? A_PROGRESS : 0);
+                out.writeByte(actionMask);
+                if (action.id != null) {
+                    out.writeString(action.id);
+                }
+                if (action.title != null) {
+                    out.writeString(action.title);
+                }
+                if (action.icon != null) {
+                    out.writeString(action.icon);
+                }
+                if (action.backgroundAction != null) {
+                    out.writeString(action.backgroundAction);
+                }
+                if (action.snoozeMinutes != null) {
+                    out.writeSignedVarint(action.snoozeMinutes);
+                }
+                if (action.progress != null) {
+                    out.writeSignedVarint(action.progress);
+                }
+            }
+        }
+        if (spec.progress != null) {
+            writeProgress(out, spec.progress);
+        }
+        if (spec.group != null) {
+            out.writeString(spec.group);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param data Bytes produced by {@link #encode(NotificationSpec, boolean)}
+     * @return Decoded spec
+     * @throws IllegalArgumentException if the data is truncated, corrupt or from an unknown version
+     */
+    static NotificationSpec decode(byte[] data) {
+        if (data == null) {
+            throw new IllegalArgumentException("No payload");
+        }
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not a notification payload");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported payload version " + version);
+        }
+        NotificationSpec.Builder builder = new NotificationSpec.Builder(in.readSignedVarint());
+        int mask = in.readVarint();
+        if ((mask & F_TITLE) != 0) {
+            builder.setTitle(in.readString());
+        }
+        if ((mask & F_BODY) != 0) {
+            builder.setBody(in.readString());
+        }
+        if ((mask & F_SUB_TEXT) != 0) {
+            builder.setSubText(in.readString());
+        }
+        if ((mask & F_LARGE_ICON) != 0) {
+            builder.setLargeIcon(in.readString());
+        }
+        if ((mask & F_SMALL_ICON) != 0) {
+            builder.setSmallIcon(in.readString());
+        }
+        if ((mask & F_CHANNEL_ID) != 0) {
+            builder.setChannelId(in.readString());
+        }
+        if ((mask & F_SOUND) != 0) {
+            builder.setSound(in.readString());
+        }
+        if ((mask & F_BADGE) != 0) {
+            builder.setBadge(in.readSignedVarint());
+        }
+        if ((mask & F_PRIORITY) != 0) {
+            builder.setPriority(in.readString());
+        }
+        if ((mask & F_IMPORTANCE) != 0) {
+            builder.setImportance(in.readString());
+        }
+        if ((mask & F_AUTO_CANCEL) != 0) {
+            builder.setAutoCancel(in.readByte() != 0);
+        }
+        if ((mask & F_ONGOING) != 0) {
+            builder.setOngoing(in.readByte() != 0);
+        }
+        if ((mask & F_SHOW_WHEN) != 0) {
+            builder.setShowWhen(in.readByte() != 0);
+        }
+        if ((mask & F_WHEN) != 0) {
+            builder.setWhen(in.readString());
+        }
+        if ((mask & F_EXTRA) != 0) {
+            builder.setExtraJson(in.readString());
+        }
+        if ((mask & F_SCHEDULE) != 0) {
+            builder.setScheduleJson(in.readString());
+        }
+        if ((mask & F_ACTIONS) != 0) {
+            int count = in.readCount();
+            for (int i = 0; i < count; i++) {
+                int actionMask = in.readByte();
+                String id = (actionMask & A_ID) != 0 ? in.readString() : null;
+                String title = (actionMask & A_TITLE) != 0 ? in.readString() : null;
+                String icon = (actionMask & A_ICON) != 0 ? in.readString() : null;
+                String backgroundAction = (actionMask & A_BEHAVIOR) != 0 ? in.readString() : null;
+                Integer snoozeMinutes = (actionMask & A_SNOOZE) != 0 ? in.readSignedVarint() : null;
+                Integer progress = (actionMask & A_PROGRESS) != 0 ? in.readSignedVarint() : null;
+                builder.addAction(new NotificationSpec.ActionSpec(
+                    id,
+                    title,
+                    icon,
+                    (actionMask & A_AUTH) != 0,
+                    (actionMask & A_BACKGROUND) == 0,
+                    backgroundAction,
+                    snoozeMinutes,
+                    progress
+                ));
+            }
+        }
+        if ((mask & F_PROGRESS) != 0) {
+            builder.setProgress(readProgress(in));
+        }
+        if ((mask & F_GROUP) != 0) {
+            builder.setGroup(in.readString());
+        }
+        if (in.remaining() != 0) {
+            throw new IllegalArgumentException("Trailing bytes in payload");
+        }
+        return builder.build();
+    }
+
+    private static void writeProgress(Writer out, NotificationSpec.ProgressSpec progress) {
+        out.writeSignedVarint(progress.progress);
+        out.writeSignedVarint(progress.maxProgress);
+        int mask = 0;
+        mask |= progress.indeterminate != null ? P_INDETERMINATE : 0;
+        mask |= progress.styledByProgress != null ? P_STYLED : 0;
+        mask |= progress.trackerIcon != null ? P_TRACKER_ICON : 0;
+        mask |= progress.startIcon != null ? P_START_ICON : 0;
+        mask |= progress.endIcon != null ? P_END_ICON : 0;
+        mask |= progress.segments != null ? P_SEGMENTS : 0;
+        mask |= progress.points != null ? P_POINTS : 0;
+        out.writeVarint(mask);
+        if (progress.indeterminate != null) {
+            out.writeByte(progress.indeterminate ? 1 : 0);
+        }
+        if (progress.styledByProgress != null) {
+            out.writeByte(progress.styledByProgress ? 1 : 0);
+        }
+        if (progress.trackerIcon != null) {
+            out.writeString(progress.trackerIcon);
+        }
+        if (progress.startIcon != null) {
+            out.writeString(progress.startIcon);
+        }
+        if (progress.endIcon != null) {
+            out.writeString(progress.endIcon);
+        }
+        if (progress.segments != null) {
+            out.writeVarint(progress.segments.size());
+            for (NotificationSpec.Segment segment : progress.segments) {
+                out.writeSignedVarint(segment.length);
+                writeColor(out, segment.colorString, segment.color);
+            }
+        }
+        if (progress.points != null) {
+            out.writeVarint(progress.points.size());
+            for (NotificationSpec.Point point : progress.points) {
+                out.writeSignedVarint(point.position);
+                writeColor(out, point.colorString, point.color);
+                out.writeNullableString(point.icon);
+            }
+        }
+    }
+
+    private static NotificationSpec.ProgressSpec readProgress(Reader in) {
+        int progress = in.readSignedVarint();
+        int maxProgress = in.readSignedVarint();
+        int mask = in.readVarint();
+        Boolean indeterminate = (mask & P_INDETERMINATE) != 0 ? in.readByte() != 0 : null;
+        Boolean styledByProgress = (mask & P_STYLED) != 0 ? in.readByte() != 0 : null;
+        String trackerIcon = (mask & P_TRACKER_ICON) != 0 ? in.readString() : null;
+        String startIcon = (mask & P_START_ICON) != 0 ? in.readString() : null;
+        String endIcon = (mask & P_END_ICON) != 0 ? in.readString() : null;
+        List<NotificationSpec.Segment> segments = null;
+        if ((mask & P_SEGMENTS) != 0) {
+            int count = in.readCount();
+            segments = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int length = in.readSignedVarint();
+                String colorString = in.readNullableString();
+                segments.add(new NotificationSpec.Segment(length, colorString, readColor(in)));
+            }
+        }
+        List<NotificationSpec.Point> points = null;
+        if ((mask & P_POINTS) != 0) {
+            int count = in.readCount();
+            points = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int position = in.readSignedVarint();
+                String colorString = in.readNullableString();
+                Integer color = readColor(in);
+                points.add(new NotificationSpec.Point(position, colorString, color, in.readNullableString()));
+            }
+        }
+        return new NotificationSpec.ProgressSpec(
+            progress, maxProgress, indeterminate, styledByProgress, trackerIcon, startIcon, endIcon, segments, points
+        );
+    }
+
+    private static void writeColor(Writer out, String colorString, Integer color) {
+        out.writeNullableString(colorString);
+        if (color != null) {
+            out.writeByte(1);
+            out.writeInt(color);
+        } else {
+            out.writeByte(0);
+        }
+    }
+
+    private static Integer readColor(Reader in) {
+        return in.readByte() != 0 ? in.readInt() : null;
+    }
+
+    // ---- Primitives -----------------------------------------------------
+
+    private static final class Writer {
+
+        private byte[] buffer = new byte[128];
+        private int position;
+
+        void writeByte(int value) {
+            ensure(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensure(4);
+            buffer[position++] = (byte) (value >>> 24);
+            buffer[position++] = (byte) (value >>> 16);
+            buffer[position++] = (byte) (value >>> 8);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeSignedVarint(int value) {
+            writeVarint((value << 1) ^ (value >> 31));
+        }
+
+        void writeString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        /** Length is shifted by one so that 0 means null */
+        void writeNullableString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int remaining() {
+            return data.length - position;
+        }
+
+        int readByte() {
+            require(1);
+            return data[position++] & 0xFF;
+        }
+
+        int readInt() {
+            require(4);
+            int value = (data[position] & 0xFF) << 24
+                | (data[position + 1] & 0xFF) << 16
+                | (data[position + 2] & 0xFF) << 8
+                | (data[position + 3] & 0xFF);
+            position += 4;
+            return value;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        int readSignedVarint() {
+            int raw = readVarint();
+            return (raw >>> 1) ^ -(raw & 1);
+        }
+
+        /** A collection size, bounded by the bytes left so corrupt input cannot allocate huge lists */
+        int readCount() {
+            int count = readVarint();
+            if (count < 0 || count > remaining()) {
+                throw new IllegalArgumentException("Invalid element count " + count);
+            }
+            return count;
+        }
+
+        String readString() {
+            return readUtf8(readVarint());
+        }
+
+        String readNullableString() {
+            int length = readVarint();
+            return length == 0 ? null : readUtf8(length - 1);
+        }
+
+        private String readUtf8(int length) {
+            if (length < 0) {
+                throw new IllegalArgumentException("Invalid string length " + length);
+            }
+            require(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void require(int count) {
+            if (count > data.length - position) {
+                throw new IllegalArgumentException("Truncated payload");
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Delete intent target: the user swiped a notification away or cleared all.
+ * Records a {@code dismissed} event and drops the delivered entry.
+ */
+public class NotificationDismissReceiver extends BroadcastReceiver {
+
+    public static final String ACTION_NOTIFICATION_DISMISSED = "com.mycompany.plugins.noti.edu.NOTIFICATION_DISMISSED";
+
+    /** Store and outbox writes stay off the main thread */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+        SchedulePipeline.namedThreads("ModernNotifications-dismiss")
+    );
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACTION_NOTIFICATION_DISMISSED.equals(intent.getAction())) {
+            return;
+        }
+        int notificationId = intent.getIntExtra("notificationId", -1);
+        Log.d("NotificationDismiss", "Notification dismissed: " + notificationId);
+
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        executor.execute(() -> {
+            try {
+                ModernNotificationsPlugin.handleNotificationDismissed(appContext, notificationId);
+            } catch (Exception e) {
+                Log.e("NotificationDismiss", "Error handling dismissal of " + notificationId, e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+}
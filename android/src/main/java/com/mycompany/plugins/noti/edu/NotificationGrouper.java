@@ -0,0 +1,459 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.Typeface;
+import android.service.notification.StatusBarNotification;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bundles bursts of notifications under one summary per group.
+ *
+ * Grouping is opt-in: members get a group key when rendered from their
+ * explicit {@code group}, or from their channel when {@code groupByChannel}
+ * is set. Once a group has {@link #getThreshold()} members shown, a summary
+ * with an InboxStyle of the latest lines is posted next to them. Adding or
+ * removing a member only re-posts that summary, silently; members are never
+ * re-posted. The summary is cancelled when the group drops below the
+ * threshold.
+ *
+ * Changes made between {@link #beginBatch()} and {@link #endBatch()} are
+ * folded into one summary post per group, so a wakeup delivering 200
+ * notifications posts each summary once. Outside a batch the summary is
+ * posted synchronously by the caller, never from a timer that a cold
+ * receiver's process may not live to run.
+ *
+ * Summaries are tagged with {@link #SUMMARY_TAG_PREFIX} and their key, so
+ * they never clash with the untagged ids apps choose. Membership lives in
+ * memory and is seeded on first use in a new process from the active
+ * notifications this class grouped, recognised by {@link #EXTRA_GROUP}.
+ */
+class NotificationGrouper {
+
+    private static final String TAG = "NotificationGrouper";
+
+    /** Summaries are tagged with this plus their group key */
+    static final String SUMMARY_TAG_PREFIX = "modern_notifications.group:";
+    private static final int SUMMARY_ID = 0;
+
+    /** Set on members to the group key assigned here, so seeding skips groups owned by other code */
+    static final String EXTRA_GROUP = "com.mycompany.plugins.noti.edu.GROUP";
+
+    static final int DEFAULT_THRESHOLD = 4;
+
+    private static final int MAX_LINES = 5;
+    private static final String CHANNEL_KEY_PREFIX = "channel:";
+    private static final String COUNT_PLACEHOLDER = "{count}";
+    private static final String DEFAULT_SUMMARY_TITLE = COUNT_PLACEHOLDER + " notifications";
+
+    private static final String PREFS_NAME = "modern_notifications";
+    private static final String PREF_THRESHOLD = "groupSummaryThreshold";
+    private static final String PREF_BY_CHANNEL = "groupByChannel";
+    private static final String PREF_SUMMARY_TITLE = "groupSummaryTitle";
+
+    private static NotificationGrouper sharedInstance;
+
+    /** Members of one group, oldest first */
+    private static final class Group {
+        final String key;
+        final LinkedHashMap<Integer, CharSequence> lines = new LinkedHashMap<>();
+        String channelId;
+        boolean summaryShown;
+
+        Group(String key) {
+            this.key = key;
+        }
+    }
+
+    /** Summary change taken under the lock and sent to the system outside it */
+    private static final class SummaryPost {
+        final String key;
+        final String channelId;
+        final String title;
+        final List<CharSequence> lines;
+        final int count;
+        final boolean cancel;
+
+        SummaryPost(String key, String channelId, String title, List<CharSequence> lines, int count, boolean cancel) {
+            this.key = key;
+            this.channelId = channelId;
+            this.title = title;
+            this.lines = lines;
+            this.count = count;
+            this.cancel = cancel;
+        }
+    }
+
+    private final Context context;
+    private final SharedPreferences prefs;
+    private final NotificationManagerCompat notificationManager;
+
+    /** Held while summaries are posted so they reach the system in the order they were taken */
+    private final Object postLock = new Object();
+
+    // Guarded by this
+    private final Map<String, Group> groups = new HashMap<>();
+    private final Map<Integer, String> groupOf = new HashMap<>();
+    private final Set<Group> dirty = new LinkedHashSet<>();
+    private int batchDepth;
+    private boolean seeded;
+    private int threshold;
+    private boolean byChannel;
+    private String summaryTitle;
+
+    private long summariesPosted;
+    private long summaryUpdates;
+    private long summariesCancelled;
+    private long coalescedUpdates;
+
+    static synchronized NotificationGrouper getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new NotificationGrouper(context.getApplicationContext());
+        }
+        return sharedInstance;
+    }
+
+    private NotificationGrouper(Context context) {
+        this.context = context;
+        this.prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.notificationManager = NotificationManagerCompat.from(context);
+        this.threshold = prefs.getInt(PREF_THRESHOLD, DEFAULT_THRESHOLD);
+        this.byChannel = prefs.getBoolean(PREF_BY_CHANNEL, false);
+        this.summaryTitle = prefs.getString(PREF_SUMMARY_TITLE, DEFAULT_SUMMARY_TITLE);
+    }
+
+    /**
+     * Configure grouping. Persisted so receivers in a cold process group the same way.
+     * @param threshold Members needed before a summary is shown, 0 turns grouping off
+     * @param byChannel Whether notifications without a {@code group} are grouped by channel
+     * @param summaryTitle Summary title, {@code {count}} is replaced by the number of members
+     */
+    void configure(int threshold, boolean byChannel, String summaryTitle) {
+        int clamped = Math.max(0, threshold);
+        String title = summaryTitle == null || summaryTitle.isEmpty() ? DEFAULT_SUMMARY_TITLE : summaryTitle;
+        synchronized (this) {
+            if (clamped == this.threshold && byChannel == this.byChannel && title.equals(this.summaryTitle)) {
+                return;
+            }
+            this.threshold = clamped;
+            this.byChannel = byChannel;
+            this.summaryTitle = title;
+            prefs.edit()
+                .putInt(PREF_THRESHOLD, clamped)
+                .putBoolean(PREF_BY_CHANNEL, byChannel)
+                .putString(PREF_SUMMARY_TITLE, title)
+                .apply();
+            dirty.addAll(groups.values());
+        }
+        flushDirty();
+    }
+
+    synchronized int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return Group key to render the notification with, or null to leave it ungrouped
+     */
+    synchronized String groupKey(NotificationSpec spec) {
+        // Progress notifications update in place and use their own styles
+        if (threshold == 0 || spec.progress != null) {
+            return null;
+        }
+        if (spec.group != null) {
+            return spec.group;
+        }
+        return byChannel ? CHANNEL_KEY_PREFIX + spec.getChannelId() : null;
+    }
+
+    /**
+     * Defer summary posts until the matching {@link #endBatch()}
+     */
+    synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    void endBatch() {
+        synchronized (this) {
+            if (batchDepth == 0 || --batchDepth > 0) {
+                return;
+            }
+        }
+        flushDirty();
+    }
+
+    /**
+     * Record a member that was just posted, or its new content after an update
+     */
+    void added(NotificationSpec spec) {
+        String key = groupKey(spec);
+        synchronized (this) {
+            if (key == null && groupOf.isEmpty() && !seeded) {
+                return;
+            }
+            seedIfNeeded();
+            String previousKey = groupOf.get(spec.id);
+            if (previousKey != null && !previousKey.equals(key)) {
+                removeMember(spec.id);
+            }
+            if (key != null) {
+                Group group = groups.get(key);
+                if (group == null) {
+                    group = new Group(key);
+                    groups.put(key, group);
+                }
+                CharSequence line = line(spec.title, spec.body);
+                CharSequence previous = group.lines.put(spec.id, line);
+                group.channelId = spec.getChannelId();
+                groupOf.put(spec.id, key);
+                if (previous == null || !previous.toString().equals(line.toString())) {
+                    markDirty(group);
+                }
+            }
+        }
+        flushDirty();
+    }
+
+    /**
+     * Drop a member that was cancelled or dismissed
+     */
+    void removed(int id) {
+        synchronized (this) {
+            removeMember(id);
+        }
+        flushDirty();
+    }
+
+    /**
+     * Forget every member; their summaries are cancelled along with them by cancelAll
+     */
+    synchronized void clear() {
+        groups.clear();
+        groupOf.clear();
+        dirty.clear();
+    }
+
+    synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("threshold", threshold);
+        stats.put("groups", groups.size());
+        stats.put("groupedMembers", groupOf.size());
+        int summaries = 0;
+        for (Group group : groups.values()) {
+            summaries += group.summaryShown ? 1 : 0;
+        }
+        stats.put("summariesShown", summaries);
+        stats.put("summariesPosted", summariesPosted);
+        stats.put("summaryUpdates", summaryUpdates);
+        stats.put("summariesCancelled", summariesCancelled);
+        stats.put("coalescedUpdates", coalescedUpdates);
+        return stats;
+    }
+
+    // ---- Membership -----------------------------------------------------
+
+    private void removeMember(int id) {
+        seedIfNeeded();
+        String key = groupOf.remove(id);
+        if (key == null) {
+            return;
+        }
+        Group group = groups.get(key);
+        if (group != null && group.lines.remove(id) != null) {
+            markDirty(group);
+        }
+    }
+
+    private void markDirty(Group group) {
+        if (!dirty.add(group)) {
+            coalescedUpdates++;
+        }
+    }
+
+    /**
+     * Pick up members this class grouped that are still shown from before this
+     * process started, and their summaries
+     */
+    private void seedIfNeeded() {
+        if (seeded) {
+            return;
+        }
+        seeded = true;
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager == null) {
+            return;
+        }
+        try {
+            List<StatusBarNotification> summaries = new ArrayList<>();
+            for (StatusBarNotification sbn : manager.getActiveNotifications()) {
+                Notification notification = sbn.getNotification();
+                String key = notification.getGroup();
+                if (key == null) {
+                    continue;
+                }
+                if (sbn.getTag() != null && sbn.getTag().equals(SUMMARY_TAG_PREFIX + key)) {
+                    summaries.add(sbn);
+                    continue;
+                }
+                // Only members grouped here; FCM and other code may use their own groups
+                if (sbn.getTag() != null
+                    || !key.equals(notification.extras.getString(EXTRA_GROUP))
+                    || groupOf.containsKey(sbn.getId())) {
+                    continue;
+                }
+                Group group = groups.get(key);
+                if (group == null) {
+                    group = new Group(key);
+                    groups.put(key, group);
+                }
+                group.lines.put(sbn.getId(), line(
+                    notification.extras.getCharSequence(Notification.EXTRA_TITLE),
+                    notification.extras.getCharSequence(Notification.EXTRA_TEXT)
+                ));
+                group.channelId = NotificationCompat.getChannelId(notification);
+                groupOf.put(sbn.getId(), key);
+            }
+            for (StatusBarNotification sbn : summaries) {
+                Group group = groups.get(sbn.getNotification().getGroup());
+                if (group != null) {
+                    group.summaryShown = true;
+                } else {
+                    // Our summary outlived its members, e.g. after a crash
+                    notificationManager.cancel(sbn.getTag(), sbn.getId());
+                }
+            }
+            Log.d(TAG, "🧩 Seeded " + groupOf.size() + " grouped notifications in " + groups.size() + " groups");
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Cannot read active notifications", e);
+        }
+    }
+
+    private static CharSequence line(CharSequence title, CharSequence body) {
+        SpannableStringBuilder line = new SpannableStringBuilder();
+        if (title != null && title.length() > 0) {
+            line.append(title.toString());
+            line.setSpan(new StyleSpan(Typeface.BOLD), 0, line.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            if (body != null && body.length() > 0) {
+                line.append("  ");
+            }
+        }
+        if (body != null) {
+            line.append(body.toString());
+        }
+        return line;
+    }
+
+    // ---- Summaries ------------------------------------------------------
+
+    /**
+     * Post or cancel the summaries of changed groups, unless a batch is open.
+     * The state is taken under the lock, the system calls are made outside it.
+     */
+    private void flushDirty() {
+        synchronized (postLock) {
+            List<SummaryPost> posts;
+            synchronized (this) {
+                if (batchDepth > 0 || dirty.isEmpty()) {
+                    return;
+                }
+                posts = new ArrayList<>(dirty.size());
+                for (Group group : dirty) {
+                    SummaryPost post = take(group);
+                    if (post != null) {
+                        posts.add(post);
+                    }
+                }
+                dirty.clear();
+            }
+            for (SummaryPost post : posts) {
+                try {
+                    if (post.cancel) {
+                        notificationManager.cancel(SUMMARY_TAG_PREFIX + post.key, SUMMARY_ID);
+                    } else {
+                        notificationManager.notify(SUMMARY_TAG_PREFIX + post.key, SUMMARY_ID, buildSummary(post));
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "Error posting summary for " + post.key, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return What to send for the group now, or null if its summary stays as it is
+     */
+    private SummaryPost take(Group group) {
+        int count = group.lines.size();
+        if (threshold == 0 || count < threshold) {
+            if (count == 0 && groups.get(group.key) == group) {
+                groups.remove(group.key);
+            }
+            if (!group.summaryShown) {
+                return null;
+            }
+            group.summaryShown = false;
+            summariesCancelled++;
+            return new SummaryPost(group.key, null, null, null, count, true);
+        }
+        if (group.summaryShown) {
+            summaryUpdates++;
+        } else {
+            summariesPosted++;
+            Log.d(TAG, "🧩 Grouping " + count + " notifications under " + group.key);
+        }
+        group.summaryShown = true;
+        // Newest first, like the members below it
+        List<CharSequence> lines = new ArrayList<>(Math.min(count, MAX_LINES));
+        List<CharSequence> all = new ArrayList<>(group.lines.values());
+        for (int i = all.size() - 1; i >= 0 && i >= all.size() - MAX_LINES; i--) {
+            lines.add(all.get(i));
+        }
+        return new SummaryPost(
+            group.key,
+            group.channelId != null ? group.channelId : ModernNotificationsPlugin.DEFAULT_CHANNEL_ID,
+            summaryTitle.replace(COUNT_PLACEHOLDER, String.valueOf(count)),
+            lines,
+            count,
+            false
+        );
+    }
+
+    private Notification buildSummary(SummaryPost post) {
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle().setBigContentTitle(post.title);
+        for (CharSequence line : post.lines) {
+            style.addLine(line);
+        }
+        if (post.count > MAX_LINES) {
+            style.setSummaryText("+" + (post.count - MAX_LINES));
+        }
+        return new NotificationCompat.Builder(context, post.channelId)
+            .setContentTitle(post.title)
+            .setContentText(post.lines.get(0))
+            .setSmallIcon(ResourceResolver.getInstance(context).defaultIcon())
+            .setStyle(style)
+            .setNumber(post.count)
+            .setGroup(post.key)
+            .setGroupSummary(true)
+            .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+            .setOnlyAlertOnce(true)
+            .build();
+    }
+}
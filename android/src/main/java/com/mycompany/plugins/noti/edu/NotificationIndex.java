@@ -0,0 +1,356 @@
+package com.mycompany.plugins.noti.edu;
+
+import com.getcapacitor.JSObject;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Secondary indices over {@link NotificationStore} entries for paged queries.
+ *
+ * Entries are kept sorted by (time, id) and by id, and grouped by channel,
+ * group and extra key; the time is the trigger time for pending entries and
+ * the delivery time for delivered ones. A pending recurring entry whose last
+ * occurrence is still shown matches both states, by its next trigger time. A query starts from the smallest
+ * matching group when that is much smaller than the store, otherwise it walks
+ * the sorted order from the cursor and stops at the page size, so a page
+ * costs about its own size. Maintained by the store under its lock.
+ */
+class NotificationIndex {
+
+    static final String SORT_TIME = "time";
+    static final String SORT_ID = "id";
+
+    /** Collect-and-sort a group instead of walking the order when it is this much smaller */
+    private static final int SELECTIVE_RATIO = 4;
+
+    /**
+     * One query; null fields do not filter
+     */
+    static final class Query {
+
+        Integer state;
+        String channelId;
+        String group;
+        Long from;
+        Long to;
+        String extraKey;
+        /** Compared to the extra value as a string; needs {@link #extraKey} */
+        String extraValue;
+        String sortBy = SORT_TIME;
+        boolean descending;
+        int limit = 50;
+        String cursor;
+        /** Top-level fields to return, null for the whole notification */
+        List<String> fields;
+    }
+
+    static final class Page {
+
+        final List<JSObject> notifications;
+        /** Cursor of the next page, null on the last one */
+        final String nextCursor;
+
+        Page(List<JSObject> notifications, String nextCursor) {
+            this.notifications = notifications;
+            this.nextCursor = nextCursor;
+        }
+    }
+
+    private static final class Key {
+
+        final long time;
+        final int id;
+
+        Key(long time, int id) {
+            this.time = time;
+            this.id = id;
+        }
+    }
+
+    private static final Comparator<Key> BY_TIME = (a, b) -> a.time != b.time ? Long.compare(a.time, b.time) : Integer.compare(a.id, b.id);
+    private static final Comparator<Key> BY_ID = (a, b) -> Integer.compare(a.id, b.id);
+
+    private static final class Indexed {
+
+        final NotificationStore.Entry entry;
+        final Key key;
+        final String channelId;
+        final String group;
+        final Set<String> extraKeys;
+
+        Indexed(NotificationStore.Entry entry) {
+            this.entry = entry;
+            this.key = new Key(entry.triggerAt, entry.id);
+            JSObject notification = entry.getNotification();
+            this.channelId = NotificationSpec.string(notification, "channelId");
+            this.group = NotificationSpec.string(notification, "group");
+            JSONObject extra = notification.optJSONObject("extra");
+            if (extra == null || extra.length() == 0) {
+                this.extraKeys = Collections.emptySet();
+            } else {
+                this.extraKeys = new HashSet<>();
+                Iterator<String> keys = extra.keys();
+                while (keys.hasNext()) {
+                    extraKeys.add(keys.next());
+                }
+            }
+        }
+    }
+
+    private final Map<Integer, Indexed> byIdMap = new HashMap<>();
+    private final NavigableSet<Key> byTime = new TreeSet<>(BY_TIME);
+    private final NavigableSet<Key> byId = new TreeSet<>(BY_ID);
+    private final Map<Integer, Set<Integer>> byState = new HashMap<>();
+    private final Map<String, Set<Integer>> byChannel = new HashMap<>();
+    private final Map<String, Set<Integer>> byGroup = new HashMap<>();
+    private final Map<String, Set<Integer>> byExtraKey = new HashMap<>();
+
+    NotificationIndex(Collection<NotificationStore.Entry> entries) {
+        for (NotificationStore.Entry entry : entries) {
+            add(entry);
+        }
+    }
+
+    void add(NotificationStore.Entry entry) {
+        remove(entry.id);
+        Indexed indexed = new Indexed(entry);
+        byIdMap.put(entry.id, indexed);
+        byTime.add(indexed.key);
+        byId.add(indexed.key);
+        link(byState, entry.state, entry.id);
+        if (entry.shownAt > 0) {
+            link(byState, NotificationStore.STATE_DELIVERED, entry.id);
+        }
+        link(byChannel, indexed.channelId, entry.id);
+        link(byGroup, indexed.group, entry.id);
+        for (String extraKey : indexed.extraKeys) {
+            link(byExtraKey, extraKey, entry.id);
+        }
+    }
+
+    void remove(int id) {
+        Indexed indexed = byIdMap.remove(id);
+        if (indexed == null) {
+            return;
+        }
+        byTime.remove(indexed.key);
+        byId.remove(indexed.key);
+        unlink(byState, indexed.entry.state, id);
+        if (indexed.entry.shownAt > 0) {
+            unlink(byState, NotificationStore.STATE_DELIVERED, id);
+        }
+        unlink(byChannel, indexed.channelId, id);
+        unlink(byGroup, indexed.group, id);
+        for (String extraKey : indexed.extraKeys) {
+            unlink(byExtraKey, extraKey, id);
+        }
+    }
+
+    void removeAll(Collection<Integer> ids) {
+        for (int id : new ArrayList<>(ids)) {
+            remove(id);
+        }
+    }
+
+    Page query(Query query) {
+        Comparator<Key> order = SORT_ID.equals(query.sortBy) ? BY_ID : BY_TIME;
+        if (query.descending) {
+            order = order.reversed();
+        }
+        Key after = parseCursor(query.cursor, query.sortBy);
+
+        Set<Integer> candidates = smallestGroup(query);
+        Iterator<Key> keys;
+        if (candidates != null && (long) candidates.size() * SELECTIVE_RATIO < byIdMap.size()) {
+            // Selective filter: sort only the group
+            List<Key> sorted = new ArrayList<>(candidates.size());
+            for (int id : candidates) {
+                sorted.add(byIdMap.get(id).key);
+            }
+            sorted.sort(order);
+            keys = sorted.iterator();
+        } else {
+            keys = walk(query, after);
+        }
+
+        List<JSObject> page = new ArrayList<>(Math.min(query.limit, 256));
+        Key last = null;
+        boolean more = false;
+        while (keys.hasNext()) {
+            Key key = keys.next();
+            if (after != null && order.compare(key, after) <= 0) {
+                continue;
+            }
+            Indexed indexed = byIdMap.get(key.id);
+            if (!matches(query, indexed)) {
+                continue;
+            }
+            if (page.size() == query.limit) {
+                more = true;
+                break;
+            }
+            page.add(project(indexed.entry, query.fields));
+            last = key;
+        }
+        return new Page(page, more ? cursor(last, query.sortBy) : null);
+    }
+
+    private Set<Integer> smallestGroup(Query query) {
+        Set<Integer> smallest = null;
+        if (query.state != null) {
+            smallest = group(byState, query.state);
+        }
+        if (query.channelId != null) {
+            smallest = smaller(smallest, group(byChannel, query.channelId));
+        }
+        if (query.group != null) {
+            smallest = smaller(smallest, group(byGroup, query.group));
+        }
+        if (query.extraKey != null) {
+            smallest = smaller(smallest, group(byExtraKey, query.extraKey));
+        }
+        return smallest;
+    }
+
+    /**
+     * Keys in query order starting after the cursor, bounded by the time range when sorting by time
+     */
+    private Iterator<Key> walk(Query query, Key after) {
+        NavigableSet<Key> set;
+        if (SORT_ID.equals(query.sortBy)) {
+            set = byId;
+            if (after != null) {
+                set = query.descending ? set.headSet(after, false) : set.tailSet(after, false);
+            }
+        } else {
+            Key low = new Key(query.from != null ? query.from : Long.MIN_VALUE, Integer.MIN_VALUE);
+            Key high = new Key(query.to != null ? query.to : Long.MAX_VALUE, Integer.MAX_VALUE);
+            if (after != null) {
+                if (query.descending) {
+                    high = BY_TIME.compare(after, high) < 0 ? after : high;
+                } else {
+                    low = BY_TIME.compare(after, low) > 0 ? after : low;
+                }
+            }
+            if (BY_TIME.compare(low, high) > 0) {
+                return Collections.emptyIterator();
+            }
+            set = byTime.subSet(low, true, high, true);
+        }
+        return query.descending ? set.descendingIterator() : set.iterator();
+    }
+
+    private static boolean outOfRange(Query query, long time) {
+        return (query.from != null && time < query.from) || (query.to != null && time > query.to);
+    }
+
+    private static boolean matches(Query query, Indexed indexed) {
+        if (query.state != null && !indexed.entry.isIn(query.state)) {
+            return false;
+        }
+        if (query.channelId != null && !query.channelId.equals(indexed.channelId)) {
+            return false;
+        }
+        if (query.group != null && !query.group.equals(indexed.group)) {
+            return false;
+        }
+        if (outOfRange(query, indexed.key.time)) {
+            return false;
+        }
+        if (query.extraKey != null) {
+            if (!indexed.extraKeys.contains(query.extraKey)) {
+                return false;
+            }
+            if (query.extraValue != null) {
+                JSONObject extra = indexed.entry.getNotification().optJSONObject("extra");
+                Object value = extra != null ? extra.opt(query.extraKey) : null;
+                if (value == null || !query.extraValue.equals(String.valueOf(value))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The stored object itself when no projection is asked for, so untouched entries are never copied
+     */
+    private static JSObject project(NotificationStore.Entry entry, List<String> fields) {
+        JSObject notification = entry.getNotification();
+        if (fields == null) {
+            return notification;
+        }
+        JSObject projected = new JSObject();
+        projected.put("id", entry.id);
+        for (String field : fields) {
+            Object value = notification.opt(field);
+            if (value != null) {
+                projected.put(field, value);
+            }
+        }
+        return projected;
+    }
+
+    private static String cursor(Key key, String sortBy) {
+        return SORT_ID.equals(sortBy) ? String.valueOf(key.id) : key.time + ":" + key.id;
+    }
+
+    /**
+     * @throws IllegalArgumentException for a cursor from another sort or not from this API
+     */
+    private static Key parseCursor(String cursor, String sortBy) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            if (SORT_ID.equals(sortBy)) {
+                return new Key(0, Integer.parseInt(cursor));
+            }
+            int colon = cursor.indexOf(':');
+            return new Key(Long.parseLong(cursor.substring(0, colon)), Integer.parseInt(cursor.substring(colon + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static <K> Set<Integer> group(Map<K, Set<Integer>> index, K key) {
+        Set<Integer> ids = index.get(key);
+        return ids != null ? ids : Collections.emptySet();
+    }
+
+    private static Set<Integer> smaller(Set<Integer> a, Set<Integer> b) {
+        return a == null || b.size() < a.size() ? b : a;
+    }
+
+    private static <K> void link(Map<K, Set<Integer>> index, K key, int id) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static <K> void unlink(Map<K, Set<Integer>> index, K key, int id) {
+        if (key == null) {
+            return;
+        }
+        Set<Integer> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.app.Notification;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.core.app.NotificationManagerCompat;
+
+import com.getcapacitor.JSObject;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Posts notifications to the system, skipping updates that would not change
+ * anything visible.
+ *
+ * For every shown id it keeps two fingerprints of the rendered content: one
+ * over the fields that should alert the user (title, text, channel, sound,
+ * priority) and one over everything else that is drawn (progress, segments,
+ * points, actions, icons, flags). An update with both fingerprints unchanged
+ * is suppressed before it is even rendered; one that only changes the silent
+ * part is posted with {@link Notification#FLAG_ONLY_ALERT_ONCE}. Suppressed
+ * posts do not count against the system's post rate limit.
+ *
+ * Every post carries a delete intent so dismissals reach
+ * {@link DeliveredTracker}. A large icon given as a URI is not waited for:
+ * the notification is posted without it and re-posted silently once
+ * {@link RemoteIconLoader} has it. Membership changes are passed to
+ * {@link NotificationGrouper}, which keeps the group summaries current.
+ */
+class NotificationPoster {
+
+    private static final String TAG = "NotificationPoster";
+
+    static final int RESULT_SUPPRESSED = 0;
+    static final int RESULT_SILENT = 1;
+    static final int RESULT_ALERTING = 2;
+    /** The caller's {@link Gate} no longer allowed the post, e.g. the notification was cancelled */
+    static final int RESULT_CANCELLED = 3;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Builds the notification only when a post is actually needed */
+    interface Render {
+        Notification render(NotificationSpec spec);
+    }
+
+    /**
+     * Last check before an update reaches the system. Called while holding the
+     * gate's own monitor, so whoever cancels under that monitor cannot race the post.
+     */
+    interface Gate {
+        boolean allows(int id);
+    }
+
+    private static NotificationPoster sharedInstance;
+
+    private final Context context;
+    private final NotificationManagerCompat notificationManager;
+    private final NotificationGrouper grouper;
+    private NotificationRenderer renderer;
+
+    // Guarded by this; [alerting, silent] per shown id
+    private final Map<Integer, long[]> fingerprints = new HashMap<>();
+    // Guarded by this; latest spec of notifications posted without their remote large icon
+    private final Map<Integer, NotificationSpec> awaitingIcon = new HashMap<>();
+    private long shown;
+    private long alerting;
+    private long silent;
+    private long suppressed;
+    private long iconUpgrades;
+
+    static synchronized NotificationPoster getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new NotificationPoster(context.getApplicationContext());
+        }
+        return sharedInstance;
+    }
+
+    private NotificationPoster(Context context) {
+        this.context = context;
+        this.notificationManager = NotificationManagerCompat.from(context);
+        this.grouper = NotificationGrouper.getInstance(context);
+    }
+
+    /**
+     * Show a notification as new; always posted and alerting
+     */
+    void show(NotificationSpec spec, Notification notification) {
+        attachDeleteIntent(spec.id, notification);
+        notificationManager.notify(spec.id, notification);
+        synchronized (this) {
+            fingerprints.put(spec.id, fingerprint(spec));
+            shown++;
+        }
+        grouper.added(spec);
+        upgradeWhenIconLoads(spec);
+    }
+
+    /**
+     * Re-post a shown notification if its visible content changed
+     * @return One of the {@code RESULT_} constants
+     */
+    int update(NotificationSpec spec, Render render) {
+        return update(spec, render, null);
+    }
+
+    /**
+     * @param gate Checked right before the post, null to always post
+     */
+    int update(NotificationSpec spec, Render render, Gate gate) {
+        long[] next = fingerprint(spec);
+        long[] previous;
+        synchronized (this) {
+            previous = fingerprints.get(spec.id);
+            if (previous != null && previous[0] == next[0] && previous[1] == next[1]) {
+                suppressed++;
+                return RESULT_SUPPRESSED;
+            }
+        }
+
+        // Unknown ids were shown before this process started; treat them as already seen
+        boolean alerts = previous != null && previous[0] != next[0];
+        Notification notification = render.render(spec);
+        if (!alerts) {
+            notification.flags |= Notification.FLAG_ONLY_ALERT_ONCE;
+        }
+        attachDeleteIntent(spec.id, notification);
+        if (gate == null) {
+            notificationManager.notify(spec.id, notification);
+        } else {
+            synchronized (gate) {
+                if (!gate.allows(spec.id)) {
+                    return RESULT_CANCELLED;
+                }
+                notificationManager.notify(spec.id, notification);
+            }
+        }
+
+        synchronized (this) {
+            fingerprints.put(spec.id, next);
+            if (alerts) {
+                alerting++;
+            } else {
+                silent++;
+            }
+        }
+        grouper.added(spec);
+        upgradeWhenIconLoads(spec);
+        return alerts ? RESULT_ALERTING : RESULT_SILENT;
+    }
+
+    /**
+     * Forget a notification that was cancelled, so showing it again is never suppressed,
+     * and release its action intents
+     */
+    void forget(int id) {
+        synchronized (this) {
+            fingerprints.remove(id);
+            awaitingIcon.remove(id);
+        }
+        // Outside the lock, this may re-post the group summary
+        grouper.removed(id);
+        ActionIntentPool.getInstance(context).invalidate(id);
+    }
+
+    void forgetAll() {
+        synchronized (this) {
+            fingerprints.clear();
+            awaitingIcon.clear();
+        }
+        grouper.clear();
+        ActionIntentPool.getInstance(context).invalidateAll();
+    }
+
+    synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("shown", shown);
+        stats.put("alertingUpdates", alerting);
+        stats.put("silentUpdates", silent);
+        stats.put("suppressed", suppressed);
+        stats.put("tracked", fingerprints.size());
+        stats.put("iconUpgrades", iconUpgrades);
+        stats.put("awaitingIcons", awaitingIcon.size());
+        return stats;
+    }
+
+    /**
+     * Route dismissals to {@link NotificationDismissReceiver} so the delivered index follows swipes
+     */
+    private void attachDeleteIntent(int id, Notification notification) {
+        if (notification.deleteIntent == null) {
+            notification.deleteIntent = DeliveredTracker.getInstance(context).deleteIntent(id);
+        }
+    }
+
+    // ---- Remote large icons ---------------------------------------------
+
+    private void upgradeWhenIconLoads(NotificationSpec spec) {
+        if (!RemoteIconLoader.isRemote(spec.largeIcon) || !renderer().usesLargeIcon(spec)) {
+            return;
+        }
+        RemoteIconLoader loader = RemoteIconLoader.getInstance(context);
+        if (loader.peek(spec.largeIcon) != null) {
+            return;
+        }
+        NotificationSpec previous;
+        synchronized (this) {
+            previous = awaitingIcon.put(spec.id, spec);
+        }
+        if (previous == null || !spec.largeIcon.equals(previous.largeIcon)) {
+            loader.load(spec.largeIcon, (uri, bitmap) -> upgrade(spec.id, uri, bitmap));
+        }
+    }
+
+    /**
+     * Re-post the latest content of a notification with the icon that just loaded
+     */
+    private void upgrade(int id, String uri, Bitmap bitmap) {
+        NotificationSpec spec;
+        synchronized (this) {
+            spec = awaitingIcon.get(id);
+            if (spec == null || !uri.equals(spec.largeIcon)) {
+                return;
+            }
+            awaitingIcon.remove(id);
+        }
+        if (bitmap == null) {
+            return;
+        }
+        try {
+            Notification notification = renderer().render(spec);
+            notification.flags |= Notification.FLAG_ONLY_ALERT_ONCE;
+            attachDeleteIntent(id, notification);
+            synchronized (this) {
+                // Skip if the content changed or the notification was cancelled meanwhile
+                if (!Arrays.equals(fingerprints.get(id), fingerprint(spec))) {
+                    return;
+                }
+                notificationManager.notify(id, notification);
+                iconUpgrades++;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error posting large icon for " + id, e);
+        }
+    }
+
+    private synchronized NotificationRenderer renderer() {
+        if (renderer == null) {
+            renderer = new NotificationRenderer(context);
+        }
+        return renderer;
+    }
+
+    // ---- Fingerprints ---------------------------------------------------
+
+    static long[] fingerprint(NotificationSpec spec) {
+        long alert = FNV_OFFSET;
+        alert = mix(alert, spec.getTitle());
+        alert = mix(alert, spec.getBody());
+        alert = mix(alert, spec.subText);
+        alert = mix(alert, spec.getChannelId());
+        alert = mix(alert, spec.sound);
+        alert = mix(alert, spec.getPriority());
+
+        long quiet = FNV_OFFSET;
+        quiet = mix(quiet, spec.largeIcon);
+        quiet = mix(quiet, spec.smallIcon);
+        quiet = mix(quiet, spec.isAutoCancel() ? 1 : 0);
+        quiet = mix(quiet, spec.ongoing == null ? -1 : spec.ongoing ? 1 : 0);
+        quiet = mix(quiet, spec.showWhen == null ? -1 : spec.showWhen ? 1 : 0);
+        quiet = mix(quiet, spec.when);
+        quiet = mix(quiet, spec.group);
+        quiet = mix(quiet, spec.badge == null ? -1 : spec.badge);
+        for (NotificationSpec.ActionSpec action : spec.actions) {
+            quiet = mix(quiet, action.id);
+            quiet = mix(quiet, action.title);
+            quiet = mix(quiet, action.icon);
+            quiet = mix(quiet, action.foreground ? 1 : 0);
+        }
+        quiet = mix(quiet, spec.actions.size());
+
+        NotificationSpec.ProgressSpec progress = spec.progress;
+        if (progress != null) {
+            quiet = mix(quiet, progress.progress);
+            quiet = mix(quiet, progress.maxProgress);
+            quiet = mix(quiet, progress.isIndeterminate() ? 1 : 0);
+            quiet = mix(quiet, progress.isStyledByProgress() ? 1 : 0);
+            quiet = mix(quiet, progress.trackerIcon);
+            quiet = mix(quiet, progress.startIcon);
+            quiet = mix(quiet, progress.endIcon);
+            if (progress.segments != null) {
+                for (NotificationSpec.Segment segment : progress.segments) {
+                    quiet = mix(quiet, segment.length);
+                    quiet = mix(quiet, segment.color == null ? 0 : segment.color);
+                }
+                quiet = mix(quiet, progress.segments.size());
+            }
+            if (progress.points != null) {
+                for (NotificationSpec.Point point : progress.points) {
+                    quiet = mix(quiet, point.position);
+                    quiet = mix(quiet, point.color == null ? 0 : point.color);
+                    quiet = mix(quiet, point.icon);
+                }
+                quiet = mix(quiet, progress.points.size());
+            }
+        } else {
+            quiet = mix(quiet, -1);
+        }
+        return new long[] { alert, quiet };
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return mix(hash, -1L);
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        // Length terminator so adjacent fields cannot run into each other
+        return mix(hash, value.length());
+    }
+}
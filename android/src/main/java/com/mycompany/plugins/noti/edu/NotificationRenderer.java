@@ -0,0 +1,477 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Icon;
+import android.os.Build;
+import android.util.Log;
+import androidx.annotation.RequiresApi;
+import androidx.core.app.NotificationCompat;
+
+
+/**
+ * Builds notifications from a {@link NotificationSpec} using only a Context.
+ *
+ * The plugin, the schedule pipeline and the alarm receiver all render through
+ * this class, so a notification delivered while the app process is cold gets
+ * the same icons, actions, priority and progress style as one shown from JS,
+ * without starting the bridge. Stateless and safe to use from any thread.
+ */
+class NotificationRenderer {
+
+    private static final String TAG = "NotificationRenderer";
+
+    private final Context context;
+    private final ResourceResolver resources;
+    private final IconCache icons;
+    private final ActionIntentPool intentPool;
+    private final NotificationGrouper grouper;
+
+    NotificationRenderer(Context context) {
+        this.context = context.getApplicationContext();
+        this.resources = ResourceResolver.getInstance(context);
+        this.icons = IconCache.getInstance(context);
+        this.intentPool = ActionIntentPool.getInstance(context);
+        this.grouper = NotificationGrouper.getInstance(context);
+    }
+
+    /**
+     * Render a notification including its large icon
+     */
+    Notification render(NotificationSpec spec) {
+        return buildNotification(spec, loadLargeIcon(spec.largeIcon));
+    }
+
+    /**
+     * Build the final notification, using the Android 16 ProgressStyle API when available
+     * @param largeIcon Pre-resolved large icon, or null
+     */
+    Notification buildNotification(NotificationSpec spec, Bitmap largeIcon) {
+        // Try to use Android 16+ ProgressStyle API
+        if (Build.VERSION.SDK_INT >= 36 && spec.progress != null) { // Android API level 36
+            try {
+                return buildProgressStyleNotification(spec);
+            } catch (Exception e) {
+                Log.w(TAG, "Failed to use ProgressStyle API, falling back to standard progress", e);
+                // Continue with standard notification
+            }
+        }
+        return createNotificationBuilder(spec, largeIcon).build();
+    }
+
+    NotificationCompat.Builder createNotificationBuilder(NotificationSpec spec, Bitmap largeIconBitmap) {
+        Log.d(TAG, "🔨 Creating notification builder for ID: " + spec.id);
+        
+        // ✅ ESPECIAL: Si tiene ProgressStyle con segments, usar builder nativo
+        if (Build.VERSION.SDK_INT >= 36 && spec.progress != null && spec.progress.hasSegments()) {
+            Log.d(TAG, "🎯 DETECTED PROGRESSSTYLE WITH SEGMENTS - Using native builder");
+            return createNativeProgressNotification(spec);
+        }
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, spec.getChannelId())
+            .setContentTitle(spec.getTitle())
+            .setContentText(spec.getBody())
+            .setSmallIcon(getSmallIconResource())
+            .setPriority(getNotificationPriority(spec.getPriority()))
+            .setAutoCancel(spec.isAutoCancel())
+            .setOngoing(spec.isOngoing(false));
+
+        if (spec.subText != null) {
+            builder.setSubText(spec.subText);
+        }
+
+        // Add large icon if provided
+        if (largeIconBitmap != null) {
+            builder.setLargeIcon(largeIconBitmap);
+        }
+
+        // Add actions if provided
+        if (spec.hasActions()) {
+            addActionsToBuilder(builder, spec);
+        }
+
+        // Add standard progress bar if progressStyle is provided but not using ProgressStyle API
+        if (spec.progress != null) {
+            builder.setProgress(spec.progress.maxProgress, spec.progress.progress, spec.progress.isIndeterminate());
+        }
+
+        // Group with related notifications, NotificationGrouper posts the summary
+        String group = grouper.groupKey(spec);
+        if (group != null) {
+            builder.setGroup(group);
+            builder.getExtras().putString(NotificationGrouper.EXTRA_GROUP, group);
+        }
+
+        return builder;
+    }
+
+    // ✅ NUEVO MÉTODO: Crear notificación nativa con ProgressStyle
+    @RequiresApi(api = 36)
+    private NotificationCompat.Builder createNativeProgressNotification(NotificationSpec spec) {
+        Log.d(TAG, "🚀 Creating NATIVE ProgressStyle notification");
+        
+        String channelId = spec.getChannelId();
+        boolean ongoing = spec.isOngoing(true); // Force ongoing for progress
+        
+        // ✅ CREAR ProgressStyle completamente nuevo
+        Notification.ProgressStyle ps = newProgressStyle(spec.progress);
+        
+        // ✅ CREAR NOTIFICACIÓN NATIVA CON ProgressStyle
+        Notification.Builder nativeBuilder = new Notification.Builder(context, channelId)
+            .setContentTitle(spec.getTitle())
+            .setContentText(spec.getBody())
+            .setSmallIcon(getSmallIconResource())
+            .setStyle(ps)
+            .setAutoCancel(spec.isAutoCancel())
+            .setOngoing(ongoing);
+        
+        if (spec.subText != null) {
+            nativeBuilder.setSubText(spec.subText);
+        }
+        
+        // ✅ CONVERTIR A NotificationCompat.Builder para compatibilidad
+        // Crear la notificación nativa y luego envolver
+        Notification builtNotification = nativeBuilder.build();
+        
+        // Crear un NotificationCompat.Builder que contenga la notificación nativa
+        NotificationCompat.Builder compatBuilder = new NotificationCompat.Builder(context, channelId)
+            .setContentTitle(spec.getTitle())
+            .setContentText(spec.getBody())
+            .setSmallIcon(getSmallIconResource())
+            .setAutoCancel(spec.isAutoCancel())
+            .setOngoing(ongoing);
+        
+        if (spec.subText != null) {
+            compatBuilder.setSubText(spec.subText);
+        }
+        
+        // ✅ TRICK: Usar la notificación nativa construida directamente
+        // Esto no es ideal pero es necesario para ProgressStyle
+        compatBuilder.getExtras().putAll(builtNotification.extras);
+        
+        Log.d(TAG, "🔄 Converted to NotificationCompat.Builder");
+        
+        return compatBuilder;
+    }
+
+    /**
+     * New ProgressStyle with progress and segments applied, colors were parsed with the spec
+     */
+    @RequiresApi(api = 36)
+    private Notification.ProgressStyle newProgressStyle(NotificationSpec.ProgressSpec progress) {
+        Notification.ProgressStyle ps = new Notification.ProgressStyle()
+            .setStyledByProgress(progress.isStyledByProgress())
+            .setProgress(progress.progress);
+        if (progress.segments != null) {
+            for (NotificationSpec.Segment segment : progress.segments) {
+                Notification.ProgressStyle.Segment seg = new Notification.ProgressStyle.Segment(segment.length);
+                if (segment.color != null) {
+                    seg.setColor(segment.color);
+                }
+                ps.addProgressSegment(seg);
+            }
+            Log.d(TAG, "🎨 " + progress.segments.size() + " segments added to ProgressStyle");
+        }
+        return ps;
+    }
+
+    @RequiresApi(api = 36)
+    private void addProgressStylePoints(Notification.ProgressStyle ps, NotificationSpec.ProgressSpec progress) {
+        if (progress.points == null) {
+            return;
+        }
+        for (NotificationSpec.Point point : progress.points) {
+            Notification.ProgressStyle.Point pt = new Notification.ProgressStyle.Point(point.position);
+            if (point.color != null) {
+                pt.setColor(point.color);
+            }
+            ps.addProgressPoint(pt);
+        }
+        Log.d(TAG, "🎯 " + progress.points.size() + " points added to ProgressStyle");
+    }
+
+    /**
+     * Resolve a ProgressStyle icon from the app drawables, then the Android system ones
+     * @param fallbackRes Drawable used when the name is not found
+     */
+    private Icon resolveProgressIcon(String iconName, int fallbackRes) {
+        try {
+            int iconRes = resources.drawable(iconName);
+            if (iconRes != 0) {
+                return icons.resourceIcon(iconRes);
+            }
+            Log.w(TAG, "⚠️ Icon not found: " + iconName);
+        } catch (Exception e) {
+            Log.e(TAG, "Error resolving icon " + iconName, e);
+        }
+        return icons.resourceIcon(fallbackRes);
+    }
+
+    private Notification buildProgressStyleNotification(NotificationSpec spec) {
+        if (Build.VERSION.SDK_INT >= 36) { // Android API level 36
+            try {
+                NotificationSpec.ProgressSpec progress = spec.progress;
+
+                // Use the official Android 16 Notification.ProgressStyle API
+                Notification.ProgressStyle ps = newProgressStyle(progress);
+                
+                // Add tracker, start and end icons if provided
+                if (progress.trackerIcon != null) {
+                    ps.setProgressTrackerIcon(resolveProgressIcon(progress.trackerIcon, android.R.drawable.ic_dialog_info));
+                }
+                if (progress.startIcon != null) {
+                    ps.setProgressStartIcon(resolveProgressIcon(progress.startIcon, android.R.drawable.ic_media_play));
+                }
+                if (progress.endIcon != null) {
+                    ps.setProgressEndIcon(resolveProgressIcon(progress.endIcon, android.R.drawable.ic_menu_mylocation));
+                }
+                
+                // Add points if provided
+                addProgressStylePoints(ps, progress);
+                
+                // Handle indeterminate progress
+                if (progress.indeterminate != null) {
+                    ps.setProgressIndeterminate(progress.indeterminate);
+                }
+                
+                // Apply the ProgressStyle to the notification
+                // Note: We need to build the notification with the native Android API for ProgressStyle
+                String channelId = spec.getChannelId();
+                Log.d(TAG, "Applying ProgressStyle to native notification builder with channel: " + channelId);
+                
+                Notification.Builder nativeBuilder = new Notification.Builder(context, channelId)
+                    .setContentTitle(spec.getTitle())
+                    .setContentText(spec.getBody())
+                    .setSmallIcon(android.R.drawable.ic_dialog_info)
+                    .setStyle(ps)
+                    .setOngoing(true); // Make it ongoing for progress notifications
+                
+                // Add subText if provided
+                if (spec.subText != null) {
+                    nativeBuilder.setSubText(spec.subText);
+                }
+                
+                // Add other notification properties
+                nativeBuilder.setAutoCancel(spec.isAutoCancel());
+                
+                // Add actions if provided
+                if (spec.hasActions()) {
+                    try {
+                        for (NotificationSpec.ActionSpec action : spec.actions) {
+                            if (action.id != null && action.title != null) {
+                                // Background actions go to the receiver and never open the app
+                                PendingIntent actionPendingIntent = action.foreground
+                                    ? createActionActivity(spec, action)
+                                    : createActionBroadcast(spec.id, action);
+                                
+                                // Find icon resource
+                                int iconRes = android.R.drawable.ic_menu_info_details; // default icon
+                                if (action.icon != null) {
+                                    int customIconRes = resources.app(action.icon, "drawable");
+                                    if (customIconRes != 0) {
+                                        iconRes = customIconRes;
+                                    }
+                                }
+                                
+                                // Create and add the action
+                                Notification.Action nativeAction = new Notification.Action.Builder(
+                                    icons.resourceIcon(iconRes),
+                                    action.title,
+                                    actionPendingIntent
+                                ).build();
+                                
+                                nativeBuilder.addAction(nativeAction);
+                            }
+                        }
+                    } catch (Exception e) {
+                        Log.e(TAG, "Error processing notification actions for ProgressStyle", e);
+                    }
+                }
+                
+                Notification notificationBuilt = nativeBuilder.build();
+                
+                Log.i(TAG, "Successfully created Progress-centric notification with segments and points");
+                return notificationBuilt;
+                
+            } catch (Exception e) {
+                Log.e(TAG, "Error creating ProgressStyle notification", e);
+                throw e; // Re-throw to be handled by caller
+            }
+        } else {
+            throw new UnsupportedOperationException("ProgressStyle API requires Android API level 36+");
+        }
+    }
+
+    private void addActionsToBuilder(NotificationCompat.Builder builder, NotificationSpec spec) {
+        try {
+            for (NotificationSpec.ActionSpec action : spec.actions) {
+                // Foreground actions open the app directly, Android 12+ blocks starting it from a receiver
+                PendingIntent actionPendingIntent = action.foreground
+                    ? createActionActivity(spec, action)
+                    : createActionBroadcast(spec.id, action);
+                int iconRes = action.icon != null ? resources.app(action.icon, "drawable") : 0;
+                builder.addAction(iconRes, action.title, actionPendingIntent);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error adding actions to builder", e);
+        }
+    }
+
+    /**
+     * Broadcast intent to {@link NotificationActionReceiver}, which handles background actions natively.
+     * Pooled, so rebuilds reuse it instead of asking the system again
+     */
+    private PendingIntent createActionBroadcast(int notificationId, NotificationSpec.ActionSpec action) {
+        return intentPool.get(notificationId, action.id, false, requestCode -> {
+            Intent intent = new Intent(context, NotificationActionReceiver.class);
+            intent.setAction(NotificationActionReceiver.ACTION_NOTIFICATION_ACTION);
+            intent.putExtra("actionId", action.id);
+            intent.putExtra("notificationId", notificationId);
+            intent.putExtra(NotificationActionReceiver.EXTRA_FOREGROUND, action.foreground);
+            return PendingIntent.getBroadcast(
+                context,
+                requestCode,
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+            );
+        });
+    }
+
+    /**
+     * Activity intent that opens the app directly for a foreground action. Pooled like broadcasts;
+     * the payload is the state at creation and only used when the store no longer has the notification
+     */
+    private PendingIntent createActionActivity(NotificationSpec spec, NotificationSpec.ActionSpec action) {
+        return intentPool.get(spec.id, action.id, true, requestCode -> {
+            Intent intent = launchIntent();
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK
+                | Intent.FLAG_ACTIVITY_CLEAR_TOP
+                | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+            intent.putExtra("fromNotificationAction", true);
+            intent.putExtra("actionId", action.id);
+            intent.putExtra("notificationId", spec.id);
+            // Compact binary payload, the extra data stays in the store and is looked up by id
+            intent.putExtra(NotificationCodec.EXTRA_PAYLOAD, NotificationCodec.encode(spec, false));
+            return PendingIntent.getActivity(
+                context,
+                requestCode,
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+            );
+        });
+    }
+
+    /**
+     * Large icon bitmap for a drawable resource, drawn once at the system large-icon size and cached
+     * @param largeIcon Drawable resource name or image URI, may be null
+     * @return Shared bitmap, or null if the icon is missing or cannot be drawn
+     */
+    Bitmap loadLargeIcon(String largeIcon) {
+        if (largeIcon == null) {
+            return null;
+        }
+        if (RemoteIconLoader.isRemote(largeIcon)) {
+            // Never fetched here; the poster upgrades the notification once the image is loaded
+            return RemoteIconLoader.getInstance(context).peek(largeIcon);
+        }
+        return icons.largeIcon(resources.app(largeIcon, "drawable"));
+    }
+
+    /**
+     * Whether the rendered notification shows {@code largeIcon}; the ProgressStyle layouts do not
+     */
+    boolean usesLargeIcon(NotificationSpec spec) {
+        return spec.largeIcon != null && !(Build.VERSION.SDK_INT >= 36 && spec.progress != null);
+    }
+
+    private int getNotificationPriority(String priority) {
+        switch (priority.toLowerCase()) {
+            case "high":
+                return NotificationCompat.PRIORITY_HIGH;
+            case "low":
+                return NotificationCompat.PRIORITY_LOW;
+            case "min":
+                return NotificationCompat.PRIORITY_MIN;
+            default:
+                return NotificationCompat.PRIORITY_DEFAULT;
+        }
+    }
+
+    int getSmallIconResource() {
+        return resources.defaultIcon();
+    }
+
+    /**
+     * Intent for the app's launcher activity, so actions can open the app without a live Activity reference
+     */
+    private Intent launchIntent() {
+        Intent intent = context.getPackageManager().getLaunchIntentForPackage(context.getPackageName());
+        if (intent == null) {
+            intent = new Intent();
+            intent.setClassName(context.getPackageName(), context.getPackageName() + ".MainActivity");
+        }
+        return intent;
+    }
+
+    // ✅ MÉTODO NATIVO DIRECTO para ProgressStyle
+    @RequiresApi(api = 36)
+    Notification createNativeProgressNotificationDirect(NotificationSpec spec) {
+        Log.d(TAG, "🚀 Creating DIRECT native ProgressStyle notification");
+        
+        try {
+            // ✅ CREAR ProgressStyle COMPLETAMENTE NUEVO con segments y points
+            Notification.ProgressStyle ps = newProgressStyle(spec.progress);
+            addProgressStylePoints(ps, spec.progress);
+            
+            // ✅ CREAR NOTIFICATION BUILDER NATIVO
+            Notification.Builder nativeBuilder = new Notification.Builder(context, spec.getChannelId())
+                .setContentTitle(spec.getTitle())
+                .setContentText(spec.getBody())
+                .setSmallIcon(getSmallIconResource())
+                .setStyle(ps)
+                .setAutoCancel(spec.isAutoCancel())
+                .setOngoing(spec.isOngoing(true)); // Force ongoing for progress
+            
+            if (spec.subText != null) {
+                nativeBuilder.setSubText(spec.subText);
+                Log.d(TAG, "📝 SubText added: " + spec.subText);
+            }
+            
+            // Agregar acciones si existen
+            if (spec.hasActions()) {
+                try {
+                    Log.d(TAG, "🎬 Adding " + spec.actions.size() + " actions to native notification");
+                    for (int i = 0; i < spec.actions.size(); i++) {
+                        NotificationSpec.ActionSpec action = spec.actions.get(i);
+                        if (action.id != null && action.title != null) {
+                            PendingIntent actionPendingIntent = action.foreground
+                                ? createActionActivity(spec, action)
+                                : createActionBroadcast(spec.id, action);
+                            
+                            Notification.Action.Builder actionBuilder = new Notification.Action.Builder(
+                                android.R.drawable.ic_dialog_info, // Default icon
+                                action.title,
+                                actionPendingIntent
+                            );
+                            
+                            nativeBuilder.addAction(actionBuilder.build());
+                            Log.d(TAG, "✅ Action added: " + action.title + " (" + action.id + ")");
+                        }
+                    }
+                } catch (Exception e) {
+                    Log.e(TAG, "Error adding actions to native notification", e);
+                }
+            }
+            
+            Log.d(TAG, "🏗️ Building final native notification with ProgressStyle");
+            return nativeBuilder.build();
+            
+        } catch (Exception e) {
+            Log.e(TAG, "💥 Error creating native ProgressStyle notification", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,710 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.graphics.Color;
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable, typed view of a notification.
+ *
+ * Parsed once from the JS payload when it is scheduled, then consumed by every
+ * builder and update path so they never walk the JSON tree again. Updates
+ * derive a new instance with {@link #withProgress(ProgressSpec)}. Parts the
+ * plugin never reads ({@code extra}, {@code schedule}) are kept as raw JSON
+ * text and only turned back into objects by {@link #toJSObject()}.
+ */
+public final class NotificationSpec {
+
+    private static final String TAG = "NotificationSpec";
+
+    public final int id;
+    public final String title;
+    public final String body;
+    public final String subText;
+    public final String largeIcon;
+    public final String smallIcon;
+    public final String channelId;
+    public final String sound;
+    public final Integer badge;
+    public final String priority;
+    public final String importance;
+    /** Null when not set, defaults differ between standard and progress notifications */
+    public final Boolean autoCancel;
+    public final Boolean ongoing;
+    public final Boolean showWhen;
+    public final String when;
+    /** Explicit group key, null lets {@link NotificationGrouper} group by channel */
+    public final String group;
+    public final String extraJson;
+    public final String scheduleJson;
+    public final List<ActionSpec> actions;
+    public final ProgressSpec progress;
+
+    private NotificationSpec(Builder builder) {
+        this.id = builder.id;
+        this.title = builder.title;
+        this.body = builder.body;
+        this.subText = builder.subText;
+        this.largeIcon = builder.largeIcon;
+        this.smallIcon = builder.smallIcon;
+        this.channelId = builder.channelId;
+        this.sound = builder.sound;
+        this.badge = builder.badge;
+        this.priority = builder.priority;
+        this.importance = builder.importance;
+        this.autoCancel = builder.autoCancel;
+        this.ongoing = builder.ongoing;
+        this.showWhen = builder.showWhen;
+        this.when = builder.when;
+        this.group = builder.group;
+        this.extraJson = builder.extraJson;
+        this.scheduleJson = builder.scheduleJson;
+        this.actions = Collections.unmodifiableList(new ArrayList<>(builder.actions));
+        this.progress = builder.progress;
+    }
+
+    public String getTitle() {
+        return title != null ? title : "";
+    }
+
+    public String getBody() {
+        return body != null ? body : "";
+    }
+
+    public String getChannelId() {
+        return channelId != null ? channelId : ModernNotificationsPlugin.DEFAULT_CHANNEL_ID;
+    }
+
+    public boolean isAutoCancel() {
+        return autoCancel != null ? autoCancel : true;
+    }
+
+    /**
+     * @param defaultValue Value used when the payload does not say
+     */
+    public boolean isOngoing(boolean defaultValue) {
+        return ongoing != null ? ongoing : defaultValue;
+    }
+
+    public String getPriority() {
+        return priority != null ? priority : "normal";
+    }
+
+    public boolean hasActions() {
+        return !actions.isEmpty();
+    }
+
+    /**
+     * @return The action with the given id, or null
+     */
+    public ActionSpec findAction(String actionId) {
+        for (ActionSpec action : actions) {
+            if (action.id != null && action.id.equals(actionId)) {
+                return action;
+            }
+        }
+        return null;
+    }
+
+    public NotificationSpec withProgress(ProgressSpec progress) {
+        return toBuilder().setProgress(progress).build();
+    }
+
+    public Builder toBuilder() {
+        Builder builder = new Builder(id)
+            .setTitle(title)
+            .setBody(body)
+            .setSubText(subText)
+            .setLargeIcon(largeIcon)
+            .setSmallIcon(smallIcon)
+            .setChannelId(channelId)
+            .setSound(sound)
+            .setBadge(badge)
+            .setPriority(priority)
+            .setImportance(importance)
+            .setAutoCancel(autoCancel)
+            .setOngoing(ongoing)
+            .setShowWhen(showWhen)
+            .setWhen(when)
+            .setGroup(group)
+            .setExtraJson(extraJson)
+            .setScheduleJson(scheduleJson)
+            .setProgress(progress);
+        builder.actions.addAll(actions);
+        return builder;
+    }
+
+    // ---- JSON -----------------------------------------------------------
+
+    /**
+     * Parse a notification payload in a single pass
+     * @param json Notification object as sent from JS
+     * @return Parsed spec
+     * @throws IllegalArgumentException if the id is missing or not a number
+     */
+    public static NotificationSpec parse(JSONObject json) {
+        Object rawId = json.opt("id");
+        if (!(rawId instanceof Number) && !(rawId instanceof String)) {
+            throw new IllegalArgumentException("Notification id is required");
+        }
+        int id;
+        try {
+            id = json.getInt("id");
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Notification id must be an integer");
+        }
+        Builder builder = new Builder(id)
+            .setTitle(string(json, "title"))
+            .setBody(string(json, "body"))
+            .setSubText(string(json, "subText"))
+            .setLargeIcon(string(json, "largeIcon"))
+            .setSmallIcon(string(json, "smallIcon"))
+            .setChannelId(string(json, "channelId"))
+            .setSound(string(json, "sound"))
+            .setBadge(json.has("badge") ? json.optInt("badge") : null)
+            .setPriority(string(json, "priority"))
+            .setImportance(string(json, "importance"))
+            .setAutoCancel(bool(json, "autoCancel"))
+            .setOngoing(bool(json, "ongoing"))
+            .setShowWhen(bool(json, "showWhen"))
+            .setWhen(string(json, "when"))
+            .setGroup(string(json, "group"));
+
+        Object extra = json.opt("extra");
+        if (extra != null && extra != JSONObject.NULL) {
+            builder.setExtraJson(extra instanceof String ? JSONObject.quote((String) extra) : extra.toString());
+        }
+        JSONObject schedule = json.optJSONObject("schedule");
+        if (schedule != null) {
+            builder.setScheduleJson(schedule.toString());
+        }
+        JSONArray actions = json.optJSONArray("actions");
+        if (actions != null) {
+            for (int i = 0; i < actions.length(); i++) {
+                JSONObject action = actions.optJSONObject(i);
+                if (action != null) {
+                    builder.addAction(ActionSpec.parse(action));
+                }
+            }
+        }
+        JSONObject progressStyle = json.optJSONObject("progressStyle");
+        if (progressStyle != null) {
+            builder.setProgress(ProgressSpec.parse(progressStyle));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Rebuild the JS representation, used for events, getPending and the store
+     */
+    public JSObject toJSObject() {
+        JSObject json = new JSObject();
+        json.put("id", id);
+        putIfSet(json, "title", title);
+        putIfSet(json, "body", body);
+        putIfSet(json, "subText", subText);
+        putIfSet(json, "largeIcon", largeIcon);
+        putIfSet(json, "smallIcon", smallIcon);
+        putIfSet(json, "channelId", channelId);
+        putIfSet(json, "sound", sound);
+        putIfSet(json, "badge", badge);
+        putIfSet(json, "priority", priority);
+        putIfSet(json, "importance", importance);
+        putIfSet(json, "autoCancel", autoCancel);
+        putIfSet(json, "ongoing", ongoing);
+        putIfSet(json, "showWhen", showWhen);
+        putIfSet(json, "when", when);
+        putIfSet(json, "group", group);
+        try {
+            if (extraJson != null) {
+                json.put("extra", new org.json.JSONTokener(extraJson).nextValue());
+            }
+            if (scheduleJson != null) {
+                json.put("schedule", new JSONObject(scheduleJson));
+            }
+        } catch (JSONException e) {
+            Log.w(TAG, "Could not restore raw JSON for notification " + id, e);
+        }
+        if (!actions.isEmpty()) {
+            JSArray array = new JSArray();
+            for (ActionSpec action : actions) {
+                array.put(action.toJSObject());
+            }
+            json.put("actions", array);
+        }
+        if (progress != null) {
+            json.put("progressStyle", progress.toJSObject());
+        }
+        return json;
+    }
+
+    static String string(JSONObject json, String key) {
+        Object value = json.opt(key);
+        return value == null || value == JSONObject.NULL ? null : value.toString();
+    }
+
+    static Boolean bool(JSONObject json, String key) {
+        Object value = json.opt(key);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof String) {
+            if ("true".equalsIgnoreCase((String) value)) {
+                return true;
+            }
+            if ("false".equalsIgnoreCase((String) value)) {
+                return false;
+            }
+        }
+        return null;
+    }
+
+    static Integer color(String colorString) {
+        if (colorString == null) {
+            return null;
+        }
+        try {
+            return Color.parseColor(colorString);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid color format: " + colorString);
+            return null;
+        }
+    }
+
+    private static void putIfSet(JSObject json, String key, Object value) {
+        if (value != null) {
+            json.put(key, value);
+        }
+    }
+
+    // ---- Nested model ---------------------------------------------------
+
+    public static final class Builder {
+
+        private final int id;
+        private String title;
+        private String body;
+        private String subText;
+        private String largeIcon;
+        private String smallIcon;
+        private String channelId;
+        private String sound;
+        private Integer badge;
+        private String priority;
+        private String importance;
+        private Boolean autoCancel;
+        private Boolean ongoing;
+        private Boolean showWhen;
+        private String when;
+        private String group;
+        private String extraJson;
+        private String scheduleJson;
+        private final List<ActionSpec> actions = new ArrayList<>();
+        private ProgressSpec progress;
+
+        public Builder(int id) {
+            this.id = id;
+        }
+
+        public Builder setTitle(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder setBody(String body) {
+            this.body = body;
+            return this;
+        }
+
+        public Builder setSubText(String subText) {
+            this.subText = subText;
+            return this;
+        }
+
+        public Builder setLargeIcon(String largeIcon) {
+            this.largeIcon = largeIcon;
+            return this;
+        }
+
+        public Builder setSmallIcon(String smallIcon) {
+            this.smallIcon = smallIcon;
+            return this;
+        }
+
+        public Builder setChannelId(String channelId) {
+            this.channelId = channelId;
+            return this;
+        }
+
+        public Builder setSound(String sound) {
+            this.sound = sound;
+            return this;
+        }
+
+        public Builder setBadge(Integer badge) {
+            this.badge = badge;
+            return this;
+        }
+
+        public Builder setPriority(String priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public Builder setImportance(String importance) {
+            this.importance = importance;
+            return this;
+        }
+
+        public Builder setAutoCancel(Boolean autoCancel) {
+            this.autoCancel = autoCancel;
+            return this;
+        }
+
+        public Builder setOngoing(Boolean ongoing) {
+            this.ongoing = ongoing;
+            return this;
+        }
+
+        public Builder setShowWhen(Boolean showWhen) {
+            this.showWhen = showWhen;
+            return this;
+        }
+
+        public Builder setWhen(String when) {
+            this.when = when;
+            return this;
+        }
+
+        public Builder setGroup(String group) {
+            this.group = group;
+            return this;
+        }
+
+        /**
+         * @param extraJson The {@code extra} value as JSON text
+         */
+        public Builder setExtraJson(String extraJson) {
+            this.extraJson = extraJson;
+            return this;
+        }
+
+        /**
+         * @param scheduleJson The {@code schedule} object as JSON text
+         */
+        public Builder setScheduleJson(String scheduleJson) {
+            this.scheduleJson = scheduleJson;
+            return this;
+        }
+
+        public Builder addAction(ActionSpec action) {
+            this.actions.add(action);
+            return this;
+        }
+
+        public Builder clearActions() {
+            this.actions.clear();
+            return this;
+        }
+
+        public Builder setProgress(ProgressSpec progress) {
+            this.progress = progress;
+            return this;
+        }
+
+        public NotificationSpec build() {
+            return new NotificationSpec(this);
+        }
+    }
+
+    /**
+     * A notification action button
+     */
+    public static final class ActionSpec {
+
+        public final String id;
+        public final String title;
+        public final String icon;
+        public final boolean requiresAuthentication;
+        /** False for actions handled natively without opening the app */
+        public final boolean foreground;
+        /** What a background action does, one of the {@link BackgroundActionHandler} types, null means queue */
+        public final String backgroundAction;
+        public final Integer snoozeMinutes;
+        public final Integer progress;
+
+        public ActionSpec(String id, String title, String icon, boolean requiresAuthentication) {
+            this(id, title, icon, requiresAuthentication, true, null, null, null);
+        }
+
+        public ActionSpec(
+            String id,
+            String title,
+            String icon,
+            boolean requiresAuthentication,
+            boolean foreground,
+            String backgroundAction,
+            Integer snoozeMinutes,
+            Integer progress
+        ) {
+            this.id = id;
+            this.title = title;
+            this.icon = icon;
+            this.requiresAuthentication = requiresAuthentication;
+            this.foreground = foreground;
+            this.backgroundAction = backgroundAction;
+            this.snoozeMinutes = snoozeMinutes;
+            this.progress = progress;
+        }
+
+        static ActionSpec parse(JSONObject json) {
+            Boolean requiresAuthentication = bool(json, "requiresAuthentication");
+            Boolean foreground = bool(json, "foreground");
+            return new ActionSpec(
+                string(json, "id"),
+                string(json, "title"),
+                string(json, "icon"),
+                requiresAuthentication != null && requiresAuthentication,
+                foreground == null || foreground,
+                string(json, "backgroundAction"),
+                json.has("snoozeMinutes") ? json.optInt("snoozeMinutes") : null,
+                json.has("progress") ? json.optInt("progress") : null
+            );
+        }
+
+        JSObject toJSObject() {
+            JSObject json = new JSObject();
+            putIfSet(json, "id", id);
+            putIfSet(json, "title", title);
+            putIfSet(json, "icon", icon);
+            if (requiresAuthentication) {
+                json.put("requiresAuthentication", true);
+            }
+            if (!foreground) {
+                json.put("foreground", false);
+            }
+            putIfSet(json, "backgroundAction", backgroundAction);
+            putIfSet(json, "snoozeMinutes", snoozeMinutes);
+            putIfSet(json, "progress", progress);
+            return json;
+        }
+    }
+
+    /**
+     * Progress bar state, including Android 16 ProgressStyle segments and points
+     */
+    public static final class ProgressSpec {
+
+        /** State used when a progress update targets a notification without one */
+        public static final ProgressSpec EMPTY = new ProgressSpec(0, 100, null, null, null, null, null, null, null);
+
+        public final int progress;
+        public final int maxProgress;
+        /** Null when not set, only applied to ProgressStyle when present */
+        public final Boolean indeterminate;
+        public final Boolean styledByProgress;
+        public final String trackerIcon;
+        public final String startIcon;
+        public final String endIcon;
+        /** Null when the payload has no segments array */
+        public final List<Segment> segments;
+        public final List<Point> points;
+
+        public ProgressSpec(
+            int progress,
+            int maxProgress,
+            Boolean indeterminate,
+            Boolean styledByProgress,
+            String trackerIcon,
+            String startIcon,
+            String endIcon,
+            List<Segment> segments,
+            List<Point> points
+        ) {
+            this.progress = progress;
+            this.maxProgress = maxProgress;
+            this.indeterminate = indeterminate;
+            this.styledByProgress = styledByProgress;
+            this.trackerIcon = trackerIcon;
+            this.startIcon = startIcon;
+            this.endIcon = endIcon;
+            this.segments = segments != null ? Collections.unmodifiableList(new ArrayList<>(segments)) : null;
+            this.points = points != null ? Collections.unmodifiableList(new ArrayList<>(points)) : null;
+        }
+
+        public boolean isIndeterminate() {
+            return indeterminate != null && indeterminate;
+        }
+
+        public boolean isStyledByProgress() {
+            return styledByProgress == null || styledByProgress;
+        }
+
+        public boolean hasSegments() {
+            return segments != null;
+        }
+
+        public ProgressSpec withProgress(int progress) {
+            return new ProgressSpec(progress, maxProgress, indeterminate, styledByProgress, trackerIcon, startIcon, endIcon, segments, points);
+        }
+
+        public ProgressSpec withSegments(List<Segment> segments) {
+            return new ProgressSpec(progress, maxProgress, indeterminate, styledByProgress, trackerIcon, startIcon, endIcon, segments, points);
+        }
+
+        public ProgressSpec withPoints(List<Point> points) {
+            return new ProgressSpec(progress, maxProgress, indeterminate, styledByProgress, trackerIcon, startIcon, endIcon, segments, points);
+        }
+
+        public static ProgressSpec parse(JSONObject json) {
+            return new ProgressSpec(
+                json.optInt("progress", 0),
+                json.optInt("maxProgress", 100),
+                bool(json, "indeterminate"),
+                bool(json, "styledByProgress"),
+                string(json, "trackerIcon"),
+                string(json, "startIcon"),
+                string(json, "endIcon"),
+                Segment.parseAll(json.optJSONArray("segments")),
+                Point.parseAll(json.optJSONArray("points"))
+            );
+        }
+
+        public JSObject toJSObject() {
+            JSObject json = new JSObject();
+            json.put("progress", progress);
+            if (maxProgress != 100) {
+                json.put("maxProgress", maxProgress);
+            }
+            putIfSet(json, "indeterminate", indeterminate);
+            putIfSet(json, "styledByProgress", styledByProgress);
+            putIfSet(json, "trackerIcon", trackerIcon);
+            putIfSet(json, "startIcon", startIcon);
+            putIfSet(json, "endIcon", endIcon);
+            if (segments != null) {
+                JSArray array = new JSArray();
+                for (Segment segment : segments) {
+                    array.put(segment.toJSObject());
+                }
+                json.put("segments", array);
+            }
+            if (points != null) {
+                JSArray array = new JSArray();
+                for (Point point : points) {
+                    array.put(point.toJSObject());
+                }
+                json.put("points", array);
+            }
+            return json;
+        }
+    }
+
+    public static final class Segment {
+
+        public final int length;
+        public final String colorString;
+        /** Parsed color, null if missing or invalid */
+        public final Integer color;
+        /** Optional stable key for patches; not carried in intent payloads */
+        public final String key;
+
+        public Segment(int length, String colorString, Integer color) {
+            this(length, colorString, color, null);
+        }
+
+        public Segment(int length, String colorString, Integer color, String key) {
+            this.length = length;
+            this.colorString = colorString;
+            this.color = color;
+            this.key = key;
+        }
+
+        static Segment parse(JSONObject json) {
+            String colorString = string(json, "color");
+            return new Segment(json.optInt("length", 100), colorString, color(colorString), string(json, "key"));
+        }
+
+        static List<Segment> parseAll(JSONArray array) {
+            if (array == null) {
+                return null;
+            }
+            List<Segment> segments = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject json = array.optJSONObject(i);
+                if (json != null) {
+                    segments.add(parse(json));
+                }
+            }
+            return segments;
+        }
+
+        JSObject toJSObject() {
+            JSObject json = new JSObject();
+            json.put("length", length);
+            putIfSet(json, "color", colorString);
+            putIfSet(json, "key", key);
+            return json;
+        }
+    }
+
+    public static final class Point {
+
+        public final int position;
+        public final String colorString;
+        /** Parsed color, null if missing or invalid */
+        public final Integer color;
+        public final String icon;
+        /** Optional stable key for patches; not carried in intent payloads */
+        public final String key;
+
+        public Point(int position, String colorString, Integer color, String icon) {
+            this(position, colorString, color, icon, null);
+        }
+
+        public Point(int position, String colorString, Integer color, String icon, String key) {
+            this.position = position;
+            this.colorString = colorString;
+            this.color = color;
+            this.icon = icon;
+            this.key = key;
+        }
+
+        static Point parse(JSONObject json) {
+            String colorString = string(json, "color");
+            return new Point(json.optInt("position", 0), colorString, color(colorString), string(json, "icon"), string(json, "key"));
+        }
+
+        static List<Point> parseAll(JSONArray array) {
+            if (array == null) {
+                return null;
+            }
+            List<Point> points = new ArrayList<>(array.length());
+            for (int i = 0; i < array.length(); i++) {
+                JSONObject json = array.optJSONObject(i);
+                if (json != null) {
+                    points.add(parse(json));
+                }
+            }
+            return points;
+        }
+
+        JSObject toJSObject() {
+            JSObject json = new JSObject();
+            json.put("position", position);
+            putIfSet(json, "color", colorString);
+            putIfSet(json, "icon", icon);
+            putIfSet(json, "key", key);
+            return json;
+        }
+    }
+}
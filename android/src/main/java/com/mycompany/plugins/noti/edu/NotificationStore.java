@@ -0,0 +1,679 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import org.json.JSONException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Durable store for pending and delivered notifications.
+ *
+ * Entries live in memory keyed by id and are persisted as an append-only log
+ * plus a periodically compacted snapshot. Every log record is framed as
+ * [length][crc32][payload], so a record torn by process death is detected on
+ * open and the log is truncated back to the last complete record.
+ *
+ * Log operations are last-writer-wins per id, which makes replaying a log on
+ * top of a snapshot that already contains it idempotent. That is what keeps
+ * compaction safe if the process dies between the snapshot rename and the
+ * log truncation.
+ *
+ * Entries are also indexed by state, so listing or clearing one state costs
+ * the size of that state rather than of the whole store, and by the
+ * {@link NotificationIndex} fields once the first query is made. A recurring
+ * entry stays pending after it fires and is listed as delivered too while
+ * that occurrence is shown.
+ */
+public class NotificationStore {
+
+    private static final String TAG = "NotificationStore";
+
+    public static final int STATE_PENDING = 0;
+    public static final int STATE_DELIVERED = 1;
+
+    private static final String DIR_NAME = "modern-notifications";
+    private static final String LOG_FILE = "notifications.log";
+    private static final String SNAPSHOT_FILE = "notifications.snapshot";
+    private static final String SNAPSHOT_TMP_FILE = "notifications.snapshot.tmp";
+
+    private static final int SNAPSHOT_MAGIC = 0x4D4E5331; // "MNS1"
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_RECORD_SIZE = 4 * 1024 * 1024;
+    /** Largest notification JSON a record can hold, next to its op, id, state, times and length */
+    static final int MAX_JSON_SIZE = MAX_RECORD_SIZE - 26;
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_CLEAR_STATE = 3;
+
+    private static NotificationStore sharedInstance;
+
+    private final File logFile;
+    private final File snapshotFile;
+    private final File snapshotTmpFile;
+    private final Map<Integer, Entry> entries = new LinkedHashMap<>();
+    // Same entries split by state, in insertion order
+    private final Map<Integer, Entry> pendingEntries = new LinkedHashMap<>();
+    private final Map<Integer, Entry> deliveredEntries = new LinkedHashMap<>();
+    // Ids whose latest state is only in memory, see updateContent
+    private final Set<Integer> unpersisted = new HashSet<>();
+    // Built on the first query, then kept up to date
+    private NotificationIndex queryIndex;
+    private DataOutputStream logOut;
+    private int logRecordCount;
+    private int batchDepth;
+
+    /**
+     * A single stored notification. The JSON text is kept as written and only
+     * parsed the first time it is read back.
+     */
+    public static final class Entry {
+
+        public final int id;
+        public final int state;
+        /** Epoch millis it triggers at when pending, or was delivered at (0 if unknown) when delivered */
+        public final long triggerAt;
+        /**
+         * Epoch millis the occurrence that last fired was shown at, for a pending recurring
+         * entry whose notification is still shown; 0 otherwise. Such an entry is listed
+         * under both states.
+         */
+        public final long shownAt;
+        final String json;
+        private JSObject parsed;
+
+        Entry(int id, int state, long triggerAt, long shownAt, String json, JSObject parsed) {
+            this.id = id;
+            this.state = state;
+            this.triggerAt = triggerAt;
+            this.shownAt = state == STATE_PENDING ? shownAt : 0;
+            this.json = json;
+            this.parsed = parsed;
+        }
+
+        /**
+         * Whether the entry is listed under a state, see {@link #shownAt}
+         */
+        public boolean isIn(int state) {
+            return this.state == state || (state == STATE_DELIVERED && shownAt > 0);
+        }
+
+        /**
+         * Epoch millis the shown notification was delivered at, 0 if it is not shown
+         */
+        public long deliveredAt() {
+            return state == STATE_DELIVERED ? triggerAt : shownAt;
+        }
+
+        Entry withShownAt(long shownAt) {
+            return new Entry(id, state, triggerAt, shownAt, json, parsed);
+        }
+
+        /**
+         * Notification payload for this entry, parsed lazily and cached
+         * @return Notification object
+         */
+        public synchronized JSObject getNotification() {
+            if (parsed == null) {
+                try {
+                    parsed = new JSObject(json);
+                } catch (JSONException e) {
+                    Log.w(TAG, "Corrupt notification payload for id " + id, e);
+                    parsed = new JSObject();
+                    parsed.put("id", id);
+                }
+            }
+            return parsed;
+        }
+    }
+
+    /**
+     * Get the process-wide store, opening it on first use
+     * @param context Any context, the application context is retained
+     * @return Shared store
+     */
+    public static synchronized NotificationStore getInstance(Context context) {
+        if (sharedInstance == null) {
+            File dir = new File(context.getApplicationContext().getFilesDir(), DIR_NAME);
+            sharedInstance = new NotificationStore(dir);
+        }
+        return sharedInstance;
+    }
+
+    NotificationStore(File dir) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            Log.e(TAG, "Unable to create store directory " + dir);
+        }
+        logFile = new File(dir, LOG_FILE);
+        snapshotFile = new File(dir, SNAPSHOT_FILE);
+        snapshotTmpFile = new File(dir, SNAPSHOT_TMP_FILE);
+        open();
+    }
+
+    private void open() {
+        long start = System.nanoTime();
+        readSnapshot();
+        long validLength = replayLog();
+        try {
+            truncateLog(validLength);
+            logOut = openLogForAppend();
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to open notification log", e);
+        }
+        if (shouldCompact()) {
+            compact();
+        }
+        Log.d(TAG, "Opened store with " + entries.size() + " entries in " + (System.nanoTime() - start) / 1000 + "us");
+    }
+
+    // ---- Queries --------------------------------------------------------
+
+    public synchronized Entry getEntry(int id) {
+        return entries.get(id);
+    }
+
+    public synchronized JSObject get(int id) {
+        Entry entry = entries.get(id);
+        return entry != null ? entry.getNotification() : null;
+    }
+
+    /**
+     * Parse a private copy of a stored notification. {@link #get} returns the entry's
+     * shared object, which must not be changed; change a copy and store it back instead.
+     * @return Notification, or null if the id is not stored
+     */
+    public JSObject copy(int id) {
+        Entry entry = getEntry(id);
+        if (entry == null) {
+            return null;
+        }
+        try {
+            return new JSObject(entry.json);
+        } catch (JSONException e) {
+            Log.w(TAG, "Corrupt notification payload for id " + id, e);
+            return null;
+        }
+    }
+
+    public synchronized JSObject get(int id, int state) {
+        Entry entry = entries.get(id);
+        return entry != null && entry.isIn(state) ? entry.getNotification() : null;
+    }
+
+    public synchronized List<Entry> list(int state) {
+        return new ArrayList<>(byState(state).values());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized int size(int state) {
+        return byState(state).size();
+    }
+
+    /**
+     * Run a filtered, sorted, paged query. The first one builds the indices,
+     * which parses every entry once; later ones only touch what they return.
+     */
+    synchronized NotificationIndex.Page query(NotificationIndex.Query query) {
+        if (queryIndex == null) {
+            long start = System.nanoTime();
+            queryIndex = new NotificationIndex(entries.values());
+            Log.d(TAG, "Built query index for " + entries.size() + " entries in " + (System.nanoTime() - start) / 1000 + "us");
+        }
+        return queryIndex.query(query);
+    }
+
+    // ---- Mutations ------------------------------------------------------
+
+    /**
+     * Schedule a notification. An occurrence of the same id that is still shown stays
+     * listed as delivered until it is removed with {@link #removeDelivered}.
+     * @throws IllegalArgumentException If the notification is larger than {@link #MAX_JSON_SIZE}
+     */
+    public synchronized void putPending(int id, long triggerAt, JSObject notification) {
+        Entry previous = entries.get(id);
+        long shownAt = previous != null ? previous.shownAt : 0;
+        put(new Entry(id, STATE_PENDING, triggerAt, shownAt, checkedJson(id, notification), notification));
+    }
+
+    /**
+     * Keep a recurring notification pending for its next occurrence while the
+     * occurrence that just fired is shown
+     * @throws IllegalArgumentException If the notification is larger than {@link #MAX_JSON_SIZE}
+     */
+    public synchronized void putShown(int id, long nextTriggerAt, JSObject notification) {
+        put(new Entry(id, STATE_PENDING, nextTriggerAt, System.currentTimeMillis(), checkedJson(id, notification), notification));
+    }
+
+    /**
+     * @throws IllegalArgumentException If the notification is larger than {@link #MAX_JSON_SIZE}
+     */
+    public synchronized void putDelivered(int id, JSObject notification) {
+        put(new Entry(id, STATE_DELIVERED, System.currentTimeMillis(), 0, checkedJson(id, notification), notification));
+    }
+
+    /**
+     * Replace the content of a stored notification, keeping its state and time. A pending
+     * (e.g. recurring) entry stays pending; an id not stored yet is added as delivered now.
+     * @param persist False to only update memory, for frequent changes such as progress
+     *                ticks; the change is written with the next persisted write of the id,
+     *                {@link #persistAll()} or a compaction
+     * @throws IllegalArgumentException If the notification is larger than {@link #MAX_JSON_SIZE}
+     */
+    public synchronized void updateContent(int id, JSObject notification, boolean persist) {
+        Entry previous = entries.get(id);
+        String json = checkedJson(id, notification);
+        Entry entry = previous != null
+            ? new Entry(id, previous.state, previous.triggerAt, previous.shownAt, json, notification)
+            : new Entry(id, STATE_DELIVERED, System.currentTimeMillis(), 0, json, notification);
+        if (persist) {
+            put(entry);
+        } else {
+            index(entry);
+            unpersisted.add(id);
+        }
+    }
+
+    /**
+     * Write every change made with {@code persist} false, e.g. before the app goes to the background
+     */
+    public synchronized void persistAll() {
+        if (unpersisted.isEmpty()) {
+            return;
+        }
+        beginBatch();
+        try {
+            for (Integer id : new ArrayList<>(unpersisted)) {
+                Entry entry = entries.get(id);
+                if (entry != null) {
+                    put(entry);
+                }
+            }
+            unpersisted.clear();
+        } finally {
+            endBatch();
+        }
+    }
+
+    public synchronized void remove(int id) {
+        unpersisted.remove(id);
+        if (unindex(id) == null) {
+            return;
+        }
+        append(OP_REMOVE, id, 0, 0, null);
+    }
+
+    /**
+     * Stop tracking the shown notification of an id: a delivered entry is removed, a
+     * pending recurring one stays pending for its next occurrence
+     * @return Whether the id was listed as delivered
+     */
+    public synchronized boolean removeDelivered(int id) {
+        Entry entry = entries.get(id);
+        if (entry == null || !entry.isIn(STATE_DELIVERED)) {
+            return false;
+        }
+        if (entry.state == STATE_DELIVERED) {
+            remove(id);
+        } else {
+            put(entry.withShownAt(0));
+        }
+        return true;
+    }
+
+    /**
+     * Remove every entry in the given state. Clearing delivered entries keeps pending
+     * recurring ones, only no longer listed as shown.
+     * @param state {@link #STATE_PENDING} or {@link #STATE_DELIVERED}
+     */
+    public synchronized void clear(int state) {
+        unpersisted.removeAll(clearIndexed(state));
+        append(OP_CLEAR_STATE, 0, state, 0, null);
+    }
+
+    /**
+     * Buffer log appends until the matching {@link #endBatch()}, so a bulk
+     * schedule is written with one flush instead of one per notification.
+     */
+    public synchronized void beginBatch() {
+        batchDepth++;
+    }
+
+    public synchronized void endBatch() {
+        if (batchDepth == 0 || --batchDepth > 0) {
+            return;
+        }
+        try {
+            if (logOut != null) {
+                logOut.flush();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to flush notification log", e);
+        }
+        if (shouldCompact()) {
+            compact();
+        }
+    }
+
+    /**
+     * Serialize a notification, refusing what {@link #readRecord} would take for the
+     * torn end of the log and truncate together with every later record
+     */
+    private static String checkedJson(int id, JSObject notification) {
+        String json = notification.toString();
+        // UTF-8 needs at most 3 bytes per char, so only long payloads are encoded to measure them
+        if (json.length() > MAX_JSON_SIZE / 3 && json.getBytes(StandardCharsets.UTF_8).length > MAX_JSON_SIZE) {
+            throw new IllegalArgumentException("Notification " + id + " is larger than " + MAX_JSON_SIZE + " bytes and cannot be stored");
+        }
+        return json;
+    }
+
+    private void put(Entry entry) {
+        unpersisted.remove(entry.id);
+        index(entry);
+        append(OP_PUT, entry.id, entry.state, entry.triggerAt, entry.shownAt, entry.json);
+    }
+
+    private Map<Integer, Entry> byState(int state) {
+        return state == STATE_DELIVERED ? deliveredEntries : pendingEntries;
+    }
+
+    private void index(Entry entry) {
+        unindex(entry.id); // keep insertion order in sync with the log
+        entries.put(entry.id, entry);
+        byState(entry.state).put(entry.id, entry);
+        if (entry.shownAt > 0) {
+            deliveredEntries.put(entry.id, entry);
+        }
+        if (queryIndex != null) {
+            queryIndex.add(entry);
+        }
+    }
+
+    private Entry unindex(int id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            pendingEntries.remove(id);
+            deliveredEntries.remove(id);
+            if (queryIndex != null) {
+                queryIndex.remove(id);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * @return Ids removed from the store
+     */
+    private List<Integer> clearIndexed(int state) {
+        List<Integer> removed = new ArrayList<>();
+        for (Entry entry : new ArrayList<>(byState(state).values())) {
+            if (entry.state == state) {
+                unindex(entry.id);
+                removed.add(entry.id);
+            } else {
+                index(entry.withShownAt(0));
+            }
+        }
+        return removed;
+    }
+
+    // ---- Log ------------------------------------------------------------
+
+    private void append(byte op, int id, int state, long triggerAt, String json) {
+        append(op, id, state, triggerAt, 0, json);
+    }
+
+    private void append(byte op, int id, int state, long triggerAt, long shownAt, String json) {
+        if (logOut == null) {
+            return;
+        }
+        try {
+            writeRecord(logOut, op, id, state, triggerAt, shownAt, json);
+            logRecordCount++;
+            if (batchDepth > 0) {
+                return;
+            }
+            logOut.flush();
+        } catch (IOException e) {
+            Log.e(TAG, "Failed to append to notification log", e);
+        }
+        if (shouldCompact()) {
+            compact();
+        }
+    }
+
+    /**
+     * @param shownAt Written after the JSON only when set, so records from before it existed read the same
+     */
+    private static void writeRecord(DataOutputStream out, byte op, int id, int state, long triggerAt, long shownAt, String json)
+        throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(json != null ? json.length() + 32 : 32);
+        DataOutputStream payload = new DataOutputStream(buffer);
+        payload.writeByte(op);
+        payload.writeInt(id);
+        payload.writeByte(state);
+        payload.writeLong(triggerAt);
+        if (json != null) {
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            payload.writeInt(bytes.length);
+            payload.write(bytes);
+        } else {
+            payload.writeInt(-1);
+        }
+        if (shownAt > 0) {
+            payload.writeLong(shownAt);
+        }
+        byte[] bytes = buffer.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        out.writeInt(bytes.length);
+        out.writeInt((int) crc.getValue());
+        out.write(bytes);
+    }
+
+    /**
+     * Read the next framed record, or return false at a clean or torn end of stream
+     */
+    private boolean readRecord(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (length <= 0 || length > MAX_RECORD_SIZE) {
+            return false;
+        }
+        int expectedCrc = in.readInt();
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        if ((int) crc.getValue() != expectedCrc) {
+            return false;
+        }
+        DataInputStream payload = new DataInputStream(new ByteArrayInputStream(bytes));
+        byte op = payload.readByte();
+        int id = payload.readInt();
+        int state = payload.readByte();
+        long triggerAt = payload.readLong();
+        int jsonLength = payload.readInt();
+        String json = null;
+        if (jsonLength >= 0) {
+            byte[] jsonBytes = new byte[jsonLength];
+            payload.readFully(jsonBytes);
+            json = new String(jsonBytes, StandardCharsets.UTF_8);
+        }
+        long shownAt = payload.available() >= 8 ? payload.readLong() : 0;
+        apply(op, id, state, triggerAt, shownAt, json);
+        return true;
+    }
+
+    private void apply(byte op, int id, int state, long triggerAt, long shownAt, String json) {
+        switch (op) {
+            case OP_PUT:
+                index(new Entry(id, state, triggerAt, shownAt, json, null));
+                break;
+            case OP_REMOVE:
+                unindex(id);
+                break;
+            case OP_CLEAR_STATE:
+                clearIndexed(state);
+                break;
+            default:
+                Log.w(TAG, "Unknown log op " + op);
+        }
+    }
+
+    private void readSnapshot() {
+        if (!snapshotFile.exists()) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(snapshotFile), 64 * 1024))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                Log.w(TAG, "Ignoring snapshot with unknown format");
+                return;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                if (!readRecord(in)) {
+                    Log.w(TAG, "Snapshot ended early after " + i + " of " + count + " records");
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading snapshot", e);
+        }
+    }
+
+    /**
+     * Replay the log on top of the snapshot
+     * @return Length in bytes of the valid log prefix
+     */
+    private long replayLog() {
+        logRecordCount = 0;
+        if (!logFile.exists()) {
+            return 0;
+        }
+        long validLength = 0;
+        try {
+            // The log is bounded by compaction, so read it in one go and track record boundaries
+            byte[] bytes = readFully(logFile);
+            ByteArrayInputStream source = new ByteArrayInputStream(bytes);
+            DataInputStream in = new DataInputStream(source);
+            while (true) {
+                boolean ok;
+                try {
+                    ok = readRecord(in);
+                } catch (EOFException e) {
+                    ok = false;
+                }
+                if (!ok) {
+                    break;
+                }
+                validLength = bytes.length - source.available();
+                logRecordCount++;
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error replaying notification log", e);
+        }
+        if (validLength < logFile.length()) {
+            Log.w(TAG, "Discarding " + (logFile.length() - validLength) + " trailing bytes of torn log");
+        }
+        return validLength;
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(32, file.length()));
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private void truncateLog(long length) throws IOException {
+        if (!logFile.exists() || logFile.length() == length) {
+            return;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(logFile, "rw")) {
+            raf.setLength(length);
+        }
+    }
+
+    private DataOutputStream openLogForAppend() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true), 8 * 1024));
+    }
+
+    // ---- Compaction -----------------------------------------------------
+
+    private boolean shouldCompact() {
+        return logRecordCount > Math.max(MIN_COMPACTION_RECORDS, entries.size() * 2);
+    }
+
+    /**
+     * Write the live entries to a fresh snapshot and reset the log.
+     * The snapshot is synced and atomically renamed before the log is truncated.
+     */
+    synchronized void compact() {
+        long start = System.nanoTime();
+        try {
+            try (FileOutputStream fos = new FileOutputStream(snapshotTmpFile)) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 64 * 1024));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(entries.size());
+                for (Entry entry : entries.values()) {
+                    writeRecord(out, OP_PUT, entry.id, entry.state, entry.triggerAt, entry.shownAt, entry.json);
+                }
+                out.flush();
+                fos.getFD().sync();
+            }
+            if (!snapshotTmpFile.renameTo(snapshotFile)) {
+                throw new IOException("Unable to rename snapshot");
+            }
+            if (logOut != null) {
+                logOut.close();
+            }
+            truncateLog(0);
+            logOut = openLogForAppend();
+            logRecordCount = 0;
+            // The snapshot holds the in-memory state of every entry
+            unpersisted.clear();
+            Log.d(TAG, "Compacted " + entries.size() + " entries in " + (System.nanoTime() - start) / 1000 + "us");
+        } catch (IOException e) {
+            Log.e(TAG, "Snapshot compaction failed, keeping log", e);
+            snapshotTmpFile.delete();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.util.Log;
+
+import com.getcapacitor.Bridge;
+import com.getcapacitor.JSObject;
+import com.getcapacitor.plugin.util.CapacitorHttpUrlConnection;
+import com.getcapacitor.plugin.util.HttpRequestHandler;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * HTTP downloads bound to a progress notification.
+ *
+ * The connection is opened with Capacitor's {@link HttpRequestHandler}
+ * builder, so headers, timeouts and SSL pinning behave like CapacitorHttp.
+ * Bytes read are reported through a {@link HttpRequestHandler.ProgressEmitter}
+ * straight into {@link ProgressUpdateEngine}, which coalesces them; JS is not
+ * involved until the download ends. Completion or failure replaces the
+ * progress bar with a final state.
+ */
+class ProgressDownload {
+
+    private static final String TAG = "ProgressDownload";
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+        2,
+        SchedulePipeline.namedThreads("ModernNotifications-download")
+    );
+
+    interface Callback {
+        void onComplete(JSObject result);
+
+        void onError(String message, Exception e);
+    }
+
+    /**
+     * One download; fields are set by the caller before {@link #start}
+     */
+    static final class Request {
+
+        NotificationSpec spec;
+        URL url;
+        JSObject headers = new JSObject();
+        Integer connectTimeout;
+        Integer readTimeout;
+        File destination;
+        String completeBody;
+        String failedBody;
+
+        private volatile Future<?> task;
+        // Guarded by the request, so a final state is never posted after cancel returns
+        private boolean cancelled;
+    }
+
+    private final Bridge bridge;
+    private final ProgressUpdateEngine progressUpdates;
+    private final Map<Integer, Request> active = new ConcurrentHashMap<>();
+
+    ProgressDownload(Bridge bridge, ProgressUpdateEngine progressUpdates) {
+        this.bridge = bridge;
+        this.progressUpdates = progressUpdates;
+    }
+
+    /**
+     * Start a download; an earlier one for the same notification is cancelled
+     */
+    void start(Request request, Callback callback) {
+        int id = request.spec.id;
+        cancel(id);
+        active.put(id, request);
+        request.task = executor.submit(() -> run(request, callback));
+    }
+
+    /**
+     * Abort the download for a notification, without posting a final state
+     */
+    void cancel(int id) {
+        Request download = active.remove(id);
+        if (download != null) {
+            stop(download);
+        }
+    }
+
+    /**
+     * Abort every download, e.g. when all notifications are removed
+     */
+    void cancelAll() {
+        for (Integer id : active.keySet()) {
+            cancel(id);
+        }
+    }
+
+    private static void stop(Request download) {
+        synchronized (download) {
+            download.cancelled = true;
+        }
+        if (download.task != null) {
+            download.task.cancel(true);
+        }
+    }
+
+    /**
+     * Replace the progress bar with a final state unless the download was cancelled,
+     * which may have removed the notification already
+     * @return False if cancelled
+     */
+    private boolean finish(Request request, String body) {
+        synchronized (request) {
+            if (request.cancelled) {
+                return false;
+            }
+            progressUpdates.finish(request.spec.id, finalState(request.spec, body));
+            return true;
+        }
+    }
+
+    private void run(Request request, Callback callback) {
+        NotificationSpec spec = request.spec;
+        CapacitorHttpUrlConnection connection = null;
+        long bytes = 0;
+        try {
+            connection = new HttpRequestHandler.HttpURLConnectionBuilder()
+                .setUrl(request.url)
+                .setMethod("GET")
+                .setHeaders(request.headers)
+                .setConnectTimeout(request.connectTimeout)
+                .setReadTimeout(request.readTimeout)
+                .openConnection()
+                .build();
+            if (bridge != null && !HttpRequestHandler.isDomainExcludedFromSSL(bridge, request.url)) {
+                connection.setSSLSocketFactory(bridge);
+            }
+            connection.connect();
+
+            int status = connection.getResponseCode();
+            if (status < 200 || status >= 300) {
+                throw new IOException("HTTP " + status);
+            }
+            int contentLength = parseContentLength(connection.getHeaderField("Content-Length"));
+            NotificationSpec.ProgressSpec progress = spec.progress != null ? spec.progress : NotificationSpec.ProgressSpec.EMPTY;
+            if (contentLength <= 0) {
+                progressUpdates.setProgressStyle(spec.id, indeterminate(progress));
+            }
+            HttpRequestHandler.ProgressEmitter emitter = progressEmitter(spec.id, progress.maxProgress);
+
+            File parent = request.destination.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Cannot create " + parent);
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (InputStream in = connection.getInputStream(); OutputStream out = new FileOutputStream(request.destination)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        throw new InterruptedIOException("Download cancelled");
+                    }
+                    out.write(buffer, 0, read);
+                    bytes += read;
+                    emitter.emit((int) Math.min(bytes, Integer.MAX_VALUE), contentLength);
+                }
+            }
+
+            if (!finish(request, request.completeBody != null ? request.completeBody : "Download complete")) {
+                throw new InterruptedIOException("Download cancelled");
+            }
+            JSObject result = new JSObject();
+            result.put("path", request.destination.getAbsolutePath());
+            result.put("bytes", bytes);
+            result.put("status", status);
+            Log.d(TAG, "✅ Download finished for notification " + spec.id + ": " + bytes + " bytes");
+            callback.onComplete(result);
+        } catch (Exception e) {
+            request.destination.delete();
+            if (
+                e instanceof InterruptedIOException ||
+                Thread.currentThread().isInterrupted() ||
+                !finish(request, request.failedBody != null ? request.failedBody : "Download failed")
+            ) {
+                // Cancelled together with its notification, nothing left to update
+                progressUpdates.discard(spec.id);
+                callback.onError("Download cancelled", e);
+                return;
+            }
+            Log.e(TAG, "💥 Download failed for notification " + spec.id, e);
+            callback.onError("Download failed: " + e.getMessage(), e);
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+            active.remove(spec.id, request);
+        }
+    }
+
+    /**
+     * Scale bytes to the notification's progress range, submitting only when the value changes
+     */
+    private HttpRequestHandler.ProgressEmitter progressEmitter(int id, int maxProgress) {
+        int[] last = { -1 };
+        return (bytes, contentLength) -> {
+            if (contentLength == null || contentLength <= 0) {
+                return;
+            }
+            int value = (int) ((long) bytes * maxProgress / contentLength);
+            if (value != last[0]) {
+                last[0] = value;
+                progressUpdates.setProgress(id, value);
+            }
+        };
+    }
+
+    private static NotificationSpec.ProgressSpec indeterminate(NotificationSpec.ProgressSpec progress) {
+        return new NotificationSpec.ProgressSpec(
+            progress.progress,
+            progress.maxProgress,
+            true,
+            progress.styledByProgress,
+            progress.trackerIcon,
+            progress.startIcon,
+            progress.endIcon,
+            progress.segments,
+            progress.points
+        );
+    }
+
+    private static NotificationSpec finalState(NotificationSpec spec, String body) {
+        return spec.toBuilder().setBody(body).setProgress(null).clearActions().setOngoing(false).setAutoCancel(true).build();
+    }
+
+    private static int parseContentLength(String value) {
+        if (value == null) {
+            return -1;
+        }
+        try {
+            long length = Long.parseLong(value.trim());
+            return length > Integer.MAX_VALUE ? -1 : (int) length;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
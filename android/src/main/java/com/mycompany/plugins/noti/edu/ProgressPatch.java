@@ -0,0 +1,194 @@
+package com.mycompany.plugins.noti.edu;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One incremental change to the segments or points of a progress notification.
+ *
+ * Patches address an element by index or by its {@code key} and are applied
+ * in order to the native model, so JS only sends what changed instead of the
+ * whole segments and points arrays.
+ */
+final class ProgressPatch {
+
+    static final String OP_INSERT = "insert";
+    static final String OP_REMOVE = "remove";
+    static final String OP_UPDATE = "update";
+
+    static final String TARGET_SEGMENT = "segment";
+    static final String TARGET_POINT = "point";
+
+    final String op;
+    final boolean point;
+    /** Position to insert at or element index; null means end (insert) or look up by key */
+    final Integer index;
+    final String key;
+    /** Element for inserts */
+    final NotificationSpec.Segment segment;
+    final NotificationSpec.Point pointValue;
+    /** Fields to change for updates */
+    final JSONObject changes;
+
+    private ProgressPatch(String op, boolean point, Integer index, String key, NotificationSpec.Segment segment, NotificationSpec.Point pointValue, JSONObject changes) {
+        this.op = op;
+        this.point = point;
+        this.index = index;
+        this.key = key;
+        this.segment = segment;
+        this.pointValue = pointValue;
+        this.changes = changes;
+    }
+
+    /**
+     * Patches appending points at the end, used by {@code addProgressPoints}
+     */
+    static List<ProgressPatch> appendPoints(List<NotificationSpec.Point> points) {
+        List<ProgressPatch> patches = new ArrayList<>(points.size());
+        for (NotificationSpec.Point point : points) {
+            patches.add(new ProgressPatch(OP_INSERT, true, null, null, null, point, null));
+        }
+        return patches;
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown op or target, or a missing value
+     */
+    static List<ProgressPatch> parseAll(JSONArray array) {
+        List<ProgressPatch> patches = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.optJSONObject(i);
+            if (json == null) {
+                throw new IllegalArgumentException("Patch " + i + " is not an object");
+            }
+            patches.add(parse(json));
+        }
+        return patches;
+    }
+
+    static ProgressPatch parse(JSONObject json) {
+        String op = NotificationSpec.string(json, "op");
+        String target = NotificationSpec.string(json, "target");
+        if (!TARGET_SEGMENT.equals(target) && !TARGET_POINT.equals(target)) {
+            throw new IllegalArgumentException("Unknown patch target: " + target);
+        }
+        boolean point = TARGET_POINT.equals(target);
+        Integer index = json.has("index") ? json.optInt("index") : null;
+        String key = NotificationSpec.string(json, "key");
+        JSONObject value = json.optJSONObject("value");
+
+        if (OP_INSERT.equals(op)) {
+            if (value == null) {
+                throw new IllegalArgumentException("Insert needs a value");
+            }
+            if (point) {
+                return new ProgressPatch(op, true, index, key, null, NotificationSpec.Point.parse(value), null);
+            }
+            return new ProgressPatch(op, false, index, key, NotificationSpec.Segment.parse(value), null, null);
+        }
+        if (OP_REMOVE.equals(op) || OP_UPDATE.equals(op)) {
+            if (index == null && key == null) {
+                throw new IllegalArgumentException(op + " needs an index or a key");
+            }
+            if (OP_UPDATE.equals(op) && value == null) {
+                throw new IllegalArgumentException("Update needs a value");
+            }
+            return new ProgressPatch(op, point, index, key, null, null, value);
+        }
+        throw new IllegalArgumentException("Unknown patch op: " + op);
+    }
+
+    /**
+     * Apply patches in order. Patches whose element does not exist are skipped.
+     * @return Number of patches that changed something
+     */
+    static int applyAll(List<ProgressPatch> patches, List<NotificationSpec.Segment> segments, List<NotificationSpec.Point> points) {
+        int applied = 0;
+        for (ProgressPatch patch : patches) {
+            if (patch.point ? patch.applyToPoints(points) : patch.applyToSegments(segments)) {
+                applied++;
+            }
+        }
+        return applied;
+    }
+
+    private boolean applyToSegments(List<NotificationSpec.Segment> segments) {
+        if (OP_INSERT.equals(op)) {
+            NotificationSpec.Segment value = key != null && segment.key == null
+                ? new NotificationSpec.Segment(segment.length, segment.colorString, segment.color, key)
+                : segment;
+            segments.add(insertionIndex(segments.size()), value);
+            return true;
+        }
+        int i = index != null ? index : indexOfSegment(segments, key);
+        if (i < 0 || i >= segments.size()) {
+            return false;
+        }
+        if (OP_REMOVE.equals(op)) {
+            segments.remove(i);
+            return true;
+        }
+        NotificationSpec.Segment current = segments.get(i);
+        String colorString = changes.has("color") ? NotificationSpec.string(changes, "color") : current.colorString;
+        segments.set(i, new NotificationSpec.Segment(
+            changes.optInt("length", current.length),
+            colorString,
+            changes.has("color") ? NotificationSpec.color(colorString) : current.color,
+            current.key
+        ));
+        return true;
+    }
+
+    private boolean applyToPoints(List<NotificationSpec.Point> points) {
+        if (OP_INSERT.equals(op)) {
+            NotificationSpec.Point value = key != null && pointValue.key == null
+                ? new NotificationSpec.Point(pointValue.position, pointValue.colorString, pointValue.color, pointValue.icon, key)
+                : pointValue;
+            points.add(insertionIndex(points.size()), value);
+            return true;
+        }
+        int i = index != null ? index : indexOfPoint(points, key);
+        if (i < 0 || i >= points.size()) {
+            return false;
+        }
+        if (OP_REMOVE.equals(op)) {
+            points.remove(i);
+            return true;
+        }
+        NotificationSpec.Point current = points.get(i);
+        String colorString = changes.has("color") ? NotificationSpec.string(changes, "color") : current.colorString;
+        points.set(i, new NotificationSpec.Point(
+            changes.optInt("position", current.position),
+            colorString,
+            changes.has("color") ? NotificationSpec.color(colorString) : current.color,
+            changes.has("icon") ? NotificationSpec.string(changes, "icon") : current.icon,
+            current.key
+        ));
+        return true;
+    }
+
+    private int insertionIndex(int size) {
+        return index == null ? size : Math.max(0, Math.min(size, index));
+    }
+
+    private static int indexOfSegment(List<NotificationSpec.Segment> segments, String key) {
+        for (int i = 0; i < segments.size(); i++) {
+            if (key.equals(segments.get(i).key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOfPoint(List<NotificationSpec.Point> points, String key) {
+        for (int i = 0; i < points.size(); i++) {
+            if (key.equals(points.get(i).key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,288 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Advances time-based progress natively, so JS does not have to call
+ * {@code updateProgress} on a timer.
+ *
+ * Each ticker follows a piecewise-linear track of (time, progress) nodes,
+ * built from a rate, an end time or keyframes; keyframes can also swap
+ * segments and points at their time. All tickers share one scheduled task
+ * that wakes only at the next moment some notification's integer progress
+ * actually changes (or a keyframe is due), never faster than the update
+ * engine can post. Values go through {@link ProgressUpdateEngine}, so they
+ * are coalesced and rate-limited like updates from JS.
+ */
+class ProgressTicker {
+
+    private static final String TAG = "ProgressTicker";
+
+    /** One wakeup serves every running ticker */
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        SchedulePipeline.namedThreads("ModernNotifications-ticker")
+    );
+
+    /**
+     * A state change applied when its time comes
+     */
+    static final class Keyframe {
+
+        final long at;
+        final Integer progress;
+        final List<NotificationSpec.Segment> segments;
+        final List<NotificationSpec.Point> points;
+
+        /**
+         * @param progress Progress reached at {@code at}, interpolated towards from the previous node, or null
+         * @param segments Segments set at {@code at}, or null to keep them
+         * @param points Points set at {@code at}, or null to keep them
+         */
+        Keyframe(long at, Integer progress, List<NotificationSpec.Segment> segments, List<NotificationSpec.Point> points) {
+            this.at = at;
+            this.progress = progress;
+            this.segments = segments;
+            this.points = points;
+        }
+    }
+
+    private static final class Ticker {
+
+        final long[] times;
+        final int[] values;
+        final List<Keyframe> keyframes;
+        int nextKeyframe;
+        int lastValue;
+
+        Ticker(long[] times, int[] values, List<Keyframe> keyframes, int currentValue) {
+            this.times = times;
+            this.values = values;
+            this.keyframes = keyframes;
+            this.lastValue = currentValue;
+        }
+
+        /**
+         * Progress at {@code now}; truncated towards the start value of the current piece
+         */
+        int valueAt(long now) {
+            if (now <= times[0]) {
+                return values[0];
+            }
+            for (int i = 0; i + 1 < times.length; i++) {
+                if (now < times[i + 1]) {
+                    long dt = times[i + 1] - times[i];
+                    long dv = values[i + 1] - values[i];
+                    return (int) (values[i] + dv * (now - times[i]) / dt);
+                }
+            }
+            return values[values.length - 1];
+        }
+
+        /**
+         * Earliest time after {@code now} at which {@link #valueAt} differs from {@code current}
+         * or a keyframe is due, or {@code Long.MAX_VALUE} when nothing will change
+         */
+        long nextChange(long now, int current) {
+            long next = Long.MAX_VALUE;
+            if (nextKeyframe < keyframes.size()) {
+                next = keyframes.get(nextKeyframe).at;
+            }
+            if (now < times[0]) {
+                return Math.min(next, times[0]);
+            }
+            for (int i = 0; i + 1 < times.length; i++) {
+                if (now < times[i + 1]) {
+                    long dt = times[i + 1] - times[i];
+                    long dv = Math.abs((long) values[i + 1] - values[i]);
+                    long change = times[i + 1];
+                    if (dv > 0) {
+                        long steps = Math.abs((long) current - values[i]) + 1;
+                        // First t where dv * (t - start) reaches steps * dt
+                        change = Math.min(change, times[i] + (steps * dt + dv - 1) / dv);
+                    }
+                    return Math.min(next, Math.max(change, now + 1));
+                }
+            }
+            return next;
+        }
+
+        boolean isFinished(long now) {
+            return now >= times[times.length - 1] && nextKeyframe >= keyframes.size();
+        }
+    }
+
+    private final ProgressUpdateEngine progressUpdates;
+
+    // Guarded by this
+    private final Map<Integer, Ticker> tickers = new HashMap<>();
+    private ScheduledFuture<?> wakeup;
+    private long wakeupAt = Long.MAX_VALUE;
+    private long ticks;
+    private long valuesPosted;
+
+    ProgressTicker(ProgressUpdateEngine progressUpdates) {
+        this.progressUpdates = progressUpdates;
+    }
+
+    /**
+     * Move linearly from {@code from} to {@code to}, reaching it at {@code endAt}
+     */
+    void startLinear(int id, int from, int to, long endAt) {
+        long now = System.currentTimeMillis();
+        if (endAt <= now) {
+            progressUpdates.setProgress(id, to);
+            stop(id);
+            return;
+        }
+        start(id, new Ticker(new long[] { now, endAt }, new int[] { from, to }, Collections.emptyList(), from));
+    }
+
+    /**
+     * Move at {@code perSecond} units per second from {@code from} to {@code to}
+     */
+    void startRate(int id, int from, int to, double perSecond) {
+        long duration = (long) Math.ceil(Math.abs(to - from) * 1000.0 / perSecond);
+        startLinear(id, from, to, System.currentTimeMillis() + duration);
+    }
+
+    /**
+     * Follow keyframes; progress is interpolated between keyframes that set one
+     * @param from Current progress, the value the first piece starts at
+     */
+    void startKeyframes(int id, int from, List<Keyframe> keyframes) {
+        List<Keyframe> sorted = new ArrayList<>(keyframes);
+        sorted.sort((a, b) -> Long.compare(a.at, b.at));
+
+        long now = System.currentTimeMillis();
+        List<Long> times = new ArrayList<>();
+        List<Integer> values = new ArrayList<>();
+        times.add(now);
+        values.add(from);
+        for (Keyframe keyframe : sorted) {
+            if (keyframe.progress == null) {
+                continue;
+            }
+            if (keyframe.at <= times.get(times.size() - 1)) {
+                // Already due, jump straight to it
+                values.set(values.size() - 1, keyframe.progress);
+            } else {
+                times.add(keyframe.at);
+                values.add(keyframe.progress);
+            }
+        }
+        long[] t = new long[times.size()];
+        int[] v = new int[values.size()];
+        for (int i = 0; i < t.length; i++) {
+            t[i] = times.get(i);
+            v[i] = values.get(i);
+        }
+        start(id, new Ticker(t, v, sorted, from));
+    }
+
+    synchronized void stop(int id) {
+        if (tickers.remove(id) != null) {
+            reschedule();
+        }
+    }
+
+    synchronized void stopAll() {
+        tickers.clear();
+        reschedule();
+    }
+
+    synchronized boolean isRunning(int id) {
+        return tickers.containsKey(id);
+    }
+
+    synchronized int getActiveCount() {
+        return tickers.size();
+    }
+
+    synchronized long getTicks() {
+        return ticks;
+    }
+
+    synchronized long getValuesPosted() {
+        return valuesPosted;
+    }
+
+    private synchronized void start(int id, Ticker ticker) {
+        tickers.put(id, ticker);
+        // Apply whatever is due right away, then sleep until the next change
+        tickLocked(System.currentTimeMillis());
+    }
+
+    private synchronized void tick() {
+        wakeup = null;
+        wakeupAt = Long.MAX_VALUE;
+        tickLocked(System.currentTimeMillis());
+    }
+
+    private void tickLocked(long now) {
+        ticks++;
+        Iterator<Map.Entry<Integer, Ticker>> it = tickers.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Ticker> entry = it.next();
+            int id = entry.getKey();
+            Ticker ticker = entry.getValue();
+
+            while (ticker.nextKeyframe < ticker.keyframes.size() && ticker.keyframes.get(ticker.nextKeyframe).at <= now) {
+                Keyframe keyframe = ticker.keyframes.get(ticker.nextKeyframe++);
+                if (keyframe.segments != null) {
+                    progressUpdates.setSegments(id, keyframe.segments, keyframe.points);
+                } else if (keyframe.points != null) {
+                    progressUpdates.setPoints(id, keyframe.points);
+                }
+            }
+
+            int value = ticker.valueAt(now);
+            if (value != ticker.lastValue) {
+                ticker.lastValue = value;
+                progressUpdates.setProgress(id, value);
+                valuesPosted++;
+            }
+            if (ticker.isFinished(now)) {
+                Log.d(TAG, "Ticker finished for notification " + id);
+                it.remove();
+            }
+        }
+        reschedule();
+    }
+
+    /**
+     * Keep exactly one wakeup, at the earliest change of any ticker
+     */
+    private void reschedule() {
+        long now = System.currentTimeMillis();
+        long next = Long.MAX_VALUE;
+        for (Ticker ticker : tickers.values()) {
+            next = Math.min(next, ticker.nextChange(now, ticker.lastValue));
+        }
+        if (next != Long.MAX_VALUE) {
+            // Changes faster than the engine posts would only be coalesced away
+            next = Math.max(next, now + progressUpdates.getMinIntervalMs());
+        }
+        if (next == wakeupAt) {
+            return;
+        }
+        if (wakeup != null) {
+            wakeup.cancel(false);
+            wakeup = null;
+        }
+        wakeupAt = next;
+        if (next != Long.MAX_VALUE) {
+            wakeup = executor.schedule(this::tick, next - now, TimeUnit.MILLISECONDS);
+        }
+    }
+}
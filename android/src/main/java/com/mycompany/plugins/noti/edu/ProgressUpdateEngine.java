@@ -0,0 +1,354 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.app.Notification;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalescing, rate-limited engine behind the progress update methods.
+ *
+ * Updates are merged per notification id while they wait: the progress value,
+ * segments and replaced points are last-writer-wins, added points and
+ * {@link ProgressPatch patches} accumulate in order.
+ * A single flusher posts at most {@code maxProgressUpdatesPerSecond} updates
+ * for the whole app, which keeps it under the system's per-package post rate
+ * (updates above it are silently dropped by NotificationManagerService).
+ * Notifications are re-posted in place with the same id through
+ * {@link NotificationPoster}, so there is no cancel and no flicker, and an
+ * update that changes nothing visible is not posted at all.
+ *
+ * {@link #discard(int)} also stops an update that is already being rendered:
+ * the post and its store write are re-checked under this engine's lock, so
+ * a notification cancelled meanwhile is not brought back.
+ */
+class ProgressUpdateEngine implements NotificationPoster.Gate {
+
+    private static final String TAG = "ProgressUpdates";
+
+    /** NotificationManagerService drops posts above this rate per package */
+    static final int PLATFORM_MAX_UPDATES_PER_SECOND = 5;
+    static final int DEFAULT_MAX_UPDATES_PER_SECOND = 4;
+
+    /** Single flusher, so posts for one id are never reordered */
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+        SchedulePipeline.namedThreads("ModernNotifications-progress")
+    );
+
+    /**
+     * Pending changes for one notification, in a form where merging a new
+     * change gives the same result as applying both in order
+     */
+    private static final class PendingUpdate {
+
+        NotificationSpec finalSpec;
+        NotificationSpec.ProgressSpec replacement;
+        Integer progress;
+        List<NotificationSpec.Segment> segments;
+        List<NotificationSpec.Point> points;
+        /** Applied after the replacements above; a replacement drops the patches before it */
+        final List<ProgressPatch> patches = new ArrayList<>();
+
+        boolean changesProgress() {
+            return replacement != null || progress != null || segments != null || points != null || !patches.isEmpty();
+        }
+
+        void clearProgressChanges() {
+            replacement = null;
+            progress = null;
+            segments = null;
+            points = null;
+            patches.clear();
+        }
+
+        void replaceSegments(List<NotificationSpec.Segment> segments) {
+            this.segments = segments;
+            patches.removeIf(patch -> !patch.point);
+        }
+
+        void replacePoints(List<NotificationSpec.Point> points) {
+            this.points = points;
+            patches.removeIf(patch -> patch.point);
+        }
+
+        NotificationSpec.ProgressSpec applyTo(NotificationSpec.ProgressSpec current) {
+            NotificationSpec.ProgressSpec result = replacement != null ? replacement : current;
+            if (progress != null) {
+                result = result.withProgress(progress);
+            }
+            if (segments != null) {
+                result = result.withSegments(segments);
+            }
+            if (points != null) {
+                result = result.withPoints(points);
+            }
+            if (!patches.isEmpty()) {
+                boolean patchesSegments = false;
+                boolean patchesPoints = false;
+                for (ProgressPatch patch : patches) {
+                    patchesPoints |= patch.point;
+                    patchesSegments |= !patch.point;
+                }
+                // One copy per flush, however many patches were merged
+                List<NotificationSpec.Segment> patchedSegments = result.segments != null ? new ArrayList<>(result.segments) : new ArrayList<>();
+                List<NotificationSpec.Point> patchedPoints = result.points != null ? new ArrayList<>(result.points) : new ArrayList<>();
+                ProgressPatch.applyAll(patches, patchedSegments, patchedPoints);
+                if (patchesSegments) {
+                    result = result.withSegments(patchedSegments);
+                }
+                if (patchesPoints) {
+                    result = result.withPoints(patchedPoints);
+                }
+            }
+            return result;
+        }
+    }
+
+    private interface Change {
+        void mergeInto(PendingUpdate update);
+    }
+
+    private final ModernNotificationsPlugin plugin;
+    private final NotificationRenderer renderer;
+    private final NotificationPoster poster;
+
+    // Guarded by this
+    private final Map<Integer, PendingUpdate> pending = new LinkedHashMap<>();
+    private long intervalMs = 1000 / DEFAULT_MAX_UPDATES_PER_SECOND;
+    private long lastPostAt = Long.MIN_VALUE / 2;
+    private boolean flushScheduled;
+    /** Id of the update being posted outside the lock, and whether it was discarded meanwhile */
+    private Integer inFlight;
+    private boolean inFlightDiscarded;
+    private long submitted;
+    private long coalesced;
+    private long posted;
+    private long failed;
+
+    ProgressUpdateEngine(ModernNotificationsPlugin plugin, NotificationPoster poster, NotificationRenderer renderer) {
+        this.plugin = plugin;
+        this.poster = poster;
+        this.renderer = renderer;
+    }
+
+    /**
+     * @param updatesPerSecond Clamped to 1..{@link #PLATFORM_MAX_UPDATES_PER_SECOND}
+     */
+    synchronized void setMaxUpdatesPerSecond(int updatesPerSecond) {
+        int rate = Math.max(1, Math.min(PLATFORM_MAX_UPDATES_PER_SECOND, updatesPerSecond));
+        intervalMs = 1000 / rate;
+    }
+
+    synchronized long getMinIntervalMs() {
+        return intervalMs;
+    }
+
+    void setProgress(int id, int progress) {
+        submit(id, update -> update.progress = progress);
+    }
+
+    /**
+     * Replace the whole progress style, dropping changes still pending for the id
+     */
+    void setProgressStyle(int id, NotificationSpec.ProgressSpec progressStyle) {
+        submit(id, update -> {
+            update.clearProgressChanges();
+            update.replacement = progressStyle;
+        });
+    }
+
+    /**
+     * Post {@code finalSpec} as the notification's last state, after any update already
+     * in flight and replacing the ones still pending
+     */
+    void finish(int id, NotificationSpec finalSpec) {
+        submit(id, update -> {
+            update.clearProgressChanges();
+            update.finalSpec = finalSpec;
+        });
+    }
+
+    void addPoints(int id, List<NotificationSpec.Point> points) {
+        applyPatches(id, ProgressPatch.appendPoints(points));
+    }
+
+    /**
+     * Queue incremental segment and point changes, applied in order after what is already pending
+     */
+    void applyPatches(int id, List<ProgressPatch> patches) {
+        submit(id, update -> update.patches.addAll(patches));
+    }
+
+    /**
+     * Replace the points, keeping segments and progress
+     */
+    void setPoints(int id, List<NotificationSpec.Point> points) {
+        submit(id, update -> update.replacePoints(points));
+    }
+
+    /**
+     * @param points New points replacing the current ones, or null to keep them
+     */
+    void setSegments(int id, List<NotificationSpec.Segment> segments, List<NotificationSpec.Point> points) {
+        submit(id, update -> {
+            update.replaceSegments(segments);
+            if (points != null) {
+                update.replacePoints(points);
+            }
+        });
+    }
+
+    /**
+     * Forget pending updates, e.g. when the notification is cancelled
+     */
+    synchronized void discard(int id) {
+        pending.remove(id);
+        if (inFlight != null && inFlight == id) {
+            inFlightDiscarded = true;
+        }
+    }
+
+    synchronized void discardAll() {
+        pending.clear();
+        if (inFlight != null) {
+            inFlightDiscarded = true;
+        }
+    }
+
+    /**
+     * Called by the poster under this engine's lock, right before the notify
+     */
+    @Override
+    public boolean allows(int id) {
+        return !(inFlightDiscarded && inFlight != null && inFlight == id);
+    }
+
+    synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("submitted", submitted);
+        stats.put("posted", posted);
+        stats.put("coalesced", coalesced);
+        stats.put("failed", failed);
+        stats.put("pending", pending.size());
+        stats.put("maxUpdatesPerSecond", 1000 / intervalMs);
+        return stats;
+    }
+
+    private synchronized void submit(int id, Change change) {
+        PendingUpdate update = pending.get(id);
+        if (update == null) {
+            update = new PendingUpdate();
+            pending.put(id, update);
+        } else {
+            coalesced++;
+        }
+        change.mergeInto(update);
+        submitted++;
+        scheduleFlushLocked();
+    }
+
+    private void scheduleFlushLocked() {
+        if (flushScheduled || pending.isEmpty()) {
+            return;
+        }
+        long delay = Math.max(0, lastPostAt + intervalMs - SystemClock.elapsedRealtime());
+        flushScheduled = true;
+        executor.schedule(this::flushNext, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Post the oldest pending update, then schedule the next one no sooner than the rate allows
+     */
+    private void flushNext() {
+        int id;
+        PendingUpdate update;
+        synchronized (this) {
+            flushScheduled = false;
+            Iterator<Map.Entry<Integer, PendingUpdate>> oldest = pending.entrySet().iterator();
+            if (!oldest.hasNext()) {
+                return;
+            }
+            Map.Entry<Integer, PendingUpdate> entry = oldest.next();
+            oldest.remove();
+            id = entry.getKey();
+            update = entry.getValue();
+            lastPostAt = SystemClock.elapsedRealtime();
+            inFlight = id;
+            inFlightDiscarded = false;
+        }
+
+        boolean ok = post(id, update);
+
+        synchronized (this) {
+            inFlight = null;
+            inFlightDiscarded = false;
+            if (ok) {
+                posted++;
+            } else {
+                failed++;
+            }
+            scheduleFlushLocked();
+        }
+    }
+
+    private boolean post(int id, PendingUpdate update) {
+        NotificationSpec spec = update.finalSpec != null ? update.finalSpec : plugin.getSpec(id);
+        if (spec == null) {
+            Log.w(TAG, "Notification " + id + " is gone, dropping progress update");
+            return false;
+        }
+        if (update.changesProgress()) {
+            NotificationSpec.ProgressSpec current = spec.progress != null ? spec.progress : NotificationSpec.ProgressSpec.EMPTY;
+            spec = spec.withProgress(update.applyTo(current));
+        }
+
+        try {
+            // Unchanged content is not posted; progress-only changes do not alert again
+            int result = poster.update(spec, this::render, this);
+            if (result == NotificationPoster.RESULT_SUPPRESSED) {
+                return true;
+            }
+            if (result == NotificationPoster.RESULT_CANCELLED) {
+                Log.d(TAG, "Notification " + id + " was cancelled while its progress update was rendered");
+                return true;
+            }
+            synchronized (this) {
+                // Cancelled between the post and here: it is gone, keep it out of the store too
+                if (!allows(id)) {
+                    return true;
+                }
+                if (update.finalSpec != null) {
+                    plugin.storeSpec(spec);
+                } else {
+                    plugin.storeProgress(spec);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error posting progress update for " + id, e);
+            return false;
+        }
+    }
+
+    private Notification render(NotificationSpec spec) {
+        Notification notification = null;
+        if (Build.VERSION.SDK_INT >= 36 && spec.progress != null && spec.progress.hasSegments()) {
+            notification = renderer.createNativeProgressNotificationDirect(spec);
+        }
+        if (notification == null) {
+            notification = renderer.createNotificationBuilder(spec, renderer.loadLargeIcon(spec.largeIcon)).build();
+        }
+        return notification;
+    }
+}
@@ -0,0 +1,540 @@
+package com.mycompany.plugins.noti.edu;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Native form of a recurring {@code schedule}, so one stored entry replaces
+ * every future occurrence.
+ *
+ * Three shapes are supported: a fixed interval ({@code after} with
+ * {@code repeats}, or {@code every} second/minute/hour), a calendar interval
+ * ({@code every} day/week/two-weeks/month/year, wall-clock aware across DST)
+ * and calendar matching ({@code on} or a five-field {@code cron}). Intervals
+ * count occurrences from the anchor {@code at}, so the next fire time is
+ * computed directly instead of by stepping; matching walks bit masks field
+ * by field and is bounded by a few years of calendar, or by the one year
+ * {@code on.year} names. Times are evaluated in {@code timezone}, or in the
+ * device zone at the time of the computation; a matching time skipped by a
+ * DST change fires at the shifted instant, as {@code ZonedDateTime.of}
+ * resolves it.
+ */
+final class RecurrenceRule {
+
+    private static final int KIND_INTERVAL = 0;
+    private static final int KIND_CALENDAR = 1;
+    private static final int KIND_MATCH = 2;
+
+    /** Leap days repeat every 8 years at worst (2096 to 2104); an {@code on.year} is searched directly */
+    private static final int MAX_SEARCH_YEARS = 8;
+
+    private static final long SECOND_MS = 1000L;
+    private static final long MINUTE_MS = 60 * SECOND_MS;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * HOUR_MS;
+    /** Average Gregorian lengths, only used to estimate the occurrence index */
+    private static final long MONTH_MS = 2_629_746_000L;
+    private static final long YEAR_MS = 31_556_952_000L;
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private static final String[] MONTH_NAMES = { "JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC" };
+    private static final String[] DAY_NAMES = { "SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT" };
+
+    private int kind;
+    /** First occurrence; for matching rules only a lower bound, 0 when there is none */
+    final long anchor;
+    /** Whether {@link #anchor} was not given and has to be recorded as {@code at} */
+    final boolean anchorImplied;
+    final boolean repeats;
+    /** Total firings left, 0 for no limit */
+    final int count;
+    private final TimeZone timeZone;
+
+    // KIND_INTERVAL
+    private long intervalMs;
+    // KIND_CALENDAR
+    private int calendarField;
+    private int amount;
+    private long approxUnitMs;
+    // KIND_MATCH: bit n set when value n matches
+    private long seconds;
+    private long minutes;
+    private long hours;
+    private long days;
+    private long months;
+    private long weekdays; // Calendar.SUNDAY (1) to Calendar.SATURDAY (7)
+    private int year;
+    private boolean dayOr;
+
+    private RecurrenceRule(int kind, long anchor, boolean anchorImplied, boolean repeats, int count, TimeZone timeZone) {
+        this.kind = kind;
+        this.anchor = anchor;
+        this.anchorImplied = anchorImplied;
+        this.repeats = repeats;
+        this.count = count;
+        this.timeZone = timeZone;
+    }
+
+    /**
+     * Rule described by a schedule object
+     * @param now Anchor used when the schedule has no {@code at}
+     * @return Rule, or null for a plain one-shot {@code at} or an empty schedule
+     * @throws IllegalArgumentException if a field is invalid
+     */
+    static RecurrenceRule parse(JSONObject schedule, long now) {
+        String cron = NotificationSpec.string(schedule, "cron");
+        JSONObject on = schedule.optJSONObject("on");
+        String every = NotificationSpec.string(schedule, "every");
+        boolean hasAfter = schedule.has("after") && !schedule.isNull("after");
+        if (cron == null && on == null && every == null && !hasAfter) {
+            return null;
+        }
+
+        String at = NotificationSpec.string(schedule, "at");
+        long anchor = now;
+        if (at != null) {
+            anchor = IsoDateParser.parse(at);
+            if (anchor == IsoDateParser.INVALID) {
+                throw new IllegalArgumentException("Invalid schedule.at: " + at);
+            }
+        }
+        boolean explicitRepeats = schedule.optBoolean("repeats", false);
+        boolean repeats = schedule.optBoolean("repeats", true);
+        int count = schedule.optInt("count", 0);
+        if (count < 0) {
+            throw new IllegalArgumentException("schedule.count must be positive");
+        }
+        TimeZone timeZone = null;
+        String zoneId = NotificationSpec.string(schedule, "timezone");
+        if (zoneId != null) {
+            timeZone = TimeZone.getTimeZone(zoneId);
+            if (!timeZone.getID().equals(zoneId)) {
+                throw new IllegalArgumentException("Unknown schedule.timezone: " + zoneId);
+            }
+        }
+
+        RecurrenceRule rule;
+        if (cron != null || on != null) {
+            rule = new RecurrenceRule(KIND_MATCH, at != null ? anchor : 0, false, repeats, count, timeZone);
+            if (cron != null) {
+                rule.parseCron(cron);
+            } else {
+                rule.parseOn(on);
+            }
+        } else if (every != null) {
+            rule = new RecurrenceRule(KIND_INTERVAL, anchor, at == null, repeats, count, timeZone);
+            rule.parseEvery(every);
+        } else {
+            long after = schedule.optLong("after", -1);
+            if (after <= 0) {
+                throw new IllegalArgumentException("schedule.after must be a positive number of milliseconds");
+            }
+            if (explicitRepeats && after < SECOND_MS) {
+                throw new IllegalArgumentException("Repeating schedule.after must be at least 1000 ms");
+            }
+            rule = new RecurrenceRule(KIND_INTERVAL, anchor, at == null, explicitRepeats, count, timeZone);
+            rule.intervalMs = after;
+        }
+        return rule;
+    }
+
+    /**
+     * Next occurrence of a schedule after one fired, counting that one against {@code count}
+     * @param schedule Updated with the remaining count
+     * @param firedAt Trigger time of the occurrence that fired, later than now for an early wakeup
+     * @return Epoch millis, or 0 if it does not fire again
+     * @throws IllegalArgumentException if a field is invalid
+     */
+    static long advance(JSONObject schedule, long now, long firedAt) {
+        RecurrenceRule rule = parse(schedule, now);
+        if (rule == null || !rule.repeats || rule.count == 1) {
+            return 0;
+        }
+        long next = rule.next(Math.max(now, firedAt));
+        if (next <= 0) {
+            return 0;
+        }
+        if (rule.count > 1) {
+            try {
+                schedule.put("count", rule.count - 1);
+            } catch (JSONException e) {
+                return 0;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * First occurrence strictly after a time
+     * @return Epoch millis, or -1 if the rule never fires again
+     */
+    long next(long after) {
+        switch (kind) {
+            case KIND_INTERVAL:
+                if (after < anchor) {
+                    return anchor;
+                }
+                return anchor + ((after - anchor) / intervalMs + 1) * intervalMs;
+            case KIND_CALENDAR:
+                return nextCalendar(after);
+            default:
+                return nextMatch(Math.max(after, anchor - 1));
+        }
+    }
+
+    /**
+     * Whether occurrences move with the device time zone: calendar rules without
+     * an explicit {@code timezone}. Fixed intervals are absolute.
+     */
+    boolean followsDeviceZone() {
+        return timeZone == null && kind != KIND_INTERVAL;
+    }
+
+    /**
+     * Anchor in the format {@code at} is read back from
+     */
+    static String formatTime(long time) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(time));
+    }
+
+    // ---- Intervals ------------------------------------------------------
+
+    private void parseEvery(String every) {
+        switch (every) {
+            case "second":
+                intervalMs = SECOND_MS;
+                return;
+            case "minute":
+                intervalMs = MINUTE_MS;
+                return;
+            case "hour":
+                intervalMs = HOUR_MS;
+                return;
+            default:
+                break;
+        }
+        // Days and longer keep the wall-clock time, so they are counted on the calendar
+        switch (every) {
+            case "day":
+                calendar(Calendar.DATE, 1, DAY_MS);
+                break;
+            case "week":
+                calendar(Calendar.DATE, 7, DAY_MS);
+                break;
+            case "two-weeks":
+                calendar(Calendar.DATE, 14, DAY_MS);
+                break;
+            case "month":
+                calendar(Calendar.MONTH, 1, MONTH_MS);
+                break;
+            case "year":
+                calendar(Calendar.YEAR, 1, YEAR_MS);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown schedule.every: " + every);
+        }
+    }
+
+    private void calendar(int field, int amount, long unitMs) {
+        kind = KIND_CALENDAR;
+        calendarField = field;
+        this.amount = amount;
+        approxUnitMs = unitMs * amount;
+    }
+
+    /**
+     * Occurrence index estimated from the average unit length, then corrected by
+     * the few steps that month and DST lengths can be off by
+     */
+    private long nextCalendar(long after) {
+        if (after < anchor) {
+            return anchor;
+        }
+        Calendar cal = Calendar.getInstance(zone());
+        long i = Math.max(0, (after - anchor) / approxUnitMs);
+        long time = occurrence(cal, i);
+        while (time <= after) {
+            time = occurrence(cal, ++i);
+        }
+        while (i > 1) {
+            long previous = occurrence(cal, i - 1);
+            if (previous <= after) {
+                break;
+            }
+            time = previous;
+            i--;
+        }
+        return time;
+    }
+
+    /**
+     * Occurrence i counted from the anchor, so month ends never drift (Jan 31, Feb 28, Mar 31)
+     */
+    private long occurrence(Calendar cal, long i) {
+        cal.setTimeInMillis(anchor);
+        cal.add(calendarField, (int) Math.min(Integer.MAX_VALUE, i * amount));
+        return cal.getTimeInMillis();
+    }
+
+    // ---- Calendar matching ----------------------------------------------
+
+    /**
+     * Fields of {@code on}. Unset fields below the largest set one fire at their
+     * first value, so {hour: 8} is 08:00:00 every day and {minute: 30} is :30 every hour.
+     */
+    private void parseOn(JSONObject on) {
+        int onYear = optField(on, "year", 1970, 9999);
+        int onMonth = optField(on, "month", 1, 12);
+        int onDay = optField(on, "day", 1, 31);
+        int onWeekday = optField(on, "weekday", 1, 7);
+        int onHour = optField(on, "hour", 0, 23);
+        int onMinute = optField(on, "minute", 0, 59);
+        int onSecond = optField(on, "second", 0, 59);
+        if (onYear < 0 && onMonth < 0 && onDay < 0 && onWeekday < 0 && onHour < 0 && onMinute < 0 && onSecond < 0) {
+            throw new IllegalArgumentException("schedule.on needs at least one field");
+        }
+        boolean dateSet = onYear >= 0 || onMonth >= 0 || onDay >= 0 || onWeekday >= 0;
+        year = Math.max(0, onYear);
+        months = onMonth >= 0 ? bit(onMonth) : range(1, 12);
+        days = onDay >= 0 ? bit(onDay) : range(1, 31);
+        weekdays = onWeekday >= 0 ? bit(onWeekday) : range(1, 7);
+        hours = onHour >= 0 ? bit(onHour) : dateSet ? bit(0) : range(0, 23);
+        minutes = onMinute >= 0 ? bit(onMinute) : dateSet || onHour >= 0 ? bit(0) : range(0, 59);
+        seconds = onSecond >= 0 ? bit(onSecond) : dateSet || onHour >= 0 || onMinute >= 0 ? bit(0) : range(0, 59);
+    }
+
+    private static int optField(JSONObject on, String name, int min, int max) {
+        if (!on.has(name) || on.isNull(name)) {
+            return -1;
+        }
+        int value = on.optInt(name, Integer.MIN_VALUE);
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("schedule.on." + name + " must be between " + min + " and " + max);
+        }
+        return value;
+    }
+
+    /**
+     * minute hour day-of-month month day-of-week, with *, lists, ranges, steps and
+     * JAN-DEC / SUN-SAT names. Like cron, a restricted day-of-month and day-of-week
+     * match either one.
+     */
+    private void parseCron(String cron) {
+        String[] fields = cron.trim().split("\\s+");
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("schedule.cron needs 5 fields: " + cron);
+        }
+        seconds = bit(0);
+        minutes = cronField(fields[0], 0, 59, null, 0);
+        hours = cronField(fields[1], 0, 23, null, 0);
+        days = cronField(fields[2], 1, 31, null, 0);
+        months = cronField(fields[3], 1, 12, MONTH_NAMES, 1);
+        // Cron counts Sunday as 0 or 7, Calendar as 1
+        long cronDays = cronField(fields[4], 0, 7, DAY_NAMES, 0);
+        weekdays = (cronDays & 0x7F) << 1 | (cronDays >>> 7 & 1) << 1;
+        dayOr = !fields[2].startsWith("*") && !fields[4].startsWith("*");
+    }
+
+    private static long cronField(String field, int min, int max, String[] names, int nameBase) {
+        long mask = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = cronValue(part.substring(slash + 1), 1, max, null, 0, field);
+                part = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if (part.equals("*")) {
+                from = min;
+                to = max;
+            } else {
+                int dash = part.indexOf('-');
+                from = cronValue(dash >= 0 ? part.substring(0, dash) : part, min, max, names, nameBase, field);
+                to = dash >= 0 ? cronValue(part.substring(dash + 1), min, max, names, nameBase, field) : slash >= 0 ? max : from;
+                if (to < from) {
+                    throw new IllegalArgumentException("Invalid schedule.cron range: " + field);
+                }
+            }
+            for (int value = from; value <= to; value += step) {
+                mask |= bit(value);
+            }
+        }
+        return mask;
+    }
+
+    private static int cronValue(String text, int min, int max, String[] names, int nameBase, String field) {
+        if (names != null) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equalsIgnoreCase(text)) {
+                    return i + nameBase;
+                }
+            }
+        }
+        try {
+            int value = Integer.parseInt(text);
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid schedule.cron field: " + field);
+    }
+
+    /**
+     * Advance the largest mismatching field to its next allowed value and reset the
+     * smaller ones, until every field matches. The walk is over wall-clock fields in
+     * a zone without DST; only the match is resolved to an instant in the rule's zone.
+     */
+    private long nextMatch(long after) {
+        TimeZone zone = zone();
+        Calendar cal = new GregorianCalendar(UTC);
+        long start = Math.floorDiv(after, SECOND_MS) * SECOND_MS;
+        cal.setTimeInMillis(start + zone.getOffset(start) + SECOND_MS);
+        int lastYear = cal.get(Calendar.YEAR) + MAX_SEARCH_YEARS;
+        if (year != 0) {
+            // A fixed year is searched directly, however far ahead it is
+            if (cal.get(Calendar.YEAR) > year) {
+                return -1;
+            }
+            if (cal.get(Calendar.YEAR) < year) {
+                startOfDay(cal, year, Calendar.JANUARY, 1);
+            }
+            lastYear = year;
+        }
+        while (cal.get(Calendar.YEAR) <= lastYear) {
+            int currentYear = cal.get(Calendar.YEAR);
+            int month = cal.get(Calendar.MONTH) + 1;
+            if (!has(months, month)) {
+                int nextMonth = nextIn(months, month);
+                if (nextMonth < 0) {
+                    startOfDay(cal, currentYear + 1, nextIn(months, 1) - 1, 1);
+                } else {
+                    startOfDay(cal, currentYear, nextMonth - 1, 1);
+                }
+                continue;
+            }
+            if (!dayMatches(cal)) {
+                cal.add(Calendar.DATE, 1);
+                startOfDay(cal, cal.get(Calendar.YEAR), cal.get(Calendar.MONTH), cal.get(Calendar.DATE));
+                continue;
+            }
+            int hour = cal.get(Calendar.HOUR_OF_DAY);
+            if (!has(hours, hour)) {
+                int nextHour = nextIn(hours, hour);
+                if (nextHour < 0) {
+                    cal.add(Calendar.DATE, 1);
+                    startOfDay(cal, cal.get(Calendar.YEAR), cal.get(Calendar.MONTH), cal.get(Calendar.DATE));
+                } else {
+                    setTime(cal, nextHour, 0, 0);
+                }
+                continue;
+            }
+            int minute = cal.get(Calendar.MINUTE);
+            if (!has(minutes, minute)) {
+                int nextMinute = nextIn(minutes, minute);
+                if (nextMinute < 0) {
+                    cal.add(Calendar.HOUR_OF_DAY, 1);
+                    cal.set(Calendar.MINUTE, 0);
+                    cal.set(Calendar.SECOND, 0);
+                } else {
+                    setTime(cal, hour, nextMinute, 0);
+                }
+                continue;
+            }
+            int second = cal.get(Calendar.SECOND);
+            if (!has(seconds, second)) {
+                int nextSecond = nextIn(seconds, second);
+                if (nextSecond < 0) {
+                    cal.add(Calendar.MINUTE, 1);
+                    cal.set(Calendar.SECOND, 0);
+                } else {
+                    cal.set(Calendar.SECOND, nextSecond);
+                }
+                continue;
+            }
+            long time = toInstant(cal.getTimeInMillis(), zone);
+            if (time > after) {
+                return time;
+            }
+            // Repeated wall-clock hour when DST ends, its first pass already fired
+            cal.add(Calendar.SECOND, 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Instant of a wall-clock time, resolved like {@code ZonedDateTime.of}: a time
+     * repeated when DST ends is its earlier instant, a time skipped when DST starts
+     * is moved later by the length of the gap
+     * @param local Wall-clock time as millis of the same fields in UTC
+     */
+    static long toInstant(long local, TimeZone zone) {
+        int offsetBefore = zone.getOffset(local - DAY_MS / 2);
+        int offsetAfter = zone.getOffset(local + DAY_MS / 2);
+        long before = local - offsetBefore;
+        long later = local - offsetAfter;
+        boolean beforeValid = zone.getOffset(before) == offsetBefore;
+        boolean laterValid = zone.getOffset(later) == offsetAfter;
+        if (beforeValid && laterValid) {
+            return Math.min(before, later);
+        }
+        if (laterValid) {
+            return later;
+        }
+        // In a gap, or valid with the earlier offset only
+        return before;
+    }
+
+    private boolean dayMatches(Calendar cal) {
+        boolean day = has(days, cal.get(Calendar.DATE));
+        boolean weekday = has(weekdays, cal.get(Calendar.DAY_OF_WEEK));
+        return dayOr ? day || weekday : day && weekday;
+    }
+
+    private static void startOfDay(Calendar cal, int year, int month, int day) {
+        cal.set(year, month, day, 0, 0, 0);
+    }
+
+    private static void setTime(Calendar cal, int hour, int minute, int second) {
+        cal.set(Calendar.HOUR_OF_DAY, hour);
+        cal.set(Calendar.MINUTE, minute);
+        cal.set(Calendar.SECOND, second);
+    }
+
+    private TimeZone zone() {
+        return timeZone != null ? timeZone : TimeZone.getDefault();
+    }
+
+    private static long bit(int value) {
+        return 1L << value;
+    }
+
+    private static long range(int from, int to) {
+        return (-1L >>> (63 - to)) & (-1L << from);
+    }
+
+    private static boolean has(long mask, int value) {
+        return (mask & bit(value)) != 0;
+    }
+
+    /**
+     * Smallest allowed value from the given one on, or -1
+     */
+    private static int nextIn(long mask, int value) {
+        long above = mask & (-1L << value);
+        return above == 0 ? -1 : Long.numberOfTrailingZeros(above);
+    }
+}
@@ -0,0 +1,413 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+import android.util.Log;
+
+import com.getcapacitor.JSObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads large icons given as {@code http(s)://}, {@code content://} or
+ * {@code file://} URIs without blocking the caller.
+ *
+ * Notifications are posted without the icon first and upgraded by
+ * {@link NotificationPoster} once it arrives. Fetches run on a small bounded
+ * pool and concurrent requests for the same URI share one fetch. HTTP images
+ * are kept in a size-bounded disk cache, revalidated with ETag and
+ * Last-Modified once stale, and every image is decoded straight to the
+ * notification large-icon size into {@link IconCache}.
+ */
+class RemoteIconLoader {
+
+    private static final String TAG = "RemoteIconLoader";
+
+    private static final int MAX_CONCURRENT_FETCHES = 2;
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int TIMEOUT_MS = 15_000;
+    /** Larger responses are not images meant for a notification */
+    private static final long MAX_IMAGE_BYTES = 5 * 1024 * 1024;
+    private static final long MAX_DISK_BYTES = 10 * 1024 * 1024;
+    /** Freshness when the server sends no max-age */
+    private static final long DEFAULT_MAX_AGE_MS = 24 * 60 * 60 * 1000L;
+    private static final String CACHE_DIR = "modern-notifications-icons";
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(
+        MAX_CONCURRENT_FETCHES,
+        SchedulePipeline.namedThreads("ModernNotifications-icons")
+    );
+
+    interface Callback {
+        /**
+         * @param bitmap Decoded icon, or null if it could not be loaded
+         */
+        void onLoaded(String uri, Bitmap bitmap);
+    }
+
+    private static RemoteIconLoader sharedInstance;
+
+    private final Context context;
+    private final IconCache icons;
+    private final File cacheDir;
+
+    // Guarded by this; callbacks waiting for a fetch in flight
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+    private long fetches;
+    private long shared;
+    private long diskHits;
+    private long revalidated;
+    private long failures;
+
+    static synchronized RemoteIconLoader getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new RemoteIconLoader(context.getApplicationContext());
+        }
+        return sharedInstance;
+    }
+
+    private RemoteIconLoader(Context context) {
+        this.context = context;
+        this.icons = IconCache.getInstance(context);
+        this.cacheDir = new File(context.getCacheDir(), CACHE_DIR);
+    }
+
+    static boolean isRemote(String icon) {
+        if (icon == null) {
+            return false;
+        }
+        String lower = icon.toLowerCase(Locale.ROOT);
+        return lower.startsWith("http://") || lower.startsWith("https://") || lower.startsWith("content://") || lower.startsWith("file://");
+    }
+
+    /**
+     * Icon already decoded in memory, never blocks
+     */
+    Bitmap peek(String uri) {
+        return icons.remoteLargeIcon(uri);
+    }
+
+    /**
+     * Load an icon in the background; the callback runs on a loader thread
+     */
+    void load(String uri, Callback callback) {
+        Bitmap cached = peek(uri);
+        if (cached != null) {
+            callback.onLoaded(uri, cached);
+            return;
+        }
+        synchronized (this) {
+            List<Callback> waiting = inFlight.get(uri);
+            if (waiting != null) {
+                waiting.add(callback);
+                shared++;
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(uri, waiting);
+            fetches++;
+        }
+        executor.execute(() -> fetch(uri));
+    }
+
+    synchronized JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("fetches", fetches);
+        stats.put("sharedFetches", shared);
+        stats.put("diskHits", diskHits);
+        stats.put("revalidated", revalidated);
+        stats.put("failures", failures);
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    private void fetch(String uri) {
+        Bitmap bitmap = null;
+        try {
+            bitmap = uri.regionMatches(true, 0, "http", 0, 4) ? loadHttp(uri) : loadLocal(uri);
+            if (bitmap != null) {
+                icons.putRemoteLargeIcon(uri, bitmap);
+            }
+        } catch (Exception e) {
+            Log.w(TAG, "⚠️ Cannot load icon " + uri + ": " + e.getMessage());
+        }
+
+        List<Callback> waiting;
+        synchronized (this) {
+            waiting = inFlight.remove(uri);
+            if (bitmap == null) {
+                failures++;
+            }
+        }
+        if (waiting != null) {
+            for (Callback callback : waiting) {
+                callback.onLoaded(uri, bitmap);
+            }
+        }
+    }
+
+    private Bitmap loadLocal(String uri) throws IOException {
+        Uri parsed = Uri.parse(uri);
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = context.getContentResolver().openInputStream(parsed)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        try (InputStream in = context.getContentResolver().openInputStream(parsed)) {
+            return fit(BitmapFactory.decodeStream(in, null, sampled(bounds)));
+        }
+    }
+
+    private Bitmap loadHttp(String uri) throws IOException {
+        String name = hash(uri);
+        File image = new File(cacheDir, name + ".img");
+        File metaFile = new File(cacheDir, name + ".meta");
+        Properties meta = readMeta(metaFile);
+        boolean cached = image.exists() && meta != null;
+
+        if (cached && System.currentTimeMillis() < Long.parseLong(meta.getProperty("expires", "0"))) {
+            synchronized (this) {
+                diskHits++;
+            }
+            image.setLastModified(System.currentTimeMillis());
+            return decodeFile(image);
+        }
+
+        HttpURLConnection connection = (HttpURLConnection) new URL(uri).openConnection();
+        try {
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(TIMEOUT_MS);
+            if (cached) {
+                String etag = meta.getProperty("etag");
+                String lastModified = meta.getProperty("lastModified");
+                if (etag != null) {
+                    connection.setRequestProperty("If-None-Match", etag);
+                }
+                if (lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", lastModified);
+                }
+            }
+
+            int status;
+            try {
+                status = connection.getResponseCode();
+            } catch (IOException e) {
+                if (cached) {
+                    // Offline: a stale icon is better than none
+                    return decodeFile(image);
+                }
+                throw e;
+            }
+
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && cached) {
+                synchronized (this) {
+                    revalidated++;
+                }
+                meta.setProperty("expires", String.valueOf(expiresAt(connection)));
+                writeMeta(metaFile, meta);
+                image.setLastModified(System.currentTimeMillis());
+                return decodeFile(image);
+            }
+            if (status < 200 || status >= 300) {
+                throw new IOException("HTTP " + status);
+            }
+            if (connection.getContentLengthLong() > MAX_IMAGE_BYTES) {
+                throw new IOException("Image too large: " + connection.getContentLengthLong() + " bytes");
+            }
+
+            if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+                throw new IOException("Cannot create " + cacheDir);
+            }
+            File partial = new File(cacheDir, name + ".tmp");
+            try (InputStream in = connection.getInputStream(); OutputStream out = new FileOutputStream(partial)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                long total = 0;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    total += read;
+                    if (total > MAX_IMAGE_BYTES) {
+                        throw new IOException("Image too large");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            } catch (IOException e) {
+                partial.delete();
+                throw e;
+            }
+
+            String cacheControl = connection.getHeaderField("Cache-Control");
+            if (cacheControl != null && cacheControl.toLowerCase(Locale.ROOT).contains("no-store")) {
+                Bitmap bitmap = decodeFile(partial);
+                partial.delete();
+                return bitmap;
+            }
+            if (!partial.renameTo(image)) {
+                partial.delete();
+                throw new IOException("Cannot write " + image);
+            }
+            Properties next = new Properties();
+            next.setProperty("expires", String.valueOf(expiresAt(connection)));
+            if (connection.getHeaderField("ETag") != null) {
+                next.setProperty("etag", connection.getHeaderField("ETag"));
+            }
+            if (connection.getHeaderField("Last-Modified") != null) {
+                next.setProperty("lastModified", connection.getHeaderField("Last-Modified"));
+            }
+            writeMeta(metaFile, next);
+            trimDiskCache();
+            return decodeFile(image);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private Bitmap decodeFile(File file) {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), bounds);
+        return fit(BitmapFactory.decodeFile(file.getAbsolutePath(), sampled(bounds)));
+    }
+
+    /**
+     * Largest power-of-two subsampling that still covers the large-icon size
+     */
+    private BitmapFactory.Options sampled(BitmapFactory.Options bounds) {
+        int width = icons.getLargeIconWidth();
+        int height = icons.getLargeIconHeight();
+        int sample = 1;
+        while (bounds.outWidth / (sample * 2) >= width && bounds.outHeight / (sample * 2) >= height) {
+            sample *= 2;
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        return options;
+    }
+
+    /**
+     * Scale the subsampled bitmap down to fit the large-icon size exactly
+     */
+    private Bitmap fit(Bitmap bitmap) {
+        if (bitmap == null) {
+            return null;
+        }
+        float scale = Math.min(
+            (float) icons.getLargeIconWidth() / bitmap.getWidth(),
+            (float) icons.getLargeIconHeight() / bitmap.getHeight()
+        );
+        if (scale >= 1f) {
+            return bitmap;
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(
+            bitmap,
+            Math.max(1, Math.round(bitmap.getWidth() * scale)),
+            Math.max(1, Math.round(bitmap.getHeight() * scale)),
+            true
+        );
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    private static long expiresAt(HttpURLConnection connection) {
+        long maxAge = DEFAULT_MAX_AGE_MS;
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl != null) {
+            for (String directive : cacheControl.split(",")) {
+                String trimmed = directive.trim().toLowerCase(Locale.ROOT);
+                if (trimmed.equals("no-cache")) {
+                    maxAge = 0;
+                } else if (trimmed.startsWith("max-age=")) {
+                    try {
+                        maxAge = Long.parseLong(trimmed.substring(8)) * 1000;
+                    } catch (NumberFormatException e) {
+                        // Keep the default
+                    }
+                }
+            }
+        }
+        return System.currentTimeMillis() + maxAge;
+    }
+
+    /**
+     * Drop least recently used images until the cache fits its bound
+     */
+    private void trimDiskCache() {
+        File[] images = cacheDir.listFiles((dir, name) -> name.endsWith(".img"));
+        if (images == null) {
+            return;
+        }
+        long total = 0;
+        for (File image : images) {
+            total += image.length();
+        }
+        if (total <= MAX_DISK_BYTES) {
+            return;
+        }
+        Arrays.sort(images, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File image : images) {
+            if (total <= MAX_DISK_BYTES) {
+                break;
+            }
+            total -= image.length();
+            String name = image.getName();
+            image.delete();
+            new File(cacheDir, name.substring(0, name.length() - 4) + ".meta").delete();
+        }
+    }
+
+    private static Properties readMeta(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try (InputStream in = new FileInputStream(file)) {
+            Properties meta = new Properties();
+            meta.load(in);
+            return meta;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void writeMeta(File file, Properties meta) {
+        try (OutputStream out = new FileOutputStream(file)) {
+            meta.store(out, null);
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write icon cache entry " + file.getName(), e);
+        }
+    }
+
+    private static String hash(String uri) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(uri.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format(Locale.ROOT, "%02x", b));
+            }
+            return hex.toString();
+        } catch (Exception e) {
+            return Integer.toHexString(uri.hashCode());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import com.getcapacitor.JSObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached {@link Resources#getIdentifier} lookups for icon names.
+ *
+ * {@code getIdentifier} is a slow string lookup, and every notification build
+ * resolves the small icon, large icon, action icons and ProgressStyle icons,
+ * each in the app package and then in "android". Resource ids never change
+ * while the process lives, so both found ids and misses are cached per
+ * (type, package, name).
+ */
+class ResourceResolver {
+
+    private static final String ANDROID_PACKAGE = "android";
+
+    /** Icons every build asks for, resolved at {@code load()} */
+    private static final String[][] PREWARM = {
+        { "ic_notification", "drawable" },
+        { "ic_launcher", "mipmap" }
+    };
+
+    private static ResourceResolver sharedInstance;
+
+    private final Resources resources;
+    private final String packageName;
+    // 0 caches a miss
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    static synchronized ResourceResolver getInstance(Context context) {
+        if (sharedInstance == null) {
+            sharedInstance = new ResourceResolver(context.getApplicationContext());
+        }
+        return sharedInstance;
+    }
+
+    private ResourceResolver(Context context) {
+        this.resources = context.getResources();
+        this.packageName = context.getPackageName();
+    }
+
+    /**
+     * Resolve the icons used by every notification ahead of the first build
+     */
+    void prewarm() {
+        for (String[] icon : PREWARM) {
+            getIdentifier(icon[0], icon[1], packageName);
+        }
+    }
+
+    /**
+     * Same contract as {@link Resources#getIdentifier}, cached
+     * @return Resource id, or 0 when not found
+     */
+    int getIdentifier(String name, String type, String pkg) {
+        if (name == null || name.isEmpty()) {
+            return 0;
+        }
+        String key = type + '/' + pkg + '/' + name;
+        Integer cached = ids.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        Resources source = ANDROID_PACKAGE.equals(pkg) ? Resources.getSystem() : resources;
+        int id = source.getIdentifier(name, type, pkg);
+        ids.put(key, id);
+        return id;
+    }
+
+    /**
+     * App resource of the given type
+     */
+    int app(String name, String type) {
+        return getIdentifier(name, type, packageName);
+    }
+
+    /**
+     * Drawable from the app, then from the Android system drawables
+     */
+    int drawable(String name) {
+        int id = app(name, "drawable");
+        if (id == 0) {
+            id = getIdentifier(name, "drawable", ANDROID_PACKAGE);
+        }
+        return id;
+    }
+
+    /**
+     * Default small icon: {@code ic_notification}, then the launcher icon, then a system icon
+     */
+    int defaultIcon() {
+        int id = app("ic_notification", "drawable");
+        if (id == 0) {
+            id = app("ic_launcher", "mipmap");
+        }
+        return id != 0 ? id : android.R.drawable.ic_dialog_info;
+    }
+
+    JSObject getStats() {
+        JSObject stats = new JSObject();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("cached", ids.size());
+        return stats;
+    }
+}
@@ -0,0 +1,294 @@
+package com.mycompany.plugins.noti.edu;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Time-ordered index of scheduled notification ids.
+ *
+ * A binary min-heap over parallel primitive arrays, with an open-addressing
+ * id to slot map so entries can be rescheduled or removed in O(log n) without
+ * boxing. Tens of thousands of entries cost a few hundred KB. Each entry also
+ * carries the latest time it may be delivered at, so entries with a delivery
+ * tolerance can share a wakeup. Not thread safe, callers synchronize.
+ */
+class ScheduleIndex {
+
+    private long[] times = new long[64];
+    private long[] deadlines = new long[64];
+    private int[] ids = new int[64];
+    private final SlotMap slots = new SlotMap();
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        return slots.get(id) >= 0;
+    }
+
+    /**
+     * Trigger time of the earliest entry
+     * @return Epoch millis, or Long.MAX_VALUE when empty
+     */
+    long peekTime() {
+        return size > 0 ? times[0] : Long.MAX_VALUE;
+    }
+
+    int peekId() {
+        if (size == 0) {
+            throw new IllegalStateException("Index is empty");
+        }
+        return ids[0];
+    }
+
+    /**
+     * Insert an entry to deliver exactly at its time, or move it if the id is already indexed
+     */
+    void put(int id, long time) {
+        put(id, time, time);
+    }
+
+    /**
+     * Insert an entry, or move it if the id is already indexed
+     * @param deadline Latest delivery time, at least time
+     */
+    void put(int id, long time, long deadline) {
+        int slot = slots.get(id);
+        if (slot >= 0) {
+            long previous = times[slot];
+            times[slot] = time;
+            deadlines[slot] = deadline;
+            if (time < previous) {
+                siftUp(slot);
+            } else {
+                siftDown(slot);
+            }
+            return;
+        }
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+        }
+        times[size] = time;
+        deadlines[size] = deadline;
+        ids[size] = id;
+        slots.put(id, size);
+        size++;
+        siftUp(size - 1);
+    }
+
+    boolean remove(int id) {
+        int slot = slots.remove(id);
+        if (slot < 0) {
+            return false;
+        }
+        size--;
+        if (slot != size) {
+            move(size, slot);
+            siftDown(slot);
+            siftUp(slot);
+        }
+        return true;
+    }
+
+    /**
+     * Remove and return the earliest id
+     */
+    int poll() {
+        int id = peekId();
+        remove(id);
+        return id;
+    }
+
+    void clear() {
+        slots.clear();
+        size = 0;
+    }
+
+    /**
+     * Plan the earliest wakeups, each delivering every entry whose [time, deadline]
+     * range contains it. Entries are visited in time order, walking only the top of
+     * the heap; a wakeup keeps absorbing the next entry while that entry starts
+     * before the wakeup's earliest deadline, which needs the fewest wakeups.
+     * Entries without tolerance pin their wakeup to their own time.
+     * @param starts Receives the earliest time of each wakeup
+     * @param ends Receives the latest time of each wakeup, equal to the start for an exact one
+     * @return Number of wakeups planned, at most the length of the arrays
+     */
+    int planWakeups(long[] starts, long[] ends) {
+        int count = 0;
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> Long.compare(times[a], times[b]));
+        if (size > 0) {
+            frontier.add(0);
+        }
+        while (!frontier.isEmpty()) {
+            int slot = frontier.poll();
+            if (count > 0 && times[slot] <= ends[count - 1]) {
+                // Overlaps the current wakeup, narrow it
+                starts[count - 1] = times[slot];
+                ends[count - 1] = Math.min(ends[count - 1], deadlines[slot]);
+            } else if (count == starts.length) {
+                break;
+            } else {
+                starts[count] = times[slot];
+                ends[count] = deadlines[slot];
+                count++;
+            }
+            int left = 2 * slot + 1;
+            if (left < size) {
+                frontier.add(left);
+            }
+            if (left + 1 < size) {
+                frontier.add(left + 1);
+            }
+        }
+        return count;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (times[parent] <= times[slot]) {
+                break;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int left = 2 * slot + 1;
+            if (left >= size) {
+                return;
+            }
+            int smallest = left;
+            int right = left + 1;
+            if (right < size && times[right] < times[left]) {
+                smallest = right;
+            }
+            if (times[slot] <= times[smallest]) {
+                return;
+            }
+            swap(slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long time = times[a];
+        long deadline = deadlines[a];
+        int id = ids[a];
+        times[a] = times[b];
+        deadlines[a] = deadlines[b];
+        ids[a] = ids[b];
+        times[b] = time;
+        deadlines[b] = deadline;
+        ids[b] = id;
+        slots.put(ids[a], a);
+        slots.put(ids[b], b);
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        deadlines[to] = deadlines[from];
+        ids[to] = ids[from];
+        slots.put(ids[to], to);
+    }
+
+    /**
+     * Open-addressing int to int map with linear probing, -1 means absent
+     */
+    private static final class SlotMap {
+
+        // Slots are marked used separately, so every int (Integer.MIN_VALUE included) is a valid key
+        private int[] keys = new int[128];
+        private int[] values = new int[128];
+        private boolean[] used = new boolean[128];
+        private int count;
+
+        private int indexOf(int key) {
+            int mask = keys.length - 1;
+            int i = (key * 0x9E3779B9) >>> 7 & mask;
+            while (used[i] && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        int get(int key) {
+            int i = indexOf(key);
+            return used[i] ? values[i] : -1;
+        }
+
+        void put(int key, int value) {
+            int i = indexOf(key);
+            if (!used[i]) {
+                if ((count + 1) * 4 > keys.length * 3) {
+                    resize();
+                    i = indexOf(key);
+                }
+                keys[i] = key;
+                used[i] = true;
+                count++;
+            }
+            values[i] = value;
+        }
+
+        int remove(int key) {
+            int i = indexOf(key);
+            if (!used[i]) {
+                return -1;
+            }
+            int value = values[i];
+            // Backward-shift deletion keeps probe chains intact without tombstones
+            int mask = keys.length - 1;
+            int hole = i;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (!used[j]) {
+                    break;
+                }
+                int home = (keys[j] * 0x9E3779B9) >>> 7 & mask;
+                boolean movable = hole <= j ? (home <= hole || home > j) : (home <= hole && home > j);
+                if (movable) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            used[hole] = false;
+            count--;
+            return value;
+        }
+
+        void clear() {
+            Arrays.fill(used, false);
+            count = 0;
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            boolean[] oldUsed = used;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            count = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Build;
+import android.util.Log;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch pipeline behind {@code schedule()}.
+ *
+ * A batch goes through four stages: parse/validate, resolve resources, build
+ * notifications and submit to the system. The first three work on independent
+ * items and run in parallel on a bounded worker pool; submit is serial so the
+ * store and the alarm window are updated once per batch. Every item ends with
+ * its own status instead of being silently dropped, and each stage is timed.
+ */
+class SchedulePipeline {
+
+    private static final String TAG = "SchedulePipeline";
+
+    static final String STATUS_SCHEDULED = "scheduled";
+    static final String STATUS_DELIVERED = "delivered";
+    static final String STATUS_FAILED = "failed";
+
+    /** Below this many items the stages run inline, the pool is not worth the hand-off */
+    private static final int PARALLEL_THRESHOLD = 16;
+
+    private static final int WORKER_COUNT = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    /** Runs whole batches one at a time, off the plugin thread */
+    private static final ExecutorService coordinator = Executors.newSingleThreadExecutor(namedThreads("ModernNotifications-schedule"));
+
+    /** Bounded pool for the parallel stages, falls back to the caller when saturated */
+    private static final ThreadPoolExecutor workers = new ThreadPoolExecutor(
+        WORKER_COUNT,
+        WORKER_COUNT,
+        30,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<>(WORKER_COUNT * 4),
+        namedThreads("ModernNotifications-worker"),
+        new ThreadPoolExecutor.CallerRunsPolicy()
+    );
+
+    static {
+        workers.allowCoreThreadTimeOut(true);
+    }
+
+    interface Callback {
+        void onComplete(JSObject result);
+    }
+
+    /**
+     * State of one input element as it moves through the stages
+     */
+    static final class Item {
+
+        final int index;
+        final JSONObject source;
+        JSObject notification;
+        NotificationSpec spec;
+        int id;
+        long triggerAt; // 0 means show now
+        long tolerance;
+        Bitmap largeIcon;
+        Notification built;
+        String status;
+        String error;
+
+        Item(int index, JSONObject source) {
+            this.index = index;
+            this.source = source;
+        }
+
+        boolean failed() {
+            return STATUS_FAILED.equals(status);
+        }
+
+        void fail(String message) {
+            status = STATUS_FAILED;
+            error = message;
+        }
+    }
+
+    private interface Stage {
+        void run(Item item) throws Exception;
+    }
+
+    private final ModernNotificationsPlugin plugin;
+    private final Context context;
+    private final NotificationStore store;
+    private final AlarmScheduler scheduler;
+    private final NotificationRenderer renderer;
+    private final NotificationPoster poster;
+
+    SchedulePipeline(
+        ModernNotificationsPlugin plugin,
+        Context context,
+        NotificationStore store,
+        AlarmScheduler scheduler,
+        NotificationRenderer renderer
+    ) {
+        this.plugin = plugin;
+        this.context = context;
+        this.store = store;
+        this.scheduler = scheduler;
+        this.renderer = renderer;
+        this.poster = NotificationPoster.getInstance(context);
+    }
+
+    /**
+     * Process a batch in the background and report the result
+     * @param notifications Raw notifications array from the call
+     * @param callback Receives {notifications, results, timings}
+     */
+    void submit(JSArray notifications, Callback callback) {
+        coordinator.execute(() -> callback.onComplete(run(notifications)));
+    }
+
+    JSObject run(JSArray notifications) {
+        long start = System.nanoTime();
+        List<Item> items = new ArrayList<>(notifications.length());
+        for (int i = 0; i < notifications.length(); i++) {
+            items.add(new Item(i, notifications.optJSONObject(i)));
+        }
+
+        JSObject timings = new JSObject();
+        long stageStart = System.nanoTime();
+        runStage(items, this::parse);
+        timings.put("parse", elapsedMs(stageStart));
+
+        stageStart = System.nanoTime();
+        resolveResources(items);
+        timings.put("resources", elapsedMs(stageStart));
+
+        stageStart = System.nanoTime();
+        runStage(items, this::build);
+        timings.put("build", elapsedMs(stageStart));
+
+        stageStart = System.nanoTime();
+        submitToSystem(items);
+        timings.put("submit", elapsedMs(stageStart));
+        timings.put("total", elapsedMs(start));
+
+        JSArray scheduled = new JSArray();
+        JSArray results = new JSArray();
+        int failures = 0;
+        for (Item item : items) {
+            JSObject result = new JSObject();
+            result.put("index", item.index);
+            if (item.notification != null) {
+                result.put("id", item.id);
+            }
+            result.put("status", item.status);
+            if (item.failed()) {
+                result.put("error", item.error);
+                failures++;
+            } else {
+                scheduled.put(item.notification);
+            }
+            results.put(result);
+        }
+        Log.d(TAG, "Batch of " + items.size() + " done, " + failures + " failed, timings " + timings);
+
+        JSObject ret = new JSObject();
+        ret.put("notifications", scheduled);
+        ret.put("results", results);
+        ret.put("timings", timings);
+        return ret;
+    }
+
+    // ---- Stages ---------------------------------------------------------
+
+    private void parse(Item item) throws Exception {
+        if (item.source == null) {
+            item.fail("Notification must be an object");
+            return;
+        }
+        // Typed once here, every later stage reads the spec instead of the JSON
+        NotificationSpec spec;
+        try {
+            spec = NotificationSpec.parse(item.source);
+        } catch (IllegalArgumentException e) {
+            item.fail(e.getMessage());
+            return;
+        }
+        item.notification = JSObject.fromJSONObject(item.source);
+        item.spec = spec;
+        item.id = spec.id;
+
+        JSONObject schedule = spec.scheduleJson != null ? item.notification.optJSONObject("schedule") : null;
+        long now = System.currentTimeMillis();
+        if (schedule != null && !schedule.isNull("tolerance")) {
+            item.tolerance = schedule.optLong("tolerance", -1);
+            if (item.tolerance < 0) {
+                item.fail("schedule.tolerance must be a positive number of milliseconds");
+                return;
+            }
+        }
+        RecurrenceRule rule;
+        try {
+            rule = schedule != null ? RecurrenceRule.parse(schedule, now) : null;
+        } catch (IllegalArgumentException e) {
+            item.fail(e.getMessage());
+            return;
+        }
+        if (rule != null) {
+            long first = rule.next(now);
+            if (first <= 0) {
+                item.fail("Schedule never fires");
+                return;
+            }
+            if (rule.anchorImplied) {
+                // Later occurrences are counted from here, keep it with the stored copy
+                schedule.put("at", RecurrenceRule.formatTime(rule.anchor));
+            }
+            item.triggerAt = first;
+            return;
+        }
+        String at = schedule != null ? NotificationSpec.string(schedule, "at") : null;
+        if (at != null) {
+            long scheduledTime = IsoDateParser.parse(at);
+            if (scheduledTime == IsoDateParser.INVALID) {
+                Log.w(TAG, "Error parsing schedule time, showing immediately: " + at);
+            }
+            // Past and unparsable times are shown immediately, as before
+            item.triggerAt = scheduledTime > now ? scheduledTime : 0;
+        }
+    }
+
+    /**
+     * Check channels for every item and resolve large icons once per distinct name for immediate items
+     */
+    private void resolveResources(List<Item> items) {
+        Map<String, List<Item>> byIcon = new HashMap<>();
+        for (Item item : items) {
+            if (item.failed()) {
+                continue;
+            }
+            String channelId = item.spec.getChannelId();
+            if (!channelExists(channelId)) {
+                item.fail("Channel does not exist: " + channelId);
+                continue;
+            }
+            if (item.triggerAt != 0) {
+                continue;
+            }
+            String largeIcon = item.spec.largeIcon;
+            if (largeIcon != null) {
+                byIcon.computeIfAbsent(largeIcon, key -> new ArrayList<>()).add(item);
+            }
+        }
+        List<Item> representatives = new ArrayList<>();
+        for (List<Item> group : byIcon.values()) {
+            representatives.add(group.get(0));
+        }
+        runStage(representatives, item -> item.largeIcon = renderer.loadLargeIcon(item.spec.largeIcon));
+        for (List<Item> group : byIcon.values()) {
+            Bitmap icon = group.get(0).largeIcon;
+            for (Item item : group) {
+                item.largeIcon = icon;
+            }
+        }
+    }
+
+    private void build(Item item) {
+        if (item.failed() || item.triggerAt != 0) {
+            return;
+        }
+        item.built = renderer.buildNotification(item.spec, item.largeIcon);
+        if (item.built == null) {
+            item.fail("Failed to build notification");
+        }
+    }
+
+    private void submitToSystem(List<Item> items) {
+        NotificationGrouper grouper = NotificationGrouper.getInstance(context);
+        store.beginBatch();
+        scheduler.beginBatch();
+        grouper.beginBatch();
+        try {
+            for (Item item : items) {
+                if (item.failed()) {
+                    continue;
+                }
+                try {
+                    if (item.triggerAt != 0) {
+                        // Persist before arming so getPending survives process death
+                        store.putPending(item.id, item.triggerAt, item.notification);
+                        scheduler.schedule(item.id, item.triggerAt, item.tolerance);
+                        item.status = STATUS_SCHEDULED;
+                    } else {
+                        // Stored first, a notification too large to store is not shown
+                        store.putDelivered(item.id, item.notification);
+                        poster.show(item.spec, item.built);
+                        scheduler.cancel(item.id);
+                        item.status = STATUS_DELIVERED;
+                    }
+                    plugin.rememberSpec(item.spec);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error submitting notification " + item.id, e);
+                    item.fail(e.getMessage() != null ? e.getMessage() : e.toString());
+                }
+            }
+        } finally {
+            store.endBatch();
+            scheduler.endBatch();
+            grouper.endBatch();
+        }
+    }
+
+    // ---- Helpers --------------------------------------------------------
+
+    private boolean channelExists(String channelId) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return true;
+        }
+        NotificationManager manager = context.getSystemService(NotificationManager.class);
+        return manager == null || manager.getNotificationChannel(channelId) != null;
+    }
+
+    /**
+     * Run a stage over every item, in parallel chunks for large batches.
+     * Exceptions fail the item they came from and never the batch.
+     */
+    private void runStage(List<Item> items, Stage stage) {
+        if (items.size() < PARALLEL_THRESHOLD) {
+            runChunk(items, stage);
+            return;
+        }
+        int chunkSize = (items.size() + WORKER_COUNT - 1) / WORKER_COUNT;
+        List<Future<?>> futures = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<Item> chunk = items.subList(from, Math.min(items.size(), from + chunkSize));
+            futures.add(workers.submit((Callable<Void>) () -> {
+                runChunk(chunk, stage);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Pipeline stage failed", e.getCause());
+            }
+        }
+    }
+
+    private static void runChunk(List<Item> items, Stage stage) {
+        for (Item item : items) {
+            try {
+                stage.run(item);
+            } catch (Exception e) {
+                item.fail(e.getMessage() != null ? e.getMessage() : e.toString());
+            }
+        }
+    }
+
+    private static double elapsedMs(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000.0;
+    }
+
+    static java.util.concurrent.ThreadFactory namedThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
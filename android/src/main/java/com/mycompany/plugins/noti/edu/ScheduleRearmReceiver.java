@@ -0,0 +1,56 @@
+package com.mycompany.plugins.noti.edu;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Re-arms scheduled notifications when the device boots, the clock is set
+ * or the time zone changes. See {@link AlarmScheduler#rearm(String)}.
+ */
+public class ScheduleRearmReceiver extends BroadcastReceiver {
+
+    /** Opening the store and recomputing entries stays off the main thread */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+        SchedulePipeline.namedThreads("ModernNotifications-rearm")
+    );
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String reason = reason(intent.getAction());
+        if (reason == null) {
+            Log.w("ScheduleRearm", "Received unknown action: " + intent.getAction());
+            return;
+        }
+        Log.d("ScheduleRearm", "⏰ Re-arming schedule after " + reason);
+
+        Context appContext = context.getApplicationContext();
+        PendingResult pendingResult = goAsync();
+        executor.execute(() -> {
+            try {
+                AlarmScheduler.getInstance(appContext).rearm(reason);
+            } catch (Exception e) {
+                Log.e("ScheduleRearm", "Error re-arming schedule after " + reason, e);
+            } finally {
+                pendingResult.finish();
+            }
+        });
+    }
+
+    private static String reason(String action) {
+        if (Intent.ACTION_BOOT_COMPLETED.equals(action)) {
+            return AlarmScheduler.REARM_BOOT;
+        }
+        if (Intent.ACTION_TIME_CHANGED.equals(action)) {
+            return AlarmScheduler.REARM_TIME_SET;
+        }
+        if (Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            return AlarmScheduler.REARM_TIMEZONE;
+        }
+        return null;
+    }
+}
@@ -3,15 +3,28 @@ package com.mycompany.plugins.noti.edu;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.getcapacitor.JSObject;
 
 import org.json.JSONException;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class ScheduledNotificationReceiver extends BroadcastReceiver {
     
     public static final String ACTION_SCHEDULED_NOTIFICATION = "com.mycompany.plugins.noti.edu.SCHEDULED_NOTIFICATION";
+
+    /** Receivers get about 10s after goAsync(), warn well before that */
+    private static final long RENDER_BUDGET_WARNING_MS = 5000;
+
+    /** Renders due notifications off the main thread, one wakeup at a time */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+        SchedulePipeline.namedThreads("ModernNotifications-receiver")
+    );
     
     @Override
     public void onReceive(Context context, Intent intent) {
@@ -22,21 +35,64 @@ public class ScheduledNotificationReceiver extends BroadcastReceiver {
             String notificationData = intent.getStringExtra("notificationData");
             
             Log.d("ScheduledNotification", "Scheduled notification triggered");
-            Log.d("ScheduledNotification", "Notification data: " + (notificationData != null ? "available" : "null"));
-            
-            if (notificationData != null) {
+
+            // Parse, render and post in the background; the bridge is never started
+            Context appContext = context.getApplicationContext();
+            PendingResult pendingResult = goAsync();
+            executor.execute(() -> {
+                long start = SystemClock.elapsedRealtime();
+                int shown = 0;
                 try {
-                    JSObject notification = new JSObject(notificationData);
-                    Log.d("ScheduledNotification", "Parsed notification JSObject, calling showScheduledNotification");
-                    ModernNotificationsPlugin.showScheduledNotification(context, notification);
-                } catch (JSONException e) {
-                    Log.e("ScheduledNotification", "Error parsing notification data: " + notificationData, e);
+                    shown = deliver(appContext, notificationData);
+                } catch (Exception e) {
+                    Log.e("ScheduledNotification", "Error delivering scheduled notifications", e);
+                } finally {
+                    pendingResult.finish();
                 }
-            } else {
-                Log.e("ScheduledNotification", "No notification data in intent");
-            }
+                long elapsed = SystemClock.elapsedRealtime() - start;
+                if (elapsed > RENDER_BUDGET_WARNING_MS) {
+                    Log.w("ScheduledNotification", "Rendering " + shown + " notifications took " + elapsed + "ms");
+                } else {
+                    Log.d("ScheduledNotification", "Rendered " + shown + " notifications in " + elapsed + "ms");
+                }
+            });
         } else {
             Log.w("ScheduledNotification", "Received unknown action: " + intent.getAction());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * @param notificationData Inline JSON from alarms registered by older versions, or null
+     * @return Number of notifications shown
+     */
+    private static int deliver(Context context, String notificationData) {
+        if (notificationData != null) {
+            // Alarm registered by an older version with the payload inline
+            try {
+                JSObject notification = new JSObject(notificationData);
+                ModernNotificationsPlugin.showScheduledNotification(context, notification);
+                return 1;
+            } catch (JSONException e) {
+                Log.e("ScheduledNotification", "Error parsing notification data: " + notificationData, e);
+                return 0;
+            }
+        }
+        // Scheduler alarm: deliver everything that is due, the scheduler re-arms itself
+        AlarmScheduler scheduler = AlarmScheduler.getInstance(context);
+        List<JSObject> due = scheduler.drainDue();
+        Log.d("ScheduledNotification", "Delivering " + due.size() + " due notifications");
+        // Recurring notifications re-arm as they are shown, touch the alarms and group summaries once
+        NotificationGrouper grouper = NotificationGrouper.getInstance(context);
+        scheduler.beginBatch();
+        grouper.beginBatch();
+        try {
+            for (JSObject notification : due) {
+                ModernNotificationsPlugin.showScheduledNotification(context, notification);
+            }
+        } finally {
+            scheduler.endBatch();
+            grouper.endBatch();
+        }
+        return due.size();
+    }
+}
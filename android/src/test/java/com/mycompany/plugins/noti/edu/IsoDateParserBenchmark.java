@@ -0,0 +1,61 @@
+package com.mycompany.plugins.noti.edu;
+
+import java.text.SimpleDateFormat;
+import java.util.Random;
+
+/**
+ * Time per {@code schedule.at} parse: {@link IsoDateParser} against the two
+ * SimpleDateFormat attempts and the epoch fallback that
+ * {@code parseCapacitorDateString} used to make. The input mixes the three
+ * shapes Capacitor sends. Run it with {@code main}.
+ */
+public final class IsoDateParserBenchmark {
+
+    private static final int ROUNDS = 20;
+
+    private IsoDateParserBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] dates = new String[1000];
+        SimpleDateFormat withMillis = IsoDateParserTest.utcFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        SimpleDateFormat withoutMillis = IsoDateParserTest.utcFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        Random random = new Random(3L);
+        for (int i = 0; i < dates.length; i++) {
+            long time = 1_700_000_000_000L + random.nextInt(Integer.MAX_VALUE) * 1000L;
+            dates[i] = i % 3 == 0 ? withoutMillis.format(time) : i % 3 == 1 ? withMillis.format(time) : String.valueOf(time);
+        }
+
+        // A first pass lets the JIT compile both parsers and SimpleDateFormat's internals
+        long sink = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            for (String date : dates) {
+                sink += IsoDateParserTest.legacyParse(date) + IsoDateParser.parse(date);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (String date : dates) {
+                sink += IsoDateParserTest.legacyParse(date);
+            }
+        }
+        long legacy = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int r = 0; r < ROUNDS; r++) {
+            for (String date : dates) {
+                sink += IsoDateParser.parse(date);
+            }
+        }
+        long parser = System.nanoTime() - start;
+
+        int operations = ROUNDS * dates.length;
+        System.out.println(String.format(
+            "per parse (1/3 with millis, 1/3 without, 1/3 epoch): SimpleDateFormat %.3f us, IsoDateParser %.3f us (%d)",
+            legacy / 1000.0 / operations,
+            parser / 1000.0 / operations,
+            sink
+        ));
+    }
+}
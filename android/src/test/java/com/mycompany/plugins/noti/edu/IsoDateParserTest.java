@@ -0,0 +1,193 @@
+package com.mycompany.plugins.noti.edu;
+
+import static org.junit.Assert.*;
+
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Checks {@link IsoDateParser} against the SimpleDateFormat parsing it
+ * replaced, with fixed-seed fuzzing. Latency is measured by
+ * {@link IsoDateParserBenchmark}.
+ */
+public class IsoDateParserTest {
+
+    /** Input the old parser read exactly; it also accepted lenient variants nobody sends */
+    private static final Pattern LEGACY_SHAPE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}(\\.\\d{3})?Z|[+-]?\\d+");
+
+    private static final String ALPHABET = "0123456789-+:.,TtZz ";
+
+    @Test
+    public void parsesCapacitorDates() {
+        assertEquals(0L, IsoDateParser.parse("1970-01-01T00:00:00.000Z"));
+        assertEquals(1772878530250L, IsoDateParser.parse("2026-03-07T10:15:30.250Z"));
+        assertEquals(1772878530000L, IsoDateParser.parse("2026-03-07T10:15:30Z"));
+        assertEquals(951782400000L, IsoDateParser.parse("2000-02-29T00:00:00Z"));
+    }
+
+    @Test
+    public void parsesOffsetsAndFractions() {
+        long utc = IsoDateParser.parse("2026-03-07T10:15:30.250Z");
+        assertEquals(utc, IsoDateParser.parse("2026-03-07T11:15:30.250+01:00"));
+        assertEquals(utc, IsoDateParser.parse("2026-03-07T05:45:30.250-0430"));
+        assertEquals(utc, IsoDateParser.parse("2026-03-07T12:15:30.250+02"));
+        assertEquals(utc, IsoDateParser.parse("2026-03-07 10:15:30.25z"));
+        assertEquals(utc, IsoDateParser.parse("2026-03-07t10:15:30,250999999Z"));
+        assertEquals(utc - 250 + 200, IsoDateParser.parse("2026-03-07T10:15:30.2Z"));
+    }
+
+    @Test
+    public void parsesEpochMillis() {
+        assertEquals(1772878530250L, IsoDateParser.parse("1772878530250"));
+        assertEquals(-1L, IsoDateParser.parse("-1"));
+        assertEquals(5L, IsoDateParser.parse("+5"));
+        assertEquals(Long.MAX_VALUE, IsoDateParser.parse(String.valueOf(Long.MAX_VALUE)));
+        assertEquals(Long.MIN_VALUE + 1, IsoDateParser.parse(String.valueOf(Long.MIN_VALUE + 1)));
+    }
+
+    @Test
+    public void rejectsInvalidText() {
+        String[] invalid = {
+            null, "", "-", "+", "abc", "12a", "9223372036854775808", "-9223372036854775809",
+            "2026-03-07", "2026-03-07T10:15:30", "2026-03-07T10:15:30.Z", "2026-03-07T10:15:30.250",
+            "2026-02-29T10:15:30Z", "2026-13-01T00:00:00Z", "2026-00-01T00:00:00Z", "2026-04-31T00:00:00Z",
+            "2026-03-07T24:00:00Z", "2026-03-07T10:60:00Z", "2026-03-07T10:15:60Z", "2026-03-07T10:15:30+19:00",
+            "2026-03-07T10:15:30+01:60", "2026-03-07T10:15:30+1", "2026-03-07T10:15:30Zx", "2026-03-07T10:15:30.1234567890Z",
+            "2026/03/07T10:15:30Z", "2026-03-07X10:15:30Z", "2026-03-07T10-15-30Z"
+        };
+        for (String text : invalid) {
+            assertEquals(text, IsoDateParser.INVALID, IsoDateParser.parse(text));
+        }
+    }
+
+    @Test
+    public void fuzz_matchesLegacyParserOnValidInput() throws Exception {
+        Random random = new Random(20261018L);
+        SimpleDateFormat withMillis = utcFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        SimpleDateFormat withoutMillis = utcFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        // 1900 to 2400, well after the Julian cutover the legacy calendar applies
+        long min = -2208988800000L;
+        long max = 13569465600000L;
+        for (int i = 0; i < 20_000; i++) {
+            long time = min + (long) (random.nextDouble() * (max - min));
+            String text = random.nextBoolean() ? withMillis.format(time) : withoutMillis.format(time);
+            assertEquals(text, legacyParse(text), IsoDateParser.parse(text));
+
+            String epoch = String.valueOf(random.nextLong());
+            assertEquals(epoch, legacyParse(epoch), IsoDateParser.parse(epoch));
+
+            // Same instant with an offset parses to what the legacy parser read from the UTC form
+            int offsetMinutes = (random.nextInt(37) - 18) * 60 + (random.nextBoolean() ? 30 : 0);
+            String utc = withMillis.format(time);
+            assertEquals(legacyParse(utc), IsoDateParser.parse(withOffset(time, offsetMinutes)));
+        }
+    }
+
+    @Test
+    public void fuzz_mutatedInputNeverDisagreesWithLegacyParser() throws Exception {
+        Random random = new Random(7L);
+        SimpleDateFormat withMillis = utcFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        int accepted = 0;
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder text = new StringBuilder(random.nextInt(4) == 0
+                ? String.valueOf(random.nextLong())
+                : withMillis.format(random.nextLong() % 4_000_000_000_000L + 1_000_000_000_000L));
+            int mutations = 1 + random.nextInt(3);
+            for (int m = 0; m < mutations; m++) {
+                mutate(text, random);
+            }
+            String input = text.toString();
+            long parsed = IsoDateParser.parse(input);
+            if (parsed == IsoDateParser.INVALID) {
+                continue;
+            }
+            accepted++;
+            if (LEGACY_SHAPE.matcher(input).matches() && !beforeGregorianCutover(input)) {
+                assertEquals(input, legacyParse(input), parsed);
+            }
+        }
+        assertTrue(accepted > 0);
+    }
+
+    @Test
+    public void fuzz_arbitraryTextNeverThrows() {
+        Random random = new Random(11L);
+        for (int i = 0; i < 50_000; i++) {
+            char[] chars = new char[random.nextInt(40)];
+            for (int c = 0; c < chars.length; c++) {
+                chars[c] = random.nextInt(4) == 0 ? (char) random.nextInt(0x3000) : ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+            }
+            IsoDateParser.parse(new String(chars));
+        }
+    }
+
+    /**
+     * The previous ModernNotificationsPlugin.parseCapacitorDateString
+     */
+    static long legacyParse(String dateString) throws Exception {
+        try {
+            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+            sdf.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return sdf.parse(dateString).getTime();
+        } catch (Exception e) {
+            try {
+                SimpleDateFormat sdf2 = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+                sdf2.setTimeZone(TimeZone.getTimeZone("UTC"));
+                return sdf2.parse(dateString).getTime();
+            } catch (Exception e2) {
+                try {
+                    return Long.parseLong(dateString);
+                } catch (NumberFormatException e3) {
+                    throw new Exception("Cannot parse date: " + dateString, e3);
+                }
+            }
+        }
+    }
+
+    /**
+     * SimpleDateFormat switches to the Julian calendar before October 1582; JavaScript
+     * dates and ISO-8601 stay Gregorian, so the two intentionally differ there
+     */
+    private static boolean beforeGregorianCutover(String input) {
+        return input.length() >= 20 && input.charAt(4) == '-' && input.compareTo("1582-10-15") < 0;
+    }
+
+    static SimpleDateFormat utcFormat(String pattern) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format;
+    }
+
+    private static String withOffset(long time, int offsetMinutes) {
+        SimpleDateFormat local = utcFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        int abs = Math.abs(offsetMinutes);
+        return local.format(time + offsetMinutes * 60_000L)
+            + (offsetMinutes < 0 ? "-" : "+")
+            + String.format(Locale.US, "%02d:%02d", abs / 60, abs % 60);
+    }
+
+    private static void mutate(StringBuilder text, Random random) {
+        char c = ALPHABET.charAt(random.nextInt(ALPHABET.length()));
+        int position = random.nextInt(text.length() + 1);
+        switch (random.nextInt(3)) {
+            case 0:
+                text.insert(position, c);
+                break;
+            case 1:
+                if (position < text.length()) {
+                    text.setCharAt(position, c);
+                }
+                break;
+            default:
+                if (position < text.length() && text.length() > 1) {
+                    text.deleteCharAt(position);
+                }
+                break;
+        }
+    }
+}
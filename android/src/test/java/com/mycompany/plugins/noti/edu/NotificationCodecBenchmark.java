@@ -0,0 +1,61 @@
+package com.mycompany.plugins.noti.edu;
+
+import org.json.JSONObject;
+
+/**
+ * Encode/decode latency of the binary Intent payload against the JSON strings
+ * it replaced. Not part of the unit suite; run its main method by hand.
+ */
+public final class NotificationCodecBenchmark {
+
+    private static final int ITERATIONS = 20_000;
+
+    private NotificationCodecBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        NotificationSpec spec = NotificationCodecTest.fullSpec(NotificationCodecTest.largeExtra(10));
+        String json = spec.toJSObject().toString();
+        byte[] binary = NotificationCodec.encode(spec, false);
+
+        // Warm up both paths before measuring
+        long sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += new JSONObject(spec.toJSObject().toString()).length();
+            sink += NotificationCodec.decode(NotificationCodec.encode(spec, false)).id;
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += spec.toJSObject().toString().length();
+        }
+        long jsonEncode = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += new JSONObject(json).length();
+        }
+        long jsonDecode = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += NotificationCodec.encode(spec, false).length;
+        }
+        long binaryEncode = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += NotificationCodec.decode(binary).id;
+        }
+        long binaryDecode = System.nanoTime() - start;
+
+        System.out.println(String.format(
+            "per op: json encode %.2f us, decode %.2f us; binary encode %.2f us, decode %.2f us (%d)",
+            jsonEncode / 1000.0 / ITERATIONS,
+            jsonDecode / 1000.0 / ITERATIONS,
+            binaryEncode / 1000.0 / ITERATIONS,
+            binaryDecode / 1000.0 / ITERATIONS,
+            sink
+        ));
+    }
+}
@@ -0,0 +1,242 @@
+package com.mycompany.plugins.noti.edu;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+/**
+ * Round-trip tests for the binary Intent payload, plus a size comparison
+ * against the JSON strings previously put into intents. Latency is measured
+ * by {@link NotificationCodecBenchmark}.
+ */
+public class NotificationCodecTest {
+
+    @Test
+    public void minimalSpec_roundTrips() {
+        NotificationSpec spec = new NotificationSpec.Builder(42).build();
+
+        NotificationSpec decoded = NotificationCodec.decode(NotificationCodec.encode(spec, true));
+
+        assertSpecEquals(spec, decoded);
+    }
+
+    @Test
+    public void fullSpec_roundTrips() {
+        NotificationSpec spec = fullSpec(largeExtra(10));
+
+        NotificationSpec decoded = NotificationCodec.decode(NotificationCodec.encode(spec, true));
+
+        assertSpecEquals(spec, decoded);
+        assertEquals(spec.extraJson, decoded.extraJson);
+    }
+
+    @Test
+    public void negativeAndExtremeValues_roundTrip() {
+        NotificationSpec.ProgressSpec progress = new NotificationSpec.ProgressSpec(
+            Integer.MIN_VALUE, Integer.MAX_VALUE, false, false, null, null, null,
+            Collections.singletonList(new NotificationSpec.Segment(-1, null, null)),
+            Collections.emptyList()
+        );
+        NotificationSpec spec = new NotificationSpec.Builder(-7)
+            .setBadge(Integer.MIN_VALUE)
+            .setTitle("")
+            .setBody("Ünïcödé ✓ 通知 🚀")
+            .setProgress(progress)
+            .build();
+
+        NotificationSpec decoded = NotificationCodec.decode(NotificationCodec.encode(spec, true));
+
+        assertSpecEquals(spec, decoded);
+    }
+
+    @Test
+    public void extra_isLeftOutUnlessRequested() {
+        NotificationSpec spec = fullSpec(largeExtra(10));
+
+        NotificationSpec decoded = NotificationCodec.decode(NotificationCodec.encode(spec, false));
+
+        assertNull(decoded.extraJson);
+        assertEquals(spec.title, decoded.title);
+    }
+
+    @Test
+    public void encoding_isDeterministic() {
+        NotificationSpec spec = fullSpec(largeExtra(3));
+
+        byte[] first = NotificationCodec.encode(spec, true);
+        byte[] second = NotificationCodec.encode(NotificationCodec.decode(first), true);
+
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    public void truncatedPayload_isRejected() {
+        byte[] data = NotificationCodec.encode(fullSpec(null), true);
+
+        for (int length = 0; length < data.length; length++) {
+            try {
+                NotificationCodec.decode(Arrays.copyOf(data, length));
+                fail("Decoded a payload truncated to " + length + " bytes");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersion_isRejected() {
+        byte[] data = NotificationCodec.encode(fullSpec(null), true);
+        data[1] = (byte) (NotificationCodec.VERSION + 1);
+
+        NotificationCodec.decode(data);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void foreignData_isRejected() {
+        NotificationCodec.decode("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void binaryPayload_isSmallerThanJson() {
+        NotificationSpec minimal = new NotificationSpec.Builder(7).setTitle("Reminder").setBody("Standup in 5 minutes").build();
+        assertSmallerThanJson(minimal);
+        for (int extraItems : new int[] { 0, 10, 100 }) {
+            assertSmallerThanJson(fullSpec(extraItems > 0 ? largeExtra(extraItems) : null));
+        }
+    }
+
+    // ---- Fixtures -------------------------------------------------------
+
+    private static void assertSmallerThanJson(NotificationSpec spec) {
+        int jsonBytes = spec.toJSObject().toString().getBytes(StandardCharsets.UTF_8).length;
+        int fullBytes = NotificationCodec.encode(spec, true).length;
+        int intentBytes = NotificationCodec.encode(spec, false).length;
+
+        assertTrue(fullBytes + " >= " + jsonBytes, fullBytes < jsonBytes);
+        assertTrue(intentBytes <= fullBytes);
+    }
+
+    static NotificationSpec fullSpec(String extraJson) {
+        NotificationSpec.ProgressSpec progress = new NotificationSpec.ProgressSpec(
+            35,
+            100,
+            false,
+            true,
+            "ic_tracker",
+            "ic_start",
+            "ic_end",
+            Arrays.asList(
+                new NotificationSpec.Segment(40, "#FF0000", 0xFFFF0000),
+                new NotificationSpec.Segment(60, "not-a-color", null)
+            ),
+            Arrays.asList(
+                new NotificationSpec.Point(25, "#00FF00", 0xFF00FF00, "ic_point"),
+                new NotificationSpec.Point(75, null, null, null)
+            )
+        );
+        return new NotificationSpec.Builder(1001)
+            .setTitle("Download in progress")
+            .setBody("report-2024-final.pdf")
+            .setSubText("Files")
+            .setLargeIcon("ic_large")
+            .setSmallIcon("ic_small")
+            .setChannelId("downloads")
+            .setSound("chime.wav")
+            .setBadge(3)
+            .setPriority("high")
+            .setImportance("high")
+            .setAutoCancel(false)
+            .setOngoing(true)
+            .setShowWhen(true)
+            .setWhen("2024-05-01T10:00:00.000Z")
+            .setGroup("chat:room-42")
+            .setExtraJson(extraJson)
+            .setScheduleJson("{\"at\":\"2024-05-01T10:00:00.000Z\"}")
+            .addAction(new NotificationSpec.ActionSpec("pause", "Pause", "ic_pause", false))
+            .addAction(new NotificationSpec.ActionSpec("cancel", "Cancel", null, true))
+            .addAction(new NotificationSpec.ActionSpec("snooze", "Snooze", null, false, false, "snooze", 15, null))
+            .setProgress(progress)
+            .build();
+    }
+
+    static String largeExtra(int items) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < items; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i).append(",\"name\":\"item-").append(i).append("\",\"tags\":[\"a\",\"b\",\"c\"]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void assertSpecEquals(NotificationSpec expected, NotificationSpec actual) {
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.title, actual.title);
+        assertEquals(expected.body, actual.body);
+        assertEquals(expected.subText, actual.subText);
+        assertEquals(expected.largeIcon, actual.largeIcon);
+        assertEquals(expected.smallIcon, actual.smallIcon);
+        assertEquals(expected.channelId, actual.channelId);
+        assertEquals(expected.sound, actual.sound);
+        assertEquals(expected.badge, actual.badge);
+        assertEquals(expected.priority, actual.priority);
+        assertEquals(expected.importance, actual.importance);
+        assertEquals(expected.autoCancel, actual.autoCancel);
+        assertEquals(expected.ongoing, actual.ongoing);
+        assertEquals(expected.showWhen, actual.showWhen);
+        assertEquals(expected.when, actual.when);
+        assertEquals(expected.group, actual.group);
+        assertEquals(expected.scheduleJson, actual.scheduleJson);
+        assertEquals(expected.actions.size(), actual.actions.size());
+        for (int i = 0; i < expected.actions.size(); i++) {
+            NotificationSpec.ActionSpec a = expected.actions.get(i);
+            NotificationSpec.ActionSpec b = actual.actions.get(i);
+            assertEquals(a.id, b.id);
+            assertEquals(a.title, b.title);
+            assertEquals(a.icon, b.icon);
+            assertEquals(a.requiresAuthentication, b.requiresAuthentication);
+            assertEquals(a.foreground, b.foreground);
+            assertEquals(a.backgroundAction, b.backgroundAction);
+            assertEquals(a.snoozeMinutes, b.snoozeMinutes);
+            assertEquals(a.progress, b.progress);
+        }
+        if (expected.progress == null) {
+            assertNull(actual.progress);
+            return;
+        }
+        NotificationSpec.ProgressSpec p = expected.progress;
+        NotificationSpec.ProgressSpec q = actual.progress;
+        assertNotNull(q);
+        assertEquals(p.progress, q.progress);
+        assertEquals(p.maxProgress, q.maxProgress);
+        assertEquals(p.indeterminate, q.indeterminate);
+        assertEquals(p.styledByProgress, q.styledByProgress);
+        assertEquals(p.trackerIcon, q.trackerIcon);
+        assertEquals(p.startIcon, q.startIcon);
+        assertEquals(p.endIcon, q.endIcon);
+        assertEquals(p.segments == null, q.segments == null);
+        if (p.segments != null) {
+            assertEquals(p.segments.size(), q.segments.size());
+            for (int i = 0; i < p.segments.size(); i++) {
+                assertEquals(p.segments.get(i).length, q.segments.get(i).length);
+                assertEquals(p.segments.get(i).colorString, q.segments.get(i).colorString);
+                assertEquals(p.segments.get(i).color, q.segments.get(i).color);
+            }
+        }
+        assertEquals(p.points == null, q.points == null);
+        if (p.points != null) {
+            assertEquals(p.points.size(), q.points.size());
+            for (int i = 0; i < p.points.size(); i++) {
+                assertEquals(p.points.get(i).position, q.points.get(i).position);
+                assertEquals(p.points.get(i).colorString, q.points.get(i).colorString);
+                assertEquals(p.points.get(i).color, q.points.get(i).color);
+                assertEquals(p.points.get(i).icon, q.points.get(i).icon);
+            }
+        }
+    }
+}
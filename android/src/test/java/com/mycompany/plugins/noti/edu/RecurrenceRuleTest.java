@@ -0,0 +1,185 @@
+package com.mycompany.plugins.noti.edu;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Occurrences computed by {@link RecurrenceRule}: cron and {@code on} matching,
+ * fixed years, DST changes, intervals and the remaining count. Times are in UTC
+ * unless a case is about a zone.
+ */
+public class RecurrenceRuleTest {
+
+    private static final long NOW = IsoDateParser.parse("2026-03-07T12:00:00Z");
+
+    @Test
+    public void onYear_farAhead_isFound() throws Exception {
+        RecurrenceRule rule = rule("{\"on\":{\"year\":2045,\"month\":3,\"day\":1,\"hour\":9},\"timezone\":\"UTC\"}");
+
+        assertEquals(IsoDateParser.parse("2045-03-01T09:00:00Z"), rule.next(NOW));
+        assertEquals(-1, rule.next(IsoDateParser.parse("2045-03-01T09:00:00Z")));
+    }
+
+    @Test
+    public void onYear_inThePast_neverFires() throws Exception {
+        RecurrenceRule rule = rule("{\"on\":{\"year\":2025,\"month\":3},\"timezone\":\"UTC\"}");
+
+        assertEquals(-1, rule.next(NOW));
+    }
+
+    @Test
+    public void onYear_withoutMatchingDay_neverFires() throws Exception {
+        // 2041 is not a leap year
+        RecurrenceRule rule = rule("{\"on\":{\"year\":2041,\"month\":2,\"day\":29},\"timezone\":\"UTC\"}");
+
+        assertEquals(-1, rule.next(NOW));
+    }
+
+    @Test
+    public void timeSkippedByDst_firesAtShiftedInstant() throws Exception {
+        // 2026-03-08 02:00 does not exist in New York, clocks jump to 03:00
+        RecurrenceRule rule = rule("{\"on\":{\"hour\":2,\"minute\":30},\"timezone\":\"America/New_York\"}");
+
+        long first = rule.next(NOW);
+        assertEquals(IsoDateParser.parse("2026-03-08T03:30:00-04:00"), first);
+        assertEquals(IsoDateParser.parse("2026-03-09T02:30:00-04:00"), rule.next(first));
+    }
+
+    @Test
+    public void cronTimeSkippedByDst_firesAtShiftedInstant() throws Exception {
+        RecurrenceRule rule = rule("{\"cron\":\"30 2 * * *\",\"timezone\":\"America/New_York\"}");
+
+        assertEquals(IsoDateParser.parse("2026-03-08T03:30:00-04:00"), rule.next(NOW));
+    }
+
+    @Test
+    public void timeRepeatedByDst_firesOnce() throws Exception {
+        // 2026-11-01 01:00 to 02:00 happens twice in New York
+        RecurrenceRule rule = rule("{\"on\":{\"hour\":1,\"minute\":30},\"timezone\":\"America/New_York\"}");
+
+        long first = rule.next(IsoDateParser.parse("2026-11-01T00:00:00-04:00"));
+        assertEquals(IsoDateParser.parse("2026-11-01T01:30:00-04:00"), first);
+        assertEquals(IsoDateParser.parse("2026-11-02T01:30:00-05:00"), rule.next(first));
+    }
+
+    @Test
+    public void toInstant_resolvesLikeZonedDateTime() {
+        java.util.TimeZone zone = java.util.TimeZone.getTimeZone("America/New_York");
+
+        // Regular, skipped and repeated wall-clock times
+        assertEquals(IsoDateParser.parse("2026-06-01T09:00:00-04:00"), RecurrenceRule.toInstant(IsoDateParser.parse("2026-06-01T09:00:00Z"), zone));
+        assertEquals(IsoDateParser.parse("2026-03-08T03:15:00-04:00"), RecurrenceRule.toInstant(IsoDateParser.parse("2026-03-08T02:15:00Z"), zone));
+        assertEquals(IsoDateParser.parse("2026-11-01T01:15:00-04:00"), RecurrenceRule.toInstant(IsoDateParser.parse("2026-11-01T01:15:00Z"), zone));
+    }
+
+    @Test
+    public void cron_rangesAndSteps() throws Exception {
+        RecurrenceRule rule = rule("{\"cron\":\"*/15 9-17/4 * * *\",\"timezone\":\"UTC\"}");
+
+        assertEquals(IsoDateParser.parse("2026-03-07T13:00:00Z"), rule.next(NOW));
+        assertEquals(IsoDateParser.parse("2026-03-07T13:15:00Z"), rule.next(IsoDateParser.parse("2026-03-07T13:00:00Z")));
+        assertEquals(IsoDateParser.parse("2026-03-08T09:00:00Z"), rule.next(IsoDateParser.parse("2026-03-07T17:45:00Z")));
+    }
+
+    @Test
+    public void cron_lists_andMonthAndDayNames() throws Exception {
+        RecurrenceRule rule = rule("{\"cron\":\"0,30 8 * JAN,mar MON-FRI\",\"timezone\":\"UTC\"}");
+
+        // NOW is a Saturday
+        assertEquals(IsoDateParser.parse("2026-03-09T08:00:00Z"), rule.next(NOW));
+        assertEquals(IsoDateParser.parse("2026-03-09T08:30:00Z"), rule.next(IsoDateParser.parse("2026-03-09T08:00:00Z")));
+        // Past the last weekday of March, the next match is in January
+        assertEquals(IsoDateParser.parse("2027-01-01T08:00:00Z"), rule.next(IsoDateParser.parse("2026-03-31T09:00:00Z")));
+    }
+
+    @Test
+    public void cron_weekdaySevenIsSunday() throws Exception {
+        long sunday = IsoDateParser.parse("2026-03-08T10:00:00Z");
+
+        assertEquals(sunday, rule("{\"cron\":\"0 10 * * 7\",\"timezone\":\"UTC\"}").next(NOW));
+        assertEquals(sunday, rule("{\"cron\":\"0 10 * * 0\",\"timezone\":\"UTC\"}").next(NOW));
+        assertEquals(sunday, rule("{\"cron\":\"0 10 * * SUN\",\"timezone\":\"UTC\"}").next(NOW));
+    }
+
+    @Test
+    public void cron_restrictedDayOfMonthAndWeekday_matchEither() throws Exception {
+        RecurrenceRule either = rule("{\"cron\":\"0 0 10 * FRI\",\"timezone\":\"UTC\"}");
+        assertEquals(IsoDateParser.parse("2026-03-10T00:00:00Z"), either.next(NOW));
+        assertEquals(IsoDateParser.parse("2026-03-13T00:00:00Z"), either.next(IsoDateParser.parse("2026-03-10T00:00:00Z")));
+
+        // With one of them unrestricted only the other one counts
+        RecurrenceRule dayOnly = rule("{\"cron\":\"0 0 10 * *\",\"timezone\":\"UTC\"}");
+        assertEquals(IsoDateParser.parse("2026-04-10T00:00:00Z"), dayOnly.next(IsoDateParser.parse("2026-03-10T00:00:00Z")));
+        RecurrenceRule weekdayOnly = rule("{\"cron\":\"0 0 * * FRI\",\"timezone\":\"UTC\"}");
+        assertEquals(IsoDateParser.parse("2026-03-13T00:00:00Z"), weekdayOnly.next(NOW));
+    }
+
+    @Test
+    public void cron_invalid_isRejected() {
+        for (String cron : new String[] { "0 0 * *", "60 * * * *", "* 24 * * *", "* * 0 * *", "* * * 13 *", "* * * * 8", "5-1 * * * *", "*/0 * * * *", "* * * FOO *" }) {
+            try {
+                rule("{\"cron\":\"" + cron + "\"}");
+                fail("Accepted cron " + cron);
+            } catch (IllegalArgumentException expected) {
+                // Reported per notification by the schedule pipeline
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    @Test
+    public void everyMonth_fromThe31st_keepsMonthEnds() throws Exception {
+        RecurrenceRule rule = rule("{\"at\":\"2026-01-31T09:00:00Z\",\"every\":\"month\",\"timezone\":\"UTC\"}");
+
+        long february = rule.next(IsoDateParser.parse("2026-01-31T09:00:00Z"));
+        assertEquals(IsoDateParser.parse("2026-02-28T09:00:00Z"), february);
+        long march = rule.next(february);
+        assertEquals(IsoDateParser.parse("2026-03-31T09:00:00Z"), march);
+        assertEquals(IsoDateParser.parse("2026-04-30T09:00:00Z"), rule.next(march));
+    }
+
+    @Test
+    public void after_repeatsOnlyWhenAsked() throws Exception {
+        RecurrenceRule once = rule("{\"after\":60000}");
+        assertFalse(once.repeats);
+        assertEquals(NOW + 60_000, once.next(NOW));
+
+        RecurrenceRule repeating = rule("{\"after\":60000,\"repeats\":true}");
+        assertTrue(repeating.repeats);
+        assertEquals(NOW + 120_000, repeating.next(NOW + 60_000));
+        assertEquals(NOW + 180_000, repeating.next(NOW + 150_000));
+
+        try {
+            rule("{\"after\":500,\"repeats\":true}");
+            fail("Accepted a repeating interval under a second");
+        } catch (IllegalArgumentException expected) {
+            // Too short to repeat
+        }
+    }
+
+    @Test
+    public void count_countsDownToTheLastOccurrence() throws Exception {
+        JSONObject schedule = new JSONObject("{\"every\":\"day\",\"count\":3,\"timezone\":\"UTC\",\"at\":\"2026-03-07T12:00:00Z\"}");
+
+        long second = RecurrenceRule.advance(schedule, NOW, NOW);
+        assertEquals(NOW + 86_400_000L, second);
+        assertEquals(2, schedule.getInt("count"));
+        long third = RecurrenceRule.advance(schedule, second, second);
+        assertEquals(NOW + 2 * 86_400_000L, third);
+        assertEquals(1, schedule.getInt("count"));
+        assertEquals(0, RecurrenceRule.advance(schedule, third, third));
+    }
+
+    @Test
+    public void advance_oneShotSchedule_doesNotRepeat() throws Exception {
+        assertEquals(0, RecurrenceRule.advance(new JSONObject("{\"at\":\"2026-03-07T12:00:00Z\"}"), NOW, NOW));
+        assertEquals(0, RecurrenceRule.advance(new JSONObject("{\"every\":\"day\",\"repeats\":false}"), NOW, NOW));
+    }
+
+    private static RecurrenceRule rule(String schedule) throws Exception {
+        return RecurrenceRule.parse(new JSONObject(schedule), NOW);
+    }
+}
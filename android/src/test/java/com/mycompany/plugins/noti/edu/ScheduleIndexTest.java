@@ -0,0 +1,71 @@
+package com.mycompany.plugins.noti.edu;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Heap order and id lookups in {@link ScheduleIndex}, across the whole int id range.
+ */
+public class ScheduleIndexTest {
+
+    @Test
+    public void extremeIds_areIndexedLikeAnyOther() {
+        ScheduleIndex index = new ScheduleIndex();
+        index.put(Integer.MIN_VALUE, 300);
+        index.put(0, 200);
+        index.put(Integer.MAX_VALUE, 100);
+
+        assertTrue(index.contains(Integer.MIN_VALUE));
+        index.put(Integer.MIN_VALUE, 50);
+        assertEquals(3, index.size());
+        assertEquals(Integer.MIN_VALUE, index.poll());
+
+        assertFalse(index.contains(Integer.MIN_VALUE));
+        assertFalse(index.remove(Integer.MIN_VALUE));
+        assertEquals(Integer.MAX_VALUE, index.poll());
+        assertEquals(0, index.poll());
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void randomOperations_matchAReferenceMap() {
+        ScheduleIndex index = new ScheduleIndex();
+        Map<Integer, Long> reference = new HashMap<>();
+        Random random = new Random(11L);
+        // Few distinct ids, so puts move, removes hit and the map grows and shrinks
+        int[] ids = new int[300];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i < 4 ? new int[] { Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1, Integer.MAX_VALUE }[i] : random.nextInt();
+        }
+        for (int op = 0; op < 20_000; op++) {
+            int id = ids[random.nextInt(ids.length)];
+            int choice = random.nextInt(10);
+            if (choice < 6) {
+                long time = random.nextInt(1_000_000);
+                index.put(id, time);
+                reference.put(id, time);
+            } else if (choice < 9) {
+                assertEquals(reference.remove(id) != null, index.remove(id));
+            } else if (!reference.isEmpty()) {
+                long earliest = Long.MAX_VALUE;
+                for (long time : reference.values()) {
+                    earliest = Math.min(earliest, time);
+                }
+                assertEquals(earliest, index.peekTime());
+                int polled = index.poll();
+                assertEquals(Long.valueOf(earliest), reference.remove(polled));
+            }
+            assertEquals(reference.size(), index.size());
+        }
+        List<Integer> remaining = new ArrayList<>(reference.keySet());
+        for (int id : remaining) {
+            assertTrue(index.contains(id));
+        }
+    }
+}
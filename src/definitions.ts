@@ -18,6 +18,11 @@ export interface ProgressStylePoint {
    * Icon resource name for the point
    */
   icon?: string;
+  
+  /**
+   * Stable key to address the point in `patchProgress`
+   */
+  key?: string;
 }
 
 export interface ProgressStyleSegment {
@@ -30,8 +35,59 @@ export interface ProgressStyleSegment {
    * Color of the segment (hex color string, e.g., "#FFFF00" for yellow)
    */
   color?: string;
+  
+  /**
+   * Stable key to address the segment in `patchProgress`
+   */
+  key?: string;
 }
 
+/**
+ * One incremental change to a progress notification's segments or points.
+ * Elements are addressed by `index`, or by `key` when no index is given
+ */
+export type ProgressPatch =
+  | {
+      op: 'insert';
+      target: 'segment';
+      /**
+       * Position to insert at, defaults to the end
+       */
+      index?: number;
+      key?: string;
+      value: ProgressStyleSegment;
+    }
+  | {
+      op: 'insert';
+      target: 'point';
+      /**
+       * Position to insert at, defaults to the end
+       */
+      index?: number;
+      key?: string;
+      value: ProgressStylePoint;
+    }
+  | {
+      op: 'remove';
+      target: 'segment' | 'point';
+      index?: number;
+      key?: string;
+    }
+  | {
+      op: 'update';
+      target: 'segment';
+      index?: number;
+      key?: string;
+      value: Partial<Omit<ProgressStyleSegment, 'key'>>;
+    }
+  | {
+      op: 'update';
+      target: 'point';
+      index?: number;
+      key?: string;
+      value: Partial<Omit<ProgressStylePoint, 'key'>>;
+    };
+
 export interface NotificationAction {
   /**
    * Unique identifier for the action
@@ -52,6 +108,34 @@ export interface NotificationAction {
    * Whether the action requires authentication
    */
   requiresAuthentication?: boolean;
+  
+  /**
+   * Open the app when the action is tapped. Set to `false` to handle the
+   * action natively in the background without starting the app (Android).
+   * Default: true
+   */
+  foreground?: boolean;
+  
+  /**
+   * What a background action does natively (Android):
+   * - `snooze`: hide the notification and show it again after `snoozeMinutes`
+   * - `dismiss`: remove the notification
+   * - `progress`: set the progress bar to `progress`
+   * - `queue`: only record the action, see `drainBackgroundActions()`
+   *
+   * Every background action is also recorded. Default: 'queue'
+   */
+  backgroundAction?: 'snooze' | 'dismiss' | 'progress' | 'queue';
+  
+  /**
+   * Minutes to snooze for a `snooze` background action. Default: 10
+   */
+  snoozeMinutes?: number;
+  
+  /**
+   * Progress value applied by a `progress` background action
+   */
+  progress?: number;
 }
 
 /**
@@ -62,6 +146,17 @@ export interface LocalNotificationReceivedEvent {
    * The notification that was received
    */
   notification: LocalNotification;
+  
+  /**
+   * Unique id of the event. Events are delivered at least once, so the same id
+   * may be seen again after the app is killed mid-delivery (Android)
+   */
+  eventId?: string;
+  
+  /**
+   * Epoch millis when the event happened, which can be earlier than delivery (Android)
+   */
+  timestamp?: number;
 }
 
 /**
@@ -82,6 +177,22 @@ export interface LocalNotificationActionPerformed {
    * Any additional data passed with the action
    */
   inputValue?: string;
+  
+  /**
+   * Unique id of the event. Events are delivered at least once, so the same id
+   * may be seen again after the app is killed mid-delivery (Android)
+   */
+  eventId?: string;
+  
+  /**
+   * `dismissed` events use the actionId `dismiss` (Android)
+   */
+  type?: 'actionPerformed' | 'dismissed';
+  
+  /**
+   * Epoch millis when the event happened, which can be earlier than delivery (Android)
+   */
+  timestamp?: number;
 }
 
 export interface ProgressStyleOptions {
@@ -133,12 +244,15 @@ export interface ProgressStyleOptions {
 
 export interface LocalNotificationSchedule {
   /**
-   * Schedule notification at a specific date/time
+   * Schedule notification at a specific date/time. With `every` or `after`
+   * and `repeats`, the first occurrence the series is counted from; with `on`
+   * or `cron`, nothing fires before it
    */
   at?: Date;
   
   /**
-   * Schedule notification to repeat
+   * Repeat `after` as an interval. Series from `every`, `on` and `cron`
+   * repeat unless this is `false`
    */
   repeats?: boolean;
   
@@ -148,13 +262,63 @@ export interface LocalNotificationSchedule {
   after?: number;
   
   /**
-   * Schedule notification on specific days of the week (1-7, where 1 is Sunday)
+   * Repeat on a calendar interval. Days and longer keep the local time of
+   * day across DST changes (Android)
+   */
+  every?: 'year' | 'month' | 'two-weeks' | 'week' | 'day' | 'hour' | 'minute' | 'second';
+  
+  /**
+   * Fire on every time matching these fields. Unset fields below the largest
+   * set one fire at their first value: `{ hour: 8 }` is 08:00 every day
    */
   on?: {
+    year?: number;
+    /**
+     * 1-12
+     */
+    month?: number;
+    /**
+     * Day of the month, 1-31
+     */
+    day?: number;
+    /**
+     * 1-7, where 1 is Sunday
+     */
     weekday?: number;
     hour?: number;
     minute?: number;
+    second?: number;
   };
+  
+  /**
+   * Five-field cron expression (`minute hour day-of-month month day-of-week`),
+   * e.g. `'0 9 * * MON-FRI'` (Android)
+   */
+  cron?: string;
+  
+  /**
+   * Total number of times a repeating notification fires. Counts down in
+   * getPending as it fires (Android)
+   */
+  count?: number;
+  
+  /**
+   * Milliseconds after the scheduled time the notification may still be
+   * delivered at. Notifications whose ranges overlap share one wakeup, and
+   * the alarm is left to the system to batch instead of being exact, which
+   * needs no exact alarm permission. Delivery within the tolerance is not
+   * guaranteed in Doze: the system window is not allowed while idle, so the
+   * notification waits for the next maintenance window, which can be well
+   * past the tolerance. Leave it unset for notifications that must arrive on
+   * time while the device is idle (Android)
+   */
+  tolerance?: number;
+  
+  /**
+   * IANA time zone the schedule is evaluated in. Defaults to the device
+   * zone, followed as it changes (Android)
+   */
+  timezone?: string;
 }
 
 export interface LocalNotification {
@@ -179,7 +343,8 @@ export interface LocalNotification {
   subText?: string;
   
   /**
-   * Large icon for the notification (resource name or URL)
+   * Large icon for the notification: a drawable name, or an http(s), content or file URI.
+   * URIs are loaded in the background; the notification is shown first and updated when the image arrives
    */
   largeIcon?: string;
   
@@ -193,6 +358,16 @@ export interface LocalNotification {
    */
   channelId?: string;
   
+  /**
+   * Group key (Android). Notifications sharing it are bundled under one summary once
+   * `plugins.ModernNotifications.groupSummaryThreshold` of them are shown (default 4, 0 turns grouping off).
+   * Notifications without it are left ungrouped unless `groupByChannel` is true (default false),
+   * which groups them per channel. The summary title is `groupSummaryTitle`, where `{count}` is
+   * the number of notifications (default "{count} notifications").
+   * Also used to filter queryNotifications.
+   */
+  group?: string;
+  
   /**
    * Sound to play (resource name or 'default')
    */
@@ -312,6 +487,145 @@ export interface NotificationResult {
   notifications: LocalNotification[];
 }
 
+export interface NotificationQueryOptions {
+  /**
+   * Which notifications to search
+   * @default 'all'
+   */
+  state?: 'pending' | 'delivered' | 'all';
+  
+  /**
+   * Only notifications on this channel
+   */
+  channelId?: string;
+  
+  /**
+   * Only notifications with this group
+   */
+  group?: string;
+  
+  /**
+   * Earliest time, inclusive: the trigger time of pending notifications
+   * and the delivery time of delivered ones
+   */
+  from?: Date | number;
+  
+  /**
+   * Latest time, inclusive
+   */
+  to?: Date | number;
+  
+  /**
+   * Only notifications whose extra has this key
+   */
+  extraKey?: string;
+  
+  /**
+   * Only notifications whose extra[extraKey] equals this value, compared as strings
+   */
+  extraValue?: string | number | boolean;
+  
+  /**
+   * @default 'time'
+   */
+  sortBy?: 'time' | 'id';
+  
+  /**
+   * @default 'asc'
+   */
+  order?: 'asc' | 'desc';
+  
+  /**
+   * Page size, 1 to 500
+   * @default 50
+   */
+  limit?: number;
+  
+  /**
+   * nextCursor of the previous page, with the same sortBy and order
+   */
+  cursor?: string;
+  
+  /**
+   * Top-level fields to return; id is always included. All fields when omitted
+   */
+  fields?: (keyof LocalNotification)[];
+}
+
+export interface NotificationQueryResult {
+  /**
+   * Matching notifications of this page
+   */
+  notifications: Partial<LocalNotification>[];
+  
+  /**
+   * Cursor of the next page, absent on the last one
+   */
+  nextCursor?: string;
+}
+
+export interface ScheduleItemResult {
+  /**
+   * Position of the notification in the scheduled array
+   */
+  index: number;
+  
+  /**
+   * Notification ID, when it could be read
+   */
+  id?: number;
+  
+  /**
+   * Outcome for this notification
+   */
+  status: 'scheduled' | 'delivered' | 'failed';
+  
+  /**
+   * Reason for a failed notification, such as an invalid id, schedule or
+   * a channel that does not exist
+   */
+  error?: string;
+}
+
+export interface ScheduleTimings {
+  /**
+   * Milliseconds spent parsing and validating
+   */
+  parse: number;
+  
+  /**
+   * Milliseconds spent resolving icons and channels
+   */
+  resources: number;
+  
+  /**
+   * Milliseconds spent building notifications
+   */
+  build: number;
+  
+  /**
+   * Milliseconds spent posting notifications and arming alarms
+   */
+  submit: number;
+  
+  /**
+   * Total milliseconds for the batch
+   */
+  total: number;
+}
+
+export interface ScheduleResult extends NotificationResult {
+  /**
+   * Per-notification status, in input order (Android)
+   */
+  results?: ScheduleItemResult[];
+  
+  /**
+   * Time spent in each pipeline stage (Android)
+   */
+  timings?: ScheduleTimings;
+}
+
 export interface ActionPerformed {
   /**
    * The notification that was acted upon
@@ -329,99 +643,743 @@ export interface ActionPerformed {
   inputValue?: string;
 }
 
-export interface PermissionStatus {
+export interface SchedulerStats {
   /**
-   * Permission state for local notifications
+   * Number of notifications waiting in the native schedule
    */
-  display: 'granted' | 'denied' | 'prompt';
+  pending: number;
+  
+  /**
+   * Maximum number of alarms registered with AlarmManager at once.
+   * Set with `plugins.ModernNotifications.alarmWindowSize` in the Capacitor config (default 1, max 50).
+   */
+  windowSize: number;
+  
+  /**
+   * Number of alarms currently registered with AlarmManager
+   */
+  armedAlarms: number;
+  
+  /**
+   * Total number of times the scheduler alarm was (re-)armed
+   */
+  alarmsArmed: number;
+  
+  /**
+   * Number of scheduler wakeups
+   */
+  wakeups: number;
+  
+  /**
+   * Number of notifications delivered by scheduler wakeups
+   */
+  deliveredByAlarm: number;
+  
+  /**
+   * Wakeups avoided by delivering several notifications per wakeup
+   */
+  wakeupsSaved: number;
+  
+  /**
+   * Times a repeating notification fired and was re-armed for its next occurrence
+   */
+  recurrences: number;
+  
+  /**
+   * Notifications scheduled, and how many of them with a tolerance
+   */
+  scheduled: number;
+  scheduledWithTolerance: number;
+  
+  /**
+   * Alarms armed exactly, and as system windows or inexact alarms
+   */
+  exactAlarms: number;
+  inexactAlarms: number;
+  
+  /**
+   * Wakeups avoided by delivering notifications with different times
+   * together, within their tolerance
+   */
+  wakeupsAvoidedByTolerance: number;
+  
+  /**
+   * Last re-arming pass after a reboot, clock change or time zone change (Android)
+   */
+  lastRearm?: RearmReport;
+  
+  /**
+   * Epoch millis of the armed alarm, if any
+   */
+  nextTriggerAt?: number;
 }
 
-export interface ModernNotificationsPlugin {
+export interface RearmReport {
   /**
-   * Request permission to display local notifications
+   * What triggered the pass
    */
-  requestPermissions(): Promise<PermissionStatus>;
+  reason: 'boot' | 'timeSet' | 'timezone';
   
   /**
-   * Check current permission status
+   * Pending notifications scanned
    */
-  checkPermissions(): Promise<PermissionStatus>;
+  entries: number;
   
   /**
-   * Schedule one or more local notifications
+   * Repeating notifications whose next occurrence was recomputed
    */
-  schedule(options: ScheduleOptions): Promise<NotificationResult>;
+  recomputed: number;
   
   /**
-   * Get a list of pending notifications
+   * Duration of the pass, including re-registering the alarms
    */
-  getPending(): Promise<NotificationResult>;
+  durationMs: number;
   
   /**
-   * Get a list of delivered notifications
+   * Epoch millis the pass ran at
    */
-  getDelivered(): Promise<NotificationResult>;
+  at: number;
+}
+
+export interface PostStats {
+  /**
+   * Notifications posted as new
+   */
+  shown: number;
   
   /**
-   * Cancel specific notifications by ID
+   * Updates posted because the title, text, channel, sound or priority changed
    */
-  cancel(options: { notifications: { id: number }[] }): Promise<void>;
+  alertingUpdates: number;
   
   /**
-   * Cancel all pending notifications
+   * Updates posted without alerting because only progress, points, actions or icons changed
    */
-  cancelAll(): Promise<void>;
+  silentUpdates: number;
   
   /**
-   * Remove specific delivered notifications by ID
+   * Updates skipped because nothing visible changed
    */
-  removeDelivered(options: { notifications: { id: number }[] }): Promise<void>;
+  suppressed: number;
   
   /**
-   * Remove all delivered notifications
+   * Notifications whose content fingerprint is kept
    */
-  removeAllDelivered(): Promise<void>;
+  tracked: number;
   
   /**
-   * Create a notification channel (Android)
+   * Notifications re-posted once their remote large icon loaded
    */
-  createChannel(channel: NotificationChannel): Promise<void>;
+  iconUpgrades: number;
   
   /**
-   * Delete a notification channel (Android)
+   * Notifications shown without their remote large icon yet
    */
-  deleteChannel(options: { id: string }): Promise<void>;
+  awaitingIcons: number;
   
   /**
-   * List all notification channels (Android)
+   * Sync of getDelivered with the notifications the system shows
    */
-  listChannels(): Promise<{ channels: NotificationChannel[] }>;
+  delivered: DeliveredStats;
   
   /**
-   * Update progress for a progress-centric notification
+   * Group summaries kept for bursts of notifications
    */
-  updateProgress(options: {
-    id: number;
-    progress: number;
-    progressStyle?: ProgressStyleOptions;
-  }): Promise<void>;
+  grouping: GroupingStats;
+}
+
+export interface GroupingStats {
+  /**
+   * Notifications a group needs before its summary is shown, 0 when grouping is off
+   */
+  threshold: number;
   
   /**
-   * Add points to a progress-centric notification
+   * Groups with at least one notification shown
    */
-  addProgressPoints(options: {
-    id: number;
-    points: ProgressStylePoint[];
-  }): Promise<void>;
+  groups: number;
   
   /**
-   * Update segments and points in a progress-centric notification
+   * Notifications shown as part of a group
    */
-  updateProgressSegments(options: {
-    id: number;
-    segments: ProgressStyleSegment[];
-    points?: ProgressStylePoint[];  // Optional points
-  }): Promise<void>;
+  groupedMembers: number;
+  
+  /**
+   * Summaries currently shown
+   */
+  summariesShown: number;
+  
+  /**
+   * Summaries posted because a group reached the threshold
+   */
+  summariesPosted: number;
+  
+  /**
+   * Silent summary re-posts after notifications were added, changed or removed
+   */
+  summaryUpdates: number;
+  
+  /**
+   * Summaries removed because their group dropped below the threshold
+   */
+  summariesCancelled: number;
+  
+  /**
+   * Membership changes folded into an already scheduled summary update
+   */
+  coalescedUpdates: number;
+}
+
+export interface DeliveredStats {
+  /**
+   * Comparisons against the system's active notifications
+   */
+  reconciles: number;
+  
+  /**
+   * Entries removed because the system no longer showed them
+   */
+  staleRemoved: number;
+  
+  /**
+   * Notifications swiped away or cleared by the user
+   */
+  dismissed: number;
+}
+
+export interface ResourceLookupStats {
+  /**
+   * Icon name lookups answered from the cache
+   */
+  hits: number;
+  
+  /**
+   * Icon name lookups that went to the system
+   */
+  misses: number;
+  
+  /**
+   * Cached names, found or not
+   */
+  cached: number;
+}
+
+export interface RemoteIconStats {
+  /**
+   * Image fetches started
+   */
+  fetches: number;
+  
+  /**
+   * Requests that joined a fetch already in flight for the same URI
+   */
+  sharedFetches: number;
+  
+  /**
+   * Images served fresh from the disk cache
+   */
+  diskHits: number;
+  
+  /**
+   * Stale cached images confirmed unchanged by the server
+   */
+  revalidated: number;
+  
+  /**
+   * Images that could not be loaded
+   */
+  failures: number;
+  
+  /**
+   * Fetches currently running or queued
+   */
+  inFlight: number;
+}
+
+export interface IconCacheStats {
+  /**
+   * Large icon builds that reused a cached bitmap
+   */
+  bitmapHits: number;
+  
+  /**
+   * Large icon builds that had to draw the bitmap
+   */
+  bitmapMisses: number;
+  
+  /**
+   * Bitmaps dropped to stay under the memory bound
+   */
+  bitmapEvictions: number;
+  
+  /**
+   * Bitmaps currently cached
+   */
+  bitmaps: number;
+  
+  /**
+   * Memory used by cached bitmaps, in bytes
+   */
+  bitmapBytes: number;
+  
+  /**
+   * Memory bound for cached bitmaps, in bytes
+   */
+  maxBitmapBytes: number;
+  
+  /**
+   * ProgressStyle and action icons reused from the cache
+   */
+  iconHits: number;
+  
+  /**
+   * ProgressStyle and action icons created
+   */
+  iconMisses: number;
+  
+  /**
+   * ProgressStyle and action icons currently cached
+   */
+  icons: number;
+  
+  /**
+   * Icon name to resource id lookups
+   */
+  resources: ResourceLookupStats;
+  
+  /**
+   * Large icons loaded from URIs
+   */
+  remote: RemoteIconStats;
+}
+
+export interface ProgressUpdateStats {
+  /**
+   * Progress, points and segments updates received from JS
+   */
+  submitted: number;
+  
+  /**
+   * Notification posts made for those updates
+   */
+  posted: number;
+  
+  /**
+   * Updates merged into a pending update for the same notification instead of posted on their own
+   */
+  coalesced: number;
+  
+  /**
+   * Updates dropped because the notification was gone or could not be rendered
+   */
+  failed: number;
+  
+  /**
+   * Notifications with an update waiting for the next flush
+   */
+  pending: number;
+  
+  /**
+   * Maximum posts per second for the whole app.
+   * Set with `plugins.ModernNotifications.maxProgressUpdatesPerSecond` in the Capacitor config (default 4, max 5).
+   */
+  maxUpdatesPerSecond: number;
+  
+  /**
+   * Notifications currently advanced by a native progress ticker
+   */
+  activeTickers: number;
+  
+  /**
+   * Times the shared ticker woke up, for all notifications together
+   */
+  tickerWakeups: number;
+  
+  /**
+   * Progress values produced by tickers
+   */
+  tickerUpdates: number;
+}
+
+export interface ProgressKeyframe {
+  /**
+   * When the keyframe applies, as a Date, ISO string or epoch millis
+   */
+  at: Date | string | number;
+  
+  /**
+   * Progress reached at `at`, moved to linearly from the previous keyframe
+   */
+  progress?: number;
+  
+  /**
+   * Segments shown from `at` on
+   */
+  segments?: ProgressStyleSegment[];
+  
+  /**
+   * Points shown from `at` on
+   */
+  points?: ProgressStylePoint[];
+}
+
+export interface ProgressTickerOptions {
+  /**
+   * ID of the notification to advance
+   */
+  id: number;
+  
+  /**
+   * Starting progress, defaults to the current progress
+   */
+  from?: number;
+  
+  /**
+   * Final progress for `endAt` and `ratePerSecond`, defaults to maxProgress
+   */
+  to?: number;
+  
+  /**
+   * Reach `to` at this time
+   */
+  endAt?: Date | string | number;
+  
+  /**
+   * Progress units per second, used when `endAt` is not given
+   */
+  ratePerSecond?: number;
+  
+  /**
+   * Timeline of progress, segment and point changes; takes precedence over `endAt` and `ratePerSecond`
+   */
+  keyframes?: ProgressKeyframe[];
+}
+
+export interface DownloadWithProgressOptions {
+  /**
+   * ID of the shown notification whose progress follows the download
+   */
+  id: number;
+  
+  /**
+   * URL to download with a GET request
+   */
+  url: string;
+  
+  /**
+   * Destination, relative to the app's files directory
+   */
+  path: string;
+  
+  /**
+   * Request headers
+   */
+  headers?: { [key: string]: string };
+  
+  /**
+   * Connect timeout in milliseconds
+   */
+  connectTimeout?: number;
+  
+  /**
+   * Read timeout in milliseconds
+   */
+  readTimeout?: number;
+  
+  /**
+   * Body shown when the download finishes (default "Download complete")
+   */
+  completeBody?: string;
+  
+  /**
+   * Body shown when the download fails (default "Download failed")
+   */
+  failedBody?: string;
+}
+
+export interface DownloadResult {
+  /**
+   * Absolute path of the downloaded file
+   */
+  path: string;
+  
+  /**
+   * Number of bytes written
+   */
+  bytes: number;
+  
+  /**
+   * HTTP status code
+   */
+  status: number;
+}
+
+export interface BackgroundActionRecord {
+  /**
+   * ID of the notification the action belongs to
+   */
+  notificationId: number;
+  
+  /**
+   * The action that was performed
+   */
+  actionId: string;
+  
+  /**
+   * The background behavior that ran
+   */
+  type: 'snooze' | 'dismiss' | 'progress' | 'queue';
+  
+  /**
+   * Epoch millis when the action was handled
+   */
+  timestamp: number;
+}
+
+export interface ActionLatencyStats {
+  /**
+   * Number of actions measured
+   */
+  count: number;
+  
+  /**
+   * Average time from the receiver getting the tap to completion, in milliseconds
+   */
+  averageMs: number;
+  
+  /**
+   * Slowest receiver-to-completion time, in milliseconds
+   */
+  maxMs: number;
+}
+
+export interface ActionStats {
+  /**
+   * Actions handled natively without opening the app
+   */
+  background: ActionLatencyStats;
+  
+  /**
+   * Actions that opened the app
+   */
+  foreground: ActionLatencyStats;
+  
+  /**
+   * Background actions recorded and not yet drained
+   */
+  queued: number;
+  
+  /**
+   * Notification events waiting for a JS listener
+   */
+  outbox: EventOutboxStats;
+  
+  /**
+   * Action PendingIntents reused across notification rebuilds
+   */
+  intents: ActionIntentStats;
+}
+
+export interface ActionIntentStats {
+  /**
+   * PendingIntents requested from the system (one IPC each)
+   */
+  created: number;
+  
+  /**
+   * Rebuilds that reused a cached PendingIntent instead
+   */
+  reused: number;
+  
+  /**
+   * PendingIntents released with their notification
+   */
+  cancelled: number;
+  
+  /**
+   * PendingIntents currently cached
+   */
+  cached: number;
+}
+
+export interface EventOutboxStats {
+  /**
+   * Events recorded and not yet delivered
+   */
+  pending: number;
+  
+  /**
+   * Events dropped because the outbox was full
+   */
+  dropped: number;
+}
+
+export interface PermissionStatus {
+  /**
+   * Permission state for local notifications
+   */
+  display: 'granted' | 'denied' | 'prompt';
+}
+
+export interface ModernNotificationsPlugin {
+  /**
+   * Request permission to display local notifications
+   */
+  requestPermissions(): Promise<PermissionStatus>;
+  
+  /**
+   * Check current permission status
+   */
+  checkPermissions(): Promise<PermissionStatus>;
+  
+  /**
+   * Schedule one or more local notifications
+   */
+  schedule(options: ScheduleOptions): Promise<ScheduleResult>;
+  
+  /**
+   * Get a list of pending notifications. On Android, a repeating notification
+   * is listed once with the schedule of its next occurrence
+   */
+  getPending(): Promise<NotificationResult>;
+  
+  /**
+   * Get a list of delivered notifications. On Android, notifications the user
+   * swiped away or the system removed are not included. A recurring
+   * notification whose last occurrence is still shown is listed here as well
+   * as in getPending, with the schedule of its next occurrence
+   */
+  getDelivered(): Promise<NotificationResult>;
+  
+  /**
+   * Search pending and delivered notifications by channel, group, time range
+   * and extra key, sorted and paged (Android)
+   */
+  queryNotifications(options: NotificationQueryOptions): Promise<NotificationQueryResult>;
+  
+  /**
+   * Cancel specific notifications by ID
+   */
+  cancel(options: { notifications: { id: number }[] }): Promise<void>;
+  
+  /**
+   * Cancel all pending notifications
+   */
+  cancelAll(): Promise<void>;
+  
+  /**
+   * Remove specific delivered notifications by ID
+   */
+  removeDelivered(options: { notifications: { id: number }[] }): Promise<void>;
+  
+  /**
+   * Remove all delivered notifications
+   */
+  removeAllDelivered(): Promise<void>;
+  
+  /**
+   * Create a notification channel (Android)
+   */
+  createChannel(channel: NotificationChannel): Promise<void>;
+  
+  /**
+   * Delete a notification channel (Android)
+   */
+  deleteChannel(options: { id: string }): Promise<void>;
+  
+  /**
+   * List all notification channels (Android)
+   */
+  listChannels(): Promise<{ channels: NotificationChannel[] }>;
+  
+  /**
+   * Update progress for a progress-centric notification.
+   * On Android, updates are merged per notification and posted at a limited rate,
+   * so the promise resolves once the update is queued
+   */
+  updateProgress(options: {
+    id: number;
+    progress: number;
+    progressStyle?: ProgressStyleOptions;
+  }): Promise<void>;
+  
+  /**
+   * Add points to a progress-centric notification
+   */
+  addProgressPoints(options: {
+    id: number;
+    points: ProgressStylePoint[];
+  }): Promise<void>;
+  
+  /**
+   * Update segments and points in a progress-centric notification
+   */
+  updateProgressSegments(options: {
+    id: number;
+    segments: ProgressStyleSegment[];
+    points?: ProgressStylePoint[];  // Optional points
+  }): Promise<void>;
+  
+  /**
+   * Get counters from the native alarm scheduler (Android)
+   */
+  getSchedulerStats(): Promise<SchedulerStats>;
+  
+  /**
+   * Apply incremental segment and point changes to a progress notification.
+   * Patches run in order on the native model; missing elements are skipped (Android)
+   */
+  patchProgress(options: {
+    id: number;
+    patches: ProgressPatch[];
+  }): Promise<void>;
+  
+  /**
+   * Get counters of posted, silent and suppressed notification updates (Android)
+   */
+  getPostStats(): Promise<PostStats>;
+  
+  /**
+   * Get icon and bitmap cache counters (Android)
+   */
+  getIconStats(): Promise<IconCacheStats>;
+  
+  /**
+   * Get counters from the coalescing progress update engine (Android)
+   */
+  getProgressStats(): Promise<ProgressUpdateStats>;
+  
+  /**
+   * Advance a notification's progress natively, without calling updateProgress from JS.
+   * Runs while the app process is alive (Android)
+   */
+  startProgressTicker(options: ProgressTickerOptions): Promise<void>;
+  
+  /**
+   * Download a file and drive the notification's progress natively, without JS round-trips.
+   * On completion or failure the progress bar is replaced with a final message (Android)
+   */
+  downloadWithProgress(options: DownloadWithProgressOptions): Promise<DownloadResult>;
+  
+  /**
+   * Abort a download started with downloadWithProgress; the promise rejects (Android)
+   */
+  cancelDownload(options: { id: number }): Promise<void>;
+  
+  /**
+   * Stop a native progress ticker, leaving the notification at its current progress (Android)
+   */
+  stopProgressTicker(options: { id: number }): Promise<void>;
+  
+  /**
+   * Get receiver latency counters for background and foreground actions (Android)
+   */
+  getActionStats(): Promise<ActionStats>;
+  
+  /**
+   * Return and clear the background actions recorded while handled natively (Android)
+   */
+  drainBackgroundActions(): Promise<{ actions: BackgroundActionRecord[] }>;
   
   /**
    * Listen for when a notification is received
@@ -3,12 +3,25 @@ import { WebPlugin } from '@capacitor/core';
 import type {
   ModernNotificationsPlugin,
   ScheduleOptions,
+  ScheduleResult,
   NotificationResult,
+  NotificationQueryOptions,
+  NotificationQueryResult,
   PermissionStatus,
   NotificationChannel,
   ProgressStylePoint,
   ProgressStyleSegment,
   ProgressStyleOptions,
+  SchedulerStats,
+  ProgressUpdateStats,
+  PostStats,
+  IconCacheStats,
+  ProgressTickerOptions,
+  ProgressPatch,
+  DownloadWithProgressOptions,
+  DownloadResult,
+  ActionStats,
+  BackgroundActionRecord,
 } from './definitions';
 
 export class ModernNotificationsWeb extends WebPlugin implements ModernNotificationsPlugin {
@@ -43,7 +56,7 @@ export class ModernNotificationsWeb extends WebPlugin implements ModernNotificat
     return { display: this.permission };
   }
 
-  async schedule(options: ScheduleOptions): Promise<NotificationResult> {
+  async schedule(options: ScheduleOptions): Promise<ScheduleResult> {
     const { notifications } = options;
     
     if (this.permission !== 'granted') {
@@ -124,6 +137,10 @@ export class ModernNotificationsWeb extends WebPlugin implements ModernNotificat
     return { notifications: this.deliveredNotifications };
   }
 
+  async queryNotifications(_options: NotificationQueryOptions): Promise<NotificationQueryResult> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
   async cancel(options: { notifications: { id: number }[] }): Promise<void> {
     const idsToCancel = options.notifications.map(n => n.id);
     this.notifications = this.notifications.filter(n => !idsToCancel.includes(n.id));
@@ -200,5 +217,49 @@ export class ModernNotificationsWeb extends WebPlugin implements ModernNotificat
     }
   }
 
+  async getSchedulerStats(): Promise<SchedulerStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async patchProgress(_options: { id: number; patches: ProgressPatch[] }): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getPostStats(): Promise<PostStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getIconStats(): Promise<IconCacheStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getProgressStats(): Promise<ProgressUpdateStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async startProgressTicker(_options: ProgressTickerOptions): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async downloadWithProgress(_options: DownloadWithProgressOptions): Promise<DownloadResult> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async cancelDownload(_options: { id: number }): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async stopProgressTicker(_options: { id: number }): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getActionStats(): Promise<ActionStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async drainBackgroundActions(): Promise<{ actions: BackgroundActionRecord[] }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
 
 }